@@ -0,0 +1,221 @@
+package tuplesProject;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A tuple that keeps its values in a contiguous array.
+ * <p>
+ * This class offers the same operations as {@link Tuple}, but instead of walking
+ * a chain of nodes it indexes an {@code Object[]} directly, so {@code get},
+ * {@code replace} and {@code set} run in constant time and appending grows the
+ * array geometrically.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ // Creating an array-backed tuple with different types
+ Tuple<?> tuple = new ArrayTuple<>("a").ap(3).ap(true).ap(4.5f);
+ }</pre>
+ *
+ * @param <V> The type of data stored in the tuple.
+ */
+public class ArrayTuple<V> extends IndexedTuple<V> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private Object[] elements;
+    private int size;
+    private boolean wrapped;
+
+    /**
+     * Creates an array-backed tuple holding a single value.
+     *
+     * @param value The value of the tuple.
+     * @throws IllegalArgumentException If the specified value is an instance of Tuple.
+     */
+    public ArrayTuple(V value) {
+        checkNesting(value);
+        elements = new Object[DEFAULT_CAPACITY];
+        elements[0] = value;
+        size = 1;
+    }
+
+    /**
+     * Constructs an array-backed tuple from a list of values.
+     * An empty or null list results in a tuple holding a single null value.
+     *
+     * @param list The list of values to construct the tuple from.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    public ArrayTuple(List<?> list) {
+        if (list == null || list.isEmpty()) {
+            elements = new Object[DEFAULT_CAPACITY];
+            size = 1;
+            return;
+        }
+        elements = list.toArray(new Object[0]);
+        for (Object element : elements) {
+            checkNesting(element);
+        }
+        size = elements.length;
+    }
+
+    /**
+     * Constructs an array-backed tuple holding the same values as the given tuple.
+     * The values are not cloned, and the new tuple is locked-size with the same
+     * type if the given one is, as its clones are.
+     *
+     * @param tuple The tuple to copy the values from.
+     */
+    public ArrayTuple(Tuple<V> tuple) {
+        elements = tuple.toArray();
+        size = elements.length;
+        if (tuple.isLockedSize()) {
+            lock(tuple.getType());
+        }
+    }
+
+    /**
+     * Creates an array-backed tuple that adopts the given array as its storage.
+     *
+     * @param elements The array holding the values.
+     * @param size     The number of values in use.
+     */
+    private ArrayTuple(Object[] elements, int size) {
+        this.elements = elements;
+        this.size = size;
+    }
+
+    /**
+     * Creates an array-backed tuple that adopts the given array as its storage.
+     * An empty array results in a tuple holding a single null value. An array
+     * of a narrower component type, such as a {@code String[]}, is copied into
+     * an {@code Object[]} instead, so the tuple can store values of any class.
+     *
+     * @param elements The array holding the values.
+     * @param <V>      The type of data stored in the tuple.
+     * @return The new tuple.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    static <V> ArrayTuple<V> adopt(Object[] elements) {
+        if (elements.length == 0) {
+            return new ArrayTuple<>(new Object[DEFAULT_CAPACITY], 1);
+        }
+        for (Object element : elements) {
+            checkNesting(element);
+        }
+        if (elements.getClass() != Object[].class) {
+            elements = Arrays.copyOf(elements, elements.length, Object[].class);
+        }
+        return new ArrayTuple<>(elements, elements.length);
+    }
+
+    /**
+     * Creates an array-backed tuple that adopts the given array as its storage,
+     * shared with the caller until the tuple outgrows it. An array of a
+     * narrower component type is copied, and so not shared.
+     *
+     * @param elements The array holding the values.
+     * @param <V>      The type of data stored in the tuple.
+     * @return The new tuple.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    static <V> ArrayTuple<V> share(Object[] elements) {
+        ArrayTuple<V> tuple = adopt(elements);
+        tuple.wrapped = tuple.elements == elements;
+        return tuple;
+    }
+
+    /**
+     * Grows the backing array, if needed, so it can hold the given number of values.
+     *
+     * @param capacity The minimum number of values the array must hold.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            int newCapacity = Math.max(capacity, elements.length + (elements.length >> 1) + 1);
+            elements = Arrays.copyOf(elements, newCapacity, Object[].class);
+            wrapped = false;
+        }
+    }
+
+    @Override
+    boolean storageShared() {
+        return wrapped;
+    }
+
+    @Override
+    Object slot(int index) {
+        return elements[index];
+    }
+
+    @Override
+    void slot(int index, Object value) {
+        elements[index] = value;
+    }
+
+    @Override
+    void insertSlot(int index, Object value) {
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+    }
+
+    @Override
+    void appendSlots(Object[] values) {
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, elements, size, values.length);
+        size += values.length;
+    }
+
+    @Override
+    void removeSlot(int index) {
+        if (size == 1) {
+            // The tuple was single element, set the value to null.
+            elements[0] = null;
+            return;
+        }
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+    }
+
+    /**
+     * Gets the size of the tuple.
+     *
+     * @return The number of values in the tuple.
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Creates a deep clone of the tuple.
+     *
+     * @return A new tuple that is a deep clone of the current instance.
+     * @throws CloneNotSupportedException If cloning fails due to incompatible types or unclonable objects.
+     */
+    @Override
+    public ArrayTuple<V> clone() throws CloneNotSupportedException {
+        Object[] clonedElements = new Object[size];
+        for (int i = 0; i < size; i++) {
+            clonedElements[i] = cloneObject(elements[i]);
+        }
+        return copyLockTo(new ArrayTuple<>(clonedElements, size));
+    }
+
+    @Override
+    ArrayTuple<V> shallowCopy() {
+        return copyLockTo(new ArrayTuple<>(Arrays.copyOf(elements, size, Object[].class), size));
+    }
+
+    @Override
+    long storageSize() {
+        return ShallowSizes.of(ArrayTuple.class) + ShallowSizes.ofArray(Object.class, elements.length);
+    }
+
+    @Override
+    Object[] copyValues() {
+        return Arrays.copyOf(elements, size, Object[].class);
+    }
+}
@@ -0,0 +1,28 @@
+package tuplesProject;
+
+/**
+ * How the typed tuples of a registered type are copied from its template.
+ *
+ * @see Tuple#setTypedTuple(Tuple, ClonePolicy)
+ */
+public enum ClonePolicy {
+
+    /**
+     * Every typed tuple is a new tuple holding the same values as the
+     * template, without cloning them. Meant for types whose values are never
+     * modified in place.
+     */
+    SHALLOW,
+
+    /**
+     * Every typed tuple is a deep clone of the template.
+     */
+    DEEP,
+
+    /**
+     * Every typed tuple shares the immutable values of the template, and only
+     * its mutable values are cloned. Templates that cannot share their values
+     * are deep cloned instead.
+     */
+    SHARE_IMMUTABLE
+}
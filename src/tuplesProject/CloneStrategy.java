@@ -0,0 +1,407 @@
+package tuplesProject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How the values of one class are copied when a tuple is cloned.
+ * <p>
+ * The strategy of a class is decided the first time a value of that class is
+ * cloned and then cached in a {@link ClassValue}, so cloning a tuple does not
+ * look up methods or compare classes for each of its values. In order of
+ * preference, values are:
+ * <ul>
+ * <li>returned as they are, if their class is immutable: the wrappers,
+ * String, Class, the immutable value classes of the JDK, enums, records whose
+ * components are all immutable, and the classes registered with
+ * {@link #registerImmutable(Class)};</li>
+ * <li>copied element by element, if they are arrays of references;</li>
+ * <li>copied with their public {@code clone()} method, bound once as a
+ * {@link MethodHandle}, if their class is Cloneable. The collections of
+ * {@code java.util} are copied this way, so their copies share their
+ * elements;</li>
+ * <li>copied field by field by {@link DeepCopier}, or through serialization
+ * if their graph cannot be copied that way, if their class is Serializable.</li>
+ * </ul>
+ * Arrays of primitives are copied with the {@code clone()} of arrays. Arrays
+ * of references are copied as a whole and then have their elements replaced
+ * by copies, skipping the elements that are immutable. Unmodifiable
+ * collections of immutable elements are shared.
+ */
+final class CloneStrategy {
+
+    private static final MethodType CLONE_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = ConcurrentHashMap.newKeySet();
+
+    static {
+        IMMUTABLE_TYPES.addAll(List.of(
+                Boolean.class, Byte.class, Character.class, Short.class,
+                Integer.class, Long.class, Float.class, Double.class,
+                String.class, Class.class, BigInteger.class, BigDecimal.class,
+                UUID.class, Locale.class, URI.class,
+                Instant.class, Duration.class, Period.class, LocalDate.class, LocalTime.class,
+                LocalDateTime.class, OffsetTime.class, OffsetDateTime.class, ZonedDateTime.class,
+                Year.class, YearMonth.class, MonthDay.class));
+    }
+
+    /**
+     * How the elements of a container value are copied.
+     */
+    private enum Container {
+        NONE, ARRAY, UNMODIFIABLE_LIST, UNMODIFIABLE_SET, UNMODIFIABLE_MAP
+    }
+
+    private static final ConcurrentHashMap<Class<?>, ValueCopier<Object>> COPIERS = new ConcurrentHashMap<>();
+
+    /**
+     * The records whose components are being checked by the current thread.
+     */
+    private static final ThreadLocal<Set<Class<?>>> CHECKED_RECORDS = ThreadLocal.withInitial(HashSet::new);
+
+    private static final ClassValue<CloneStrategy> STRATEGIES = new ClassValue<CloneStrategy>() {
+        @Override
+        protected CloneStrategy computeValue(Class<?> type) {
+            return new CloneStrategy(type);
+        }
+    };
+
+    private final ValueCopier<Object> copier;
+    private final boolean immutable;
+    private final Container container;
+    private final MethodHandle cloneMethod;
+    private final boolean serializable;
+
+    /**
+     * Decides the strategy of a class.
+     *
+     * @param type The class of the values.
+     */
+    private CloneStrategy(Class<?> type) {
+        copier = COPIERS.get(type);
+        immutable = copier == null && isImmutable(type);
+        container = immutable ? Container.NONE : containerOf(type);
+        cloneMethod = immutable ? null : findCloneMethod(type);
+        serializable = Serializable.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Gets the strategy of a class.
+     *
+     * @param type The class of the values.
+     * @return The cached strategy of the class.
+     */
+    static CloneStrategy of(Class<?> type) {
+        return STRATEGIES.get(type);
+    }
+
+    /**
+     * Registers a class whose values are never modified, so they are shared
+     * instead of copied. Classes should be registered before their values are
+     * first cloned, since records holding them are checked only once.
+     *
+     * @param type The immutable class.
+     */
+    static void registerImmutable(Class<?> type) {
+        IMMUTABLE_TYPES.add(type);
+        STRATEGIES.remove(type);
+    }
+
+    /**
+     * Registers the copier of the values of a class, replacing the current
+     * one, if any.
+     *
+     * @param type   The class of the values.
+     * @param copier The copier of the values.
+     */
+    static void registerCopier(Class<?> type, ValueCopier<Object> copier) {
+        COPIERS.put(type, copier);
+        STRATEGIES.remove(type);
+    }
+
+    /**
+     * Checks whether the values of a class never need to be copied.
+     *
+     * @param type The class to be checked.
+     * @return {@code true} if the class is primitive, registered as immutable, an enum or an immutable record.
+     */
+    private static boolean isImmutable(Class<?> type) {
+        if (type.isPrimitive() || IMMUTABLE_TYPES.contains(type) || Enum.class.isAssignableFrom(type)
+                || ZoneId.class.isAssignableFrom(type)) {
+            return true;
+        }
+        if (!type.isRecord()) {
+            return false;
+        }
+        Set<Class<?>> checkedRecords = CHECKED_RECORDS.get();
+        checkedRecords.add(type);
+        try {
+            for (RecordComponent component : type.getRecordComponents()) {
+                Class<?> componentType = component.getType();
+                // Records can refer to each other; their other components decide whether they are immutable
+                if (!checkedRecords.contains(componentType) && !isImmutableComponent(componentType)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            checkedRecords.remove(type);
+        }
+    }
+
+    /**
+     * Checks whether every value a record component can hold is immutable.
+     *
+     * @param componentType The declared type of the component.
+     * @return {@code true} if the type is primitive, or a final or enum type whose values are immutable.
+     */
+    private static boolean isImmutableComponent(Class<?> componentType) {
+        if (componentType.isPrimitive() || componentType.isEnum()) {
+            return true;
+        }
+        // Values of a subclass could be mutable, unless the type cannot be extended
+        return Modifier.isFinal(componentType.getModifiers()) && !componentType.isArray()
+                && of(componentType).isImmutable();
+    }
+
+    /**
+     * Decides how the elements of the values of a class are copied.
+     *
+     * @param type The class of the values.
+     * @return The kind of container of the class.
+     */
+    private static Container containerOf(Class<?> type) {
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? Container.NONE : Container.ARRAY;
+        }
+        // The collections made by List.of, Set.of, Map.of and their copyOf methods
+        if (type.getName().startsWith("java.util.ImmutableCollections$")) {
+            if (List.class.isAssignableFrom(type)) {
+                return Container.UNMODIFIABLE_LIST;
+            }
+            if (Set.class.isAssignableFrom(type)) {
+                return Container.UNMODIFIABLE_SET;
+            }
+            if (Map.class.isAssignableFrom(type)) {
+                return Container.UNMODIFIABLE_MAP;
+            }
+        }
+        return Container.NONE;
+    }
+
+    /**
+     * Binds the public {@code clone()} method of a Cloneable class.
+     *
+     * @param type The class of the values.
+     * @return A handle taking and returning an Object, or null if the class has no accessible clone method.
+     */
+    private static MethodHandle findCloneMethod(Class<?> type) {
+        if (!Cloneable.class.isAssignableFrom(type)) {
+            return null;
+        }
+        try {
+            if (type.isArray()) {
+                if (!type.getComponentType().isPrimitive()) {
+                    return null;
+                }
+                return MethodHandles.publicLookup()
+                        .findVirtual(type, "clone", MethodType.methodType(Object.class))
+                        .asType(CLONE_TYPE);
+            }
+            Method method = type.getMethod("clone");
+            if (Modifier.isStatic(method.getModifiers())) {
+                return null;
+            }
+            return MethodHandles.publicLookup().unreflect(method).asType(CLONE_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the values of the class are shared instead of copied.
+     *
+     * @return {@code true} if the class is immutable.
+     */
+    boolean isImmutable() {
+        return immutable;
+    }
+
+    /**
+     * Copies a value of the class.
+     *
+     * @param original The value to be copied, not null.
+     * @return The copy of the value, or the value itself if its class is immutable.
+     * @throws CloneNotSupportedException If the value cannot be copied.
+     */
+    Object copy(Object original) throws CloneNotSupportedException {
+        if (copier != null) {
+            return copier.copy(original);
+        }
+        if (immutable) {
+            return original;
+        }
+
+        switch (container) {
+            case ARRAY:
+                return copyArray((Object[]) original);
+            case UNMODIFIABLE_LIST:
+                return hasMutableElements((List<?>) original)
+                        ? List.copyOf(copyElements((List<?>) original)) : original;
+            case UNMODIFIABLE_SET:
+                return hasMutableElements((Set<?>) original)
+                        ? Set.copyOf(copyElements((Set<?>) original)) : original;
+            case UNMODIFIABLE_MAP:
+                return hasMutableElements(((Map<?, ?>) original).keySet())
+                        || hasMutableElements(((Map<?, ?>) original).values())
+                        ? Map.copyOf(copyEntries((Map<?, ?>) original)) : original;
+            default:
+                break;
+        }
+
+        if (cloneMethod != null) {
+            try {
+                return (Object) cloneMethod.invokeExact(original);
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                // Fall back to serialization, as if the value had no clone method
+            }
+        }
+
+        if (serializable) {
+            Object copied = DeepCopier.copy(original);
+            if (copied != null) {
+                return copied;
+            }
+
+            // Serialization is the last resort, for graphs the copier cannot walk
+            try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                 ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+
+                // Write the original object to a byte array
+                oos.writeObject(original);
+                oos.flush();
+
+                try (ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+                     ObjectInputStream ois = new ObjectInputStream(bis)) {
+
+                    // Read the cloned object from the byte array
+                    return ois.readObject();
+                }
+
+            } catch (IOException | ClassNotFoundException e) {
+            }
+        }
+
+        // Throw an exception if the object is not cloneable
+        throw new CloneNotSupportedException("Object " + original + " is not clonable.");
+    }
+
+    /**
+     * Copies a value that is an element of a container.
+     *
+     * @param element The element to be copied.
+     * @return The copy of the element, or the element itself if it is null or immutable.
+     * @throws CloneNotSupportedException If the element cannot be copied.
+     */
+    private static Object copyElement(Object element) throws CloneNotSupportedException {
+        return element == null ? null : of(element.getClass()).copy(element);
+    }
+
+    /**
+     * Checks whether any element of a collection has to be copied.
+     *
+     * @param elements The elements to be checked.
+     * @return {@code true} if an element is not immutable.
+     */
+    private static boolean hasMutableElements(Collection<?> elements) {
+        for (Object element : elements) {
+            if (element != null && !of(element.getClass()).isImmutable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies an array of references and its elements.
+     *
+     * @param original The array to be copied.
+     * @return The copy of the array.
+     * @throws CloneNotSupportedException If an element cannot be copied.
+     */
+    private static Object[] copyArray(Object[] original) throws CloneNotSupportedException {
+        Object[] copy = original.clone();
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = copyElement(copy[i]);
+        }
+        return copy;
+    }
+
+    /**
+     * Copies the elements of an unmodifiable collection into a new list.
+     *
+     * @param original The collection to be copied.
+     * @return A list holding the copies of the elements, in iteration order.
+     * @throws CloneNotSupportedException If an element cannot be copied.
+     */
+    private static List<Object> copyElements(Collection<?> original) throws CloneNotSupportedException {
+        List<Object> copy = new ArrayList<>(original.size());
+        for (Object element : original) {
+            copy.add(copyElement(element));
+        }
+        return copy;
+    }
+
+    /**
+     * Copies the keys and values of an unmodifiable map into a new map.
+     *
+     * @param original The map to be copied.
+     * @return A map holding the copies of the keys and values.
+     * @throws CloneNotSupportedException If a key or value cannot be copied.
+     */
+    private static Map<Object, Object> copyEntries(Map<?, ?> original) throws CloneNotSupportedException {
+        Map<Object, Object> copy = new HashMap<>(original.size() * 2);
+        for (Map.Entry<?, ?> entry : original.entrySet()) {
+            copy.put(copyElement(entry.getKey()), copyElement(entry.getValue()));
+        }
+        return copy;
+    }
+}
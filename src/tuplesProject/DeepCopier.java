@@ -0,0 +1,321 @@
+package tuplesProject;
+
+import java.io.Externalizable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Copies graphs of Serializable objects field by field, with the same result
+ * as writing them to a stream and reading them back, but without the stream.
+ * <p>
+ * Deserialization creates an object without running the constructors of its
+ * Serializable classes: only the no-arg constructor of the first superclass
+ * that is not Serializable runs. Without internal APIs, the copier creates
+ * objects through the accessible no-arg constructor of their own class
+ * instead, and then overwrites every field the Serializable classes declare:
+ * the non-transient fields get the copied values, and the transient fields are
+ * reset to their default values, as they are after deserialization. Whatever
+ * the constructors stored in those fields is therefore lost, as it would be
+ * with serialization; only their other side effects, such as counting the
+ * objects created, differ. The constructor and the fields of each class are
+ * looked up once and cached in a {@link ClassValue}. Objects reached more than
+ * once, including through cycles, are copied once, and arrays are copied with
+ * {@link System#arraycopy} before their mutable elements are replaced by their
+ * copies.
+ * <p>
+ * The graph is walked with an explicit stack of the objects whose fields are
+ * still to be copied, instead of recursion, so long chains of objects, such as
+ * linked lists, do not overflow the stack of the thread.
+ * <p>
+ * Classes without a no-arg constructor, classes that customize their serialized form
+ * ({@code writeObject}, {@code readObject},
+ * {@code writeReplace}, {@code readResolve}, {@link Externalizable}, records)
+ * and classes whose fields cannot be made accessible are not copied; a graph
+ * that reaches any of them is reported as not copyable, so the caller can fall
+ * back to serialization.
+ */
+final class DeepCopier {
+
+    private static final ClassValue<ClassLayout> LAYOUTS = new ClassValue<ClassLayout>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+            return ClassLayout.of(type);
+        }
+    };
+
+    private static final GraphNotCopyableException NOT_COPYABLE = new GraphNotCopyableException();
+
+    private final IdentityHashMap<Object, Object> copies = new IdentityHashMap<>();
+
+    /**
+     * The objects whose fields or elements are still to be copied, each
+     * followed by its copy.
+     */
+    private final ArrayDeque<Object> pending = new ArrayDeque<>();
+
+    private DeepCopier() {
+    }
+
+    /**
+     * Copies the graph of objects reachable from a value.
+     *
+     * @param original The value to be copied, not null.
+     * @return The copy of the value, or null if its graph cannot be copied field by field.
+     */
+    static Object copy(Object original) {
+        try {
+            DeepCopier copier = new DeepCopier();
+            Object copy = copier.copyValue(original);
+            copier.copyPending();
+            return copy;
+        } catch (GraphNotCopyableException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the copy of a value reached while walking the graph. A value that
+     * has not been copied yet is created, and its fields or elements are left
+     * to be copied from the stack of pending objects.
+     *
+     * @param original The value to be copied.
+     * @return The copy of the value, or the value itself if it is shared.
+     * @throws GraphNotCopyableException If the value cannot be copied field by field.
+     */
+    private Object copyValue(Object original) throws GraphNotCopyableException {
+        if (original == null) {
+            return null;
+        }
+        Class<?> type = original.getClass();
+        // Immutable values and enum constants come back from deserialization as the same objects
+        if (CloneStrategy.of(type).isImmutable() || original instanceof Enum) {
+            return original;
+        }
+        Object copy = copies.get(original);
+        if (copy != null) {
+            return copy;
+        }
+
+        if (type.isArray()) {
+            int length = Array.getLength(original);
+            copy = Array.newInstance(type.getComponentType(), length);
+            System.arraycopy(original, 0, copy, 0, length);
+            copies.put(original, copy);
+            if (!type.getComponentType().isPrimitive()) {
+                pending.push(copy);
+                pending.push(original);
+            }
+            return copy;
+        }
+
+        ClassLayout layout = LAYOUTS.get(type);
+        if (layout == null) {
+            throw NOT_COPYABLE;
+        }
+        copy = layout.newInstance();
+        copies.put(original, copy);
+        pending.push(copy);
+        pending.push(original);
+        return copy;
+    }
+
+    /**
+     * Copies the fields and elements of the pending objects, until no object
+     * is left to be copied.
+     *
+     * @throws GraphNotCopyableException If a value cannot be copied field by field.
+     */
+    private void copyPending() throws GraphNotCopyableException {
+        while (!pending.isEmpty()) {
+            Object original = pending.pop();
+            Object copy = pending.pop();
+            if (copy instanceof Object[]) {
+                Object[] elements = (Object[]) copy;
+                for (int i = 0; i < elements.length; i++) {
+                    elements[i] = copyValue(elements[i]);
+                }
+            } else {
+                LAYOUTS.get(original.getClass()).copyFields(original, copy, this);
+            }
+        }
+    }
+
+    /**
+     * The cached description of how the objects of a class are copied.
+     */
+    private static final class ClassLayout {
+
+        private final Constructor<?> constructor;
+        private final Field[] fields;
+        private final Field[] transientFields;
+
+        private ClassLayout(Constructor<?> constructor, Field[] fields, Field[] transientFields) {
+            this.constructor = constructor;
+            this.fields = fields;
+            this.transientFields = transientFields;
+        }
+
+        /**
+         * Describes how the objects of a class are copied.
+         *
+         * @param type The class of the objects.
+         * @return The layout of the class, or null if its objects cannot be copied field by field.
+         */
+        static ClassLayout of(Class<?> type) {
+            if (!Serializable.class.isAssignableFrom(type) || Externalizable.class.isAssignableFrom(type)
+                    || type.isRecord() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+                return null;
+            }
+
+            List<Field> fields = new ArrayList<>();
+            List<Field> transientFields = new ArrayList<>();
+            try {
+                for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                    if (hasReplacement(current)) {
+                        return null;
+                    }
+                    if (!Serializable.class.isAssignableFrom(current)) {
+                        continue;
+                    }
+                    if (hasCustomForm(current)) {
+                        return null;
+                    }
+                    for (Field field : current.getDeclaredFields()) {
+                        int modifiers = field.getModifiers();
+                        if (!Modifier.isStatic(modifiers)) {
+                            field.setAccessible(true);
+                            (Modifier.isTransient(modifiers) ? transientFields : fields).add(field);
+                        }
+                    }
+                }
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return new ClassLayout(constructor, fields.toArray(new Field[0]), transientFields.toArray(new Field[0]));
+            } catch (NoSuchMethodException ex) {
+                return null;
+            } catch (RuntimeException ex) {
+                // The members of classes in modules that are not open cannot be made accessible
+                return null;
+            }
+        }
+
+        /**
+         * Checks whether a class declares a method replacing its objects when
+         * they are written or read.
+         *
+         * @param type The class to be checked.
+         * @return {@code true} if the class declares writeReplace or readResolve.
+         */
+        private static boolean hasReplacement(Class<?> type) {
+            return declares(type, "writeReplace") || declares(type, "readResolve");
+        }
+
+        /**
+         * Checks whether a Serializable class customizes the way its fields
+         * are written or read.
+         *
+         * @param type The class to be checked.
+         * @return {@code true} if the class writes or reads its fields itself.
+         */
+        private static boolean hasCustomForm(Class<?> type) {
+            if (declares(type, "writeObject", ObjectOutputStream.class)
+                    || declares(type, "readObject", ObjectInputStream.class)
+                    || declares(type, "readObjectNoData")) {
+                return true;
+            }
+            try {
+                type.getDeclaredField("serialPersistentFields");
+                return true;
+            } catch (NoSuchFieldException ex) {
+                return false;
+            }
+        }
+
+        private static boolean declares(Class<?> type, String name, Class<?>... parameterTypes) {
+            try {
+                type.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException ex) {
+                return false;
+            }
+        }
+
+        /**
+         * Creates an object of the class with its no-arg constructor.
+         */
+        Object newInstance() throws GraphNotCopyableException {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                throw NOT_COPYABLE;
+            }
+        }
+
+        /**
+         * Copies the fields of an object into its copy, and resets the
+         * transient fields of the copy to their default values.
+         */
+        void copyFields(Object original, Object copy, DeepCopier copier) throws GraphNotCopyableException {
+            try {
+                for (Field field : fields) {
+                    Class<?> fieldType = field.getType();
+                    if (!fieldType.isPrimitive()) {
+                        field.set(copy, copier.copyValue(field.get(original)));
+                    } else if (fieldType == int.class) {
+                        field.setInt(copy, field.getInt(original));
+                    } else if (fieldType == long.class) {
+                        field.setLong(copy, field.getLong(original));
+                    } else if (fieldType == double.class) {
+                        field.setDouble(copy, field.getDouble(original));
+                    } else if (fieldType == boolean.class) {
+                        field.setBoolean(copy, field.getBoolean(original));
+                    } else if (fieldType == float.class) {
+                        field.setFloat(copy, field.getFloat(original));
+                    } else if (fieldType == byte.class) {
+                        field.setByte(copy, field.getByte(original));
+                    } else if (fieldType == char.class) {
+                        field.setChar(copy, field.getChar(original));
+                    } else {
+                        field.setShort(copy, field.getShort(original));
+                    }
+                }
+                for (Field field : transientFields) {
+                    Class<?> fieldType = field.getType();
+                    if (!fieldType.isPrimitive()) {
+                        field.set(copy, null);
+                    } else if (fieldType == boolean.class) {
+                        field.setBoolean(copy, false);
+                    } else if (fieldType == char.class) {
+                        field.setChar(copy, '\0');
+                    } else {
+                        // A byte widens to any other numeric field
+                        field.setByte(copy, (byte) 0);
+                    }
+                }
+            } catch (IllegalAccessException | IllegalArgumentException ex) {
+                throw NOT_COPYABLE;
+            }
+        }
+    }
+
+    /**
+     * Signals that a graph reaches an object that cannot be copied field by field.
+     */
+    private static final class GraphNotCopyableException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        GraphNotCopyableException() {
+            super(null, null, false, false);
+        }
+    }
+}
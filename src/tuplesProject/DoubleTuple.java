@@ -0,0 +1,240 @@
+package tuplesProject;
+
+import java.util.Arrays;
+import java.util.stream.DoubleStream;
+
+/**
+ * A tuple of double values stored unboxed in a {@code double[]}.
+ * <p>
+ * Reading and writing through {@link #getDouble(int)}, {@link #setDouble(int, double)}
+ * and {@link #apDouble(double)} never allocates, and cloning copies the array without
+ * going through the per-value cloning of the other tuples. The generic
+ * operations still work, boxing on the way out and accepting only
+ * {@code Double} values on the way in.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ DoubleTuple tuple = new DoubleTuple(1.5, 2.5);
+ tuple.setDouble(0, tuple.getDouble(1) * 2);
+ }</pre>
+ */
+public class DoubleTuple extends IndexedTuple<Double> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private double[] values;
+    private int size;
+
+    /**
+     * Creates a tuple holding the given values. With no values, the tuple
+     * holds a single zero.
+     *
+     * @param values The values of the tuple.
+     */
+    public DoubleTuple(double... values) {
+        if (values.length == 0) {
+            this.values = new double[DEFAULT_CAPACITY];
+            size = 1;
+            return;
+        }
+        this.values = values.clone();
+        size = values.length;
+    }
+
+    /**
+     * Creates a tuple that adopts the given array as its storage.
+     *
+     * @param values The array holding the values.
+     * @param size   The number of values in use.
+     */
+    private DoubleTuple(double[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Checks that the given value can be stored in this tuple.
+     *
+     * @param value The value to be checked.
+     * @throws IllegalArgumentException If the value is not an Double.
+     */
+    private static void checkValue(Object value) {
+        if (!(value instanceof Double)) {
+            throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
+        }
+    }
+
+    @Override
+    Object slot(int index) {
+        return values[index];
+    }
+
+    @Override
+    void slot(int index, Object value) {
+        values[index] = (Double) value;
+    }
+
+    @Override
+    void insertSlot(int index, Object value) {
+        checkValue(value);
+        insertDouble(index, (Double) value);
+    }
+
+    /**
+     * Inserts a double at a position, growing the array if needed.
+     *
+     * @param index The position to insert at.
+     * @param value The value to be inserted.
+     */
+    private void insertDouble(int index, double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+
+    @Override
+    void removeSlot(int index) {
+        if (size == 1) {
+            // The tuple was single element, reset the value.
+            values[0] = 0.0;
+            return;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+    }
+
+    @Override
+    void checkReplace(int index, Object value) {
+        checkValue(value);
+    }
+
+    @Override
+    int slotHash(int index) {
+        return Double.hashCode(values[index]);
+    }
+
+    @Override
+    SlotKind slotKind(int index) {
+        return SlotKind.DOUBLE;
+    }
+
+    @Override
+    long slotBits(int index) {
+        return Double.doubleToRawLongBits(values[index]);
+    }
+
+    @Override
+    long hashSlot(int index, TupleHasher hasher, long state) {
+        return hasher.mixBits(state, SlotKind.DOUBLE, Double.doubleToRawLongBits(values[index]));
+    }
+
+    @Override
+    int compareSlot(int index, IndexedTuple<?> other) {
+        if (other instanceof DoubleTuple) {
+            return Double.compare(values[index], ((DoubleTuple) other).values[index]);
+        }
+        return super.compareSlot(index, other);
+    }
+
+    @Override
+    long storageSize() {
+        return ShallowSizes.of(DoubleTuple.class) + ShallowSizes.ofArray(double.class, values.length);
+    }
+
+    /**
+     * The values are stored unboxed, so they retain nothing beyond the storage.
+     *
+     * @return Always zero.
+     */
+    @Override
+    long valuesSize() {
+        return 0;
+    }
+
+    /**
+     * Gets the size of the tuple.
+     *
+     * @return The number of values in the tuple.
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Appends a new double to the tuple without boxing it.
+     *
+     * @param value The value to be added.
+     * @return The modified tuple.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     */
+    public DoubleTuple apDouble(double value) {
+        checkResizable();
+        insertDouble(size, value);
+        appendedSlots(size - 1);
+        return this;
+    }
+
+    /**
+     * Creates a stream of the values of the tuple, read straight from its array.
+     *
+     * @return A stream of the values of the tuple.
+     */
+    @Override
+    public DoubleStream doubleStream() {
+        return Arrays.stream(values, 0, size);
+    }
+
+    @Override
+    public int getInt(int index) {
+        checkIndex(index);
+        return (int) values[index];
+    }
+
+    @Override
+    public long getLong(int index) {
+        checkIndex(index);
+        return (long) values[index];
+    }
+
+    @Override
+    public double getDouble(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    @Override
+    public void setDouble(int index, double value) {
+        checkIndex(index);
+        int oldHash = hashBefore(index);
+        values[index] = value;
+        replacedSlot(index, oldHash);
+    }
+
+    /**
+     * Copies the values of the tuple into a new double array, in order.
+     *
+     * @return An array holding the values of the tuple.
+     */
+    public double[] toDoubleArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    DoubleTuple shallowCopy() {
+        return clone();
+    }
+
+    /**
+     * Creates a clone of the tuple. Since the values are primitive, copying
+     * the array is already a deep clone.
+     *
+     * @return A new tuple holding the same values.
+     */
+    @Override
+    public DoubleTuple clone() {
+        return copyLockTo(new DoubleTuple(Arrays.copyOf(values, size), size));
+    }
+}
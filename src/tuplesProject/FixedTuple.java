@@ -0,0 +1,116 @@
+package tuplesProject;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Base class of the fixed-arity tuples {@link Tuple1} to {@link Tuple8}.
+ * <p>
+ * A fixed-arity tuple keeps each of its values in its own field, with no chain
+ * of nodes and no array, so reading a position is a plain field load and short
+ * lived instances can be scalar replaced by the JIT. Its size can never change;
+ * the typed-tuple registry hands them out for locked-size types small enough
+ * to fit in one of them.
+ * <p>
+ * For each registered type, the registry defines a hidden copy of the matching
+ * fixed-arity class (see {@link TupleClassFactory}), carrying the schema of the
+ * type as class data. Every type then has its own class, with its own profile
+ * at each call site, and checks replacements against the classes of its
+ * schema. The tuples of the shared classes check a replaced value against the
+ * class of the value it replaces, like linked tuples.
+ *
+ * @param <V> The type of data stored in the tuple.
+ */
+public abstract class FixedTuple<V> extends IndexedTuple<V> {
+
+    /**
+     * The largest number of values held by a fixed-arity tuple.
+     */
+    public static final int MAX_ARITY = 8;
+
+    /**
+     * Creates a fixed-arity tuple. Only the tuples of this package extend it.
+     */
+    FixedTuple() {
+    }
+
+    /**
+     * Creates the fixed-arity tuple holding the given values, if there is one
+     * for their count. The values are not cloned.
+     *
+     * @param values The values of the tuple.
+     * @param <V>    The type of data stored in the tuple.
+     * @return A fixed-arity tuple holding the values, or null if there are more than {@link #MAX_ARITY}.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    // The values are stored as V, unchecked like the values given to ap()
+    @SuppressWarnings("unchecked")
+    static <V> FixedTuple<V> ofValues(Object[] values) {
+        switch (values.length) {
+            case 1:
+                return new Tuple1<>((V) values[0]);
+            case 2:
+                return new Tuple2<>((V) values[0], (V) values[1]);
+            case 3:
+                return new Tuple3<>((V) values[0], (V) values[1], (V) values[2]);
+            case 4:
+                return new Tuple4<>((V) values[0], (V) values[1], (V) values[2], (V) values[3]);
+            case 5:
+                return new Tuple5<>((V) values[0], (V) values[1], (V) values[2], (V) values[3],
+                        (V) values[4]);
+            case 6:
+                return new Tuple6<>((V) values[0], (V) values[1], (V) values[2], (V) values[3],
+                        (V) values[4], (V) values[5]);
+            case 7:
+                return new Tuple7<>((V) values[0], (V) values[1], (V) values[2], (V) values[3],
+                        (V) values[4], (V) values[5], (V) values[6]);
+            case 8:
+                return new Tuple8<>((V) values[0], (V) values[1], (V) values[2], (V) values[3],
+                        (V) values[4], (V) values[5], (V) values[6], (V) values[7]);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Creates the fixed-arity tuple holding the same values as the given tuple,
+     * with the same lock and type. The values are not cloned.
+     *
+     * @param tuple The tuple to copy the values from.
+     * @param <V>   The type of data stored in the tuple.
+     * @return A fixed-arity tuple equal to the given one, or null if it is too large.
+     */
+    static <V> FixedTuple<V> of(Tuple<V> tuple) {
+        FixedTuple<V> fixedTuple = ofValues(tuple.toArray());
+        if (fixedTuple != null && tuple.isLockedSize()) {
+            fixedTuple.lockSize(tuple.getType());
+        }
+        return fixedTuple;
+    }
+
+    /**
+     * Gets the schema given to a specialized copy of a fixed-arity class when it
+     * was defined.
+     *
+     * @param lookup The lookup of the fixed-arity class.
+     * @return The schema of the type of the class, or null if the class is not a specialized copy.
+     */
+    static TupleSchema schemaOf(MethodHandles.Lookup lookup) {
+        try {
+            return MethodHandles.classData(lookup, ConstantDescs.DEFAULT_NAME, TupleSchema.class);
+        } catch (IllegalAccessException ex) {
+            // Only thrown for lookups without full access, which the classes never pass
+            return null;
+        }
+    }
+
+    @Override
+    void insertSlot(int index, Object value) {
+        throw new UnsupportedOperationException("Cannot change size of a fixed-arity tuple.");
+    }
+
+    @Override
+    void removeSlot(int index) {
+        throw new UnsupportedOperationException("Cannot change size of a fixed-arity tuple.");
+    }
+}
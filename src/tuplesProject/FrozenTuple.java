@@ -0,0 +1,354 @@
+package tuplesProject;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A tuple that can never change, created by {@link Tuple#freeze()}.
+ * <p>
+ * Unlike a locked-size tuple, whose values can still be replaced, every
+ * modification of a frozen tuple throws {@link UnsupportedOperationException}.
+ * The mutable values of the tuple it was frozen from are cloned when it is
+ * frozen, so nothing outside the frozen tuple refers to them, and they are
+ * cloned again whenever they are handed out through {@link #get(int)} or
+ * {@link #toArray()}: every read of a mutable value costs a clone of it, so
+ * callers reading one repeatedly should keep the value they got, or work on a
+ * {@link #thaw() thawed} copy. The values are kept in a final array, so a
+ * frozen tuple is safely published by any means and can be shared by several
+ * threads without copies or locks.
+ * <p>
+ * The hash code and the string of a frozen tuple are computed on first use and
+ * cached. Like {@link String#hashCode()}, the caches are written without
+ * synchronization: threads racing on the first use compute the same result.
+ * <p>
+ * When a frozen tuple is registered as a typed tuple, the registry hands out
+ * mutable copies of it, which share its immutable values and clone the
+ * mutable ones, and the typed tuples built from rows are frozen as well.
+ * {@link #thaw()} gives such a mutable copy too.
+ *
+ * @param <V> The type of data stored in the tuple.
+ */
+public final class FrozenTuple<V> extends IndexedTuple<V> {
+
+    private final Object[] values;
+    private final boolean lockedSize;
+    private final String type;
+    private final boolean immutableValues;
+    private int frozenHash;
+    private String string;
+
+    /**
+     * Creates a frozen tuple owning the given values. The mutable values are
+     * replaced in the array by their clones.
+     *
+     * @param values     The values of the tuple, not shared with anyone else.
+     * @param lockedSize Whether the tuple is locked-size.
+     * @param type       The type of the tuple, or blank if it has none.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     * @throws CloneNotSupportedException If a mutable value cannot be cloned.
+     */
+    private FrozenTuple(Object[] values, boolean lockedSize, String type) throws CloneNotSupportedException {
+        boolean immutable = true;
+        for (int i = 0; i < values.length; i++) {
+            checkNesting(values[i]);
+            if (values[i] != null && !isPrimitive(values[i])) {
+                values[i] = cloneObject(values[i]);
+                immutable = false;
+            }
+        }
+        this.values = values;
+        this.lockedSize = lockedSize;
+        this.type = type;
+        this.immutableValues = immutable;
+    }
+
+    /**
+     * Creates a frozen copy of a tuple, with the same lock and type.
+     *
+     * @param tuple The tuple to be frozen.
+     * @param <V>   The type of data stored in the tuple.
+     * @return The frozen copy of the tuple.
+     * @throws CloneNotSupportedException If a mutable value of the tuple cannot be cloned.
+     */
+    static <V> FrozenTuple<V> of(Tuple<V> tuple) throws CloneNotSupportedException {
+        return new FrozenTuple<>(tuple.toArray(), tuple.isLockedSize(), tuple.getType());
+    }
+
+    /**
+     * Creates a frozen tuple with the lock and type of this one, holding the
+     * given values.
+     *
+     * @param values The values of the new tuple, which are not changed.
+     * @return The new frozen tuple.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     * @throws CloneNotSupportedException If a mutable value cannot be cloned.
+     */
+    FrozenTuple<V> withValues(Object[] values) throws CloneNotSupportedException {
+        return new FrozenTuple<>(values.clone(), lockedSize, type);
+    }
+
+    /**
+     * Creates a mutable copy of the tuple, with the same lock and type. The
+     * mutable values are cloned.
+     *
+     * @return An array-backed tuple holding the values of this tuple.
+     */
+    public ArrayTuple<V> thaw() {
+        ArrayTuple<V> copy = new ArrayTuple<>(Arrays.asList(copyValues()));
+        return copyLockTo(copy);
+    }
+
+    /**
+     * Creates a mutable copy of the tuple, with the same lock and type, in the
+     * smallest storage that can hold it. The mutable values are cloned.
+     *
+     * @return A fixed-arity or array-backed tuple holding the values of this tuple.
+     */
+    IndexedTuple<V> mutableCopy() {
+        Object[] copy = copyValues();
+        IndexedTuple<V> tuple = FixedTuple.ofValues(copy);
+        if (tuple == null) {
+            tuple = ArrayTuple.adopt(copy);
+        }
+        return copyLockTo(tuple);
+    }
+
+    /**
+     * Gets a value to be handed out of the tuple: the value itself if it is
+     * immutable, or a clone of it otherwise.
+     *
+     * @param value The value stored in the tuple.
+     * @return A value that can be given to callers.
+     * @throws IllegalStateException If the value cannot be cloned.
+     */
+    private Object handOut(Object value) {
+        if (immutableValues || value == null || isPrimitive(value)) {
+            return value;
+        }
+        try {
+            return cloneObject(value);
+        } catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Creates the exception reporting an attempt to modify the tuple.
+     *
+     * @return The exception to be thrown.
+     */
+    private static UnsupportedOperationException frozen() {
+        return new UnsupportedOperationException("Cannot modify a frozen tuple.");
+    }
+
+    @Override
+    Object slot(int index) {
+        return values[index];
+    }
+
+    @Override
+    void slot(int index, Object value) {
+        throw frozen();
+    }
+
+    @Override
+    void insertSlot(int index, Object value) {
+        throw frozen();
+    }
+
+    @Override
+    void removeSlot(int index) {
+        throw frozen();
+    }
+
+    /**
+     * Gets the size of the tuple.
+     *
+     * @return The number of values in the tuple.
+     */
+    @Override
+    public int getSize() {
+        return values.length;
+    }
+
+    /**
+     * Not supported, since the lock and type of a frozen tuple cannot change.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public Tuple<V> lockSize(String type) {
+        throw frozen();
+    }
+
+    @Override
+    public boolean isLockedSize() {
+        return lockedSize;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns this tuple, which is already frozen.
+     *
+     * @return This tuple.
+     */
+    @Override
+    public FrozenTuple<V> freeze() {
+        return this;
+    }
+
+    /**
+     * Gets the value at the specified position in the tuple. Mutable values
+     * are cloned, so changing them does not change the tuple.
+     *
+     * @param index The desired position.
+     * @param <T>   The type of the value.
+     * @return The value at the specified position.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     * @throws IllegalStateException If a mutable value cannot be cloned.
+     */
+    // Values are handed out as whatever the caller expects, unchecked like the linked get()
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(int index) {
+        checkIndex(index);
+        return (T) handOut(values[index]);
+    }
+
+    /**
+     * Not supported, since a frozen tuple cannot change.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public <T> Tuple<V> ap(T value) {
+        throw frozen();
+    }
+
+    /**
+     * Not supported, since a frozen tuple cannot change.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public Tuple<V> apAll(Collection<?> values) {
+        throw frozen();
+    }
+
+    /**
+     * Not supported, since a frozen tuple cannot change.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public Tuple<V> apAll(Object[] values) {
+        throw frozen();
+    }
+
+    /**
+     * Not supported, since a frozen tuple cannot change.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public <T> void add(int index, T value) {
+        throw frozen();
+    }
+
+    /**
+     * Not supported, since a frozen tuple cannot change.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public V remove(int index) {
+        throw frozen();
+    }
+
+    /**
+     * Not supported, since a frozen tuple cannot change.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public <T> Tuple<V> set(T value) {
+        throw frozen();
+    }
+
+    /**
+     * Not supported, since a frozen tuple cannot change.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public <T> void replace(int index, T value) {
+        throw frozen();
+    }
+
+    /**
+     * Returns this tuple, since a frozen tuple shares nothing that can change
+     * with anyone else.
+     *
+     * @return This tuple.
+     */
+    @Override
+    public FrozenTuple<V> clone() {
+        return this;
+    }
+
+    @Override
+    Object[] copyValues() {
+        Object[] copy = values.clone();
+        if (!immutableValues) {
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = handOut(copy[i]);
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    long storageSize() {
+        return ShallowSizes.of(FrozenTuple.class) + ShallowSizes.ofArray(Object.class, values.length);
+    }
+
+    /**
+     * Gets the hash code of the tuple, computed from the frozen values on
+     * first use and cached. It does not go through the cache of indexed
+     * tuples, so nothing but this one field is ever written.
+     *
+     * @return The hash code of the tuple.
+     */
+    @Override
+    public int hashCode() {
+        int result = frozenHash;
+        if (result == 0) {
+            result = Arrays.hashCode(values);
+            frozenHash = result;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        String result = string;
+        if (result == null) {
+            result = super.toString();
+            string = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        // The hash codes of frozen tuples are cached, so they are compared first
+        if (obj instanceof FrozenTuple && obj.hashCode() != hashCode()) {
+            return false;
+        }
+        return super.equals(obj);
+    }
+}
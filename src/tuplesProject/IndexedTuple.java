@@ -0,0 +1,950 @@
+package tuplesProject;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Base class of the tuples that keep their values in indexed storage instead
+ * of a linked chain of nodes.
+ * <p>
+ * Subclasses only provide access to their storage through the slot methods;
+ * this class implements the {@link Tuple} operations on top of them, checking
+ * indexes, types and the locked size the same way the linked tuple does.
+ * <p>
+ * Since there is no chain of nodes, {@link #set(Object)} returns a view of the
+ * positions after the one it filled, standing for the next node of a linked
+ * tuple, and the tuple itself after the last position. Chained calls fill the
+ * positions in order, and separate calls on the tuple all fill the first one,
+ * the same way as on a linked tuple.
+ * <p>
+ * The hash code is kept up to date the same way as the hash code of a whole
+ * linked tuple: appending, removing the last value and replacing a value
+ * update it in constant time, while inserting or removing before the last
+ * position only marks it as stale, to be computed again on the next call to
+ * {@link #hashCode()}. It is only kept while all the values are immutable,
+ * and never for storage that can also be changed from outside the tuple.
+ * Like the hash code of a {@link String}, it is cached in a field that is
+ * valid on its own, together with a flag for a hash code of zero, so a tuple
+ * that is never modified can compute it lazily from several threads.
+ *
+ * @param <V> The type of data stored in the tuple.
+ */
+public abstract class IndexedTuple<V> extends Tuple<V> {
+
+    private boolean lockedSize;
+    private String type;
+    private int hash;
+    private boolean hashIsZero;
+
+    /**
+     * Creates an indexed tuple. Only storage engines of this package extend it.
+     */
+    IndexedTuple() {
+    }
+
+    /**
+     * Reads the value stored at a position, boxing it if needed.
+     * The index has already been checked.
+     *
+     * @param index The position to read.
+     * @return The value at the position.
+     */
+    abstract Object slot(int index);
+
+    /**
+     * Stores a value at a position. The index and the type of the value have
+     * already been checked.
+     *
+     * @param index The position to write.
+     * @param value The value to be stored.
+     */
+    abstract void slot(int index, Object value);
+
+    /**
+     * Inserts a value at a position, shifting the following values one position
+     * ahead. The index has already been checked.
+     *
+     * @param index The position to insert at.
+     * @param value The value to be inserted.
+     * @throws IllegalArgumentException If the storage cannot hold the value.
+     */
+    abstract void insertSlot(int index, Object value);
+
+    /**
+     * Removes the value at a position, shifting the following values one position
+     * back. When it is the only value, the position is kept and reset to its empty
+     * value instead. The index has already been checked.
+     *
+     * @param index The position to remove.
+     */
+    abstract void removeSlot(int index);
+
+    /**
+     * Appends values after the last position. The values have already been
+     * checked for nesting. By default they are inserted one at a time; storages
+     * that can grow once for all of them override it.
+     *
+     * @param values The values to be appended.
+     * @throws IllegalArgumentException If the storage cannot hold a value.
+     */
+    void appendSlots(Object[] values) {
+        for (Object value : values) {
+            insertSlot(getSize(), value);
+        }
+    }
+
+    /**
+     * Creates a tuple of the same class and lock holding the same values, without
+     * cloning them.
+     *
+     * @return The shallow copy, or null if this storage engine cannot share its values.
+     */
+    IndexedTuple<V> shallowCopy() {
+        return null;
+    }
+
+    /**
+     * Checks whether the storage of the tuple can also be changed from outside
+     * it, in which case its hash code is computed on every call instead of
+     * being kept up to date.
+     *
+     * @return {@code true} if others can change the values of the tuple.
+     */
+    boolean storageShared() {
+        return false;
+    }
+
+    /**
+     * Checks whether the value at a position can never change while in the tuple.
+     *
+     * @param index The position of the value.
+     * @return {@code true} if the value is null, primitive or immutable.
+     */
+    private boolean immutableSlot(int index) {
+        if (slotKind(index).isPrimitive()) {
+            return true;
+        }
+        Object value = slot(index);
+        return value == null || isPrimitive(value);
+    }
+
+    /**
+     * Checks whether the hash code of the tuple is kept.
+     *
+     * @return {@code true} if the cached hash code is up to date.
+     */
+    private boolean hashKept() {
+        return hash != 0 || hashIsZero;
+    }
+
+    /**
+     * Keeps a new hash code for the tuple after a modification.
+     *
+     * @param value The up-to-date hash code of the tuple.
+     */
+    private void keepHash(int value) {
+        hashIsZero = value == 0;
+        hash = value;
+    }
+
+    /**
+     * Marks the hash code of the tuple as stale, to be computed again on the
+     * next call to {@link #hashCode()}.
+     */
+    private void dropHash() {
+        hash = 0;
+        hashIsZero = false;
+    }
+
+    /**
+     * Gets the hash code of the value at a position that is about to be
+     * replaced or removed, to update the hash code of the tuple afterwards.
+     *
+     * @param index The position of the value.
+     * @return The hash code of the value, or 0 if the hash code of the tuple is not kept.
+     */
+    final int hashBefore(int index) {
+        return hashKept() ? slotHash(index) : 0;
+    }
+
+    /**
+     * Updates the hash code of the tuple after the value at a position was replaced.
+     *
+     * @param index   The position of the value.
+     * @param oldHash The hash code of the replaced value, from {@link #hashBefore(int)}.
+     */
+    final void replacedSlot(int index, int oldHash) {
+        if (hashKept()) {
+            if (immutableSlot(index)) {
+                keepHash(hash + (slotHash(index) - oldHash) * pow31(getSize() - 1 - index));
+            } else {
+                dropHash();
+            }
+        }
+    }
+
+    /**
+     * Updates the hash code of the tuple after values were appended to it.
+     *
+     * @param from The position of the first appended value.
+     */
+    final void appendedSlots(int from) {
+        if (!hashKept()) {
+            return;
+        }
+        int result = hash;
+        int size = getSize();
+        for (int i = from; i < size; i++) {
+            if (!immutableSlot(i)) {
+                dropHash();
+                return;
+            }
+            result = 31 * result + slotHash(i);
+        }
+        keepHash(result);
+    }
+
+    /**
+     * Updates the hash code of the tuple after the value at a position was
+     * removed. Removing the only value leaves a null value in its place.
+     *
+     * @param index   The position of the removed value.
+     * @param oldSize The size of the tuple before the removal.
+     * @param oldHash The hash code of the removed value, from {@link #hashBefore(int)}.
+     */
+    private void removedSlot(int index, int oldSize, int oldHash) {
+        if (getSize() == oldSize) {
+            replacedSlot(index, oldHash);
+        } else if (index == oldSize - 1) {
+            if (hashKept()) {
+                keepHash((hash - oldHash) * INVERSE_31);
+            }
+        } else {
+            dropHash();
+        }
+    }
+
+    /**
+     * Checks that a value can take the place of the value stored at a position.
+     * By default the new value must be assignable to the class of the current one.
+     *
+     * @param index The position being replaced.
+     * @param value The new value.
+     * @throws IllegalArgumentException If the types of the existing and new values are incompatible.
+     */
+    void checkReplace(int index, Object value) {
+        if (!slot(index).getClass().isAssignableFrom(value.getClass())) {
+            throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
+        }
+    }
+
+    /**
+     * Computes the hash code of the value at a position.
+     *
+     * @param index The position of the value.
+     * @return The hash code of the value, or 0 for null.
+     */
+    int slotHash(int index) {
+        return Objects.hashCode(slot(index));
+    }
+
+    /**
+     * Gets the kind of the value at a position. Storages keeping primitive
+     * values unboxed override it, along with {@link #slotBits(int)}, so their
+     * values can be read without boxing.
+     *
+     * @param index The position of the value.
+     * @return The kind of the value, {@link SlotKind#REFERENCE} for null.
+     */
+    SlotKind slotKind(int index) {
+        return SlotKind.of(slot(index));
+    }
+
+    /**
+     * Gets the raw bits of the primitive value at a position.
+     *
+     * @param index The position of a value of a primitive kind.
+     * @return The raw bits of the value.
+     */
+    long slotBits(int index) {
+        return slotKind(index).toBits(slot(index));
+    }
+
+    /**
+     * Folds the value at a position into the state of a hash. Storages keeping
+     * primitive values unboxed override it to hash them without boxing.
+     *
+     * @param index  The position of the value.
+     * @param hasher The hasher computing the hash.
+     * @param state  The current state of the hash.
+     * @return The new state of the hash.
+     */
+    long hashSlot(int index, TupleHasher hasher, long state) {
+        return hasher.mix(state, slot(index));
+    }
+
+    /**
+     * Compares the value at a position with the value at the same position of
+     * another indexed tuple, in their natural order. Storages keeping primitive
+     * values unboxed override it to compare them without boxing.
+     *
+     * @param index The position of the values.
+     * @param other The other tuple.
+     * @return The result of comparing the two values.
+     * @throws ClassCastException If the values cannot be compared with each other.
+     */
+    int compareSlot(int index, IndexedTuple<?> other) {
+        return TupleComparator.compareValues(slot(index), other.slot(index));
+    }
+
+    /**
+     * Checks that the given value can be stored without nesting tuples.
+     *
+     * @param value The value to be checked.
+     * @throws IllegalArgumentException If the specified value is an instance of Tuple.
+     */
+    static void checkNesting(Object value) {
+        if (value instanceof Tuple) {
+            throw new IllegalArgumentException("Cannot set a Tuple as the value to avoid nesting.");
+        }
+    }
+
+    /**
+     * Checks that the index points to an existing position.
+     *
+     * @param index The index to be checked.
+     * @throws IndexOutOfBoundsException If the index is negative or exceeds the tuple size.
+     */
+    final void checkIndex(int index) {
+        if (index < 0 || index >= getSize()) {
+            throw new IndexOutOfBoundsException("Invalid index.");
+        }
+    }
+
+    /**
+     * Checks that the size of the tuple can be changed.
+     *
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     */
+    final void checkResizable() {
+        if (isLockedSize()) {
+            throw new UnsupportedOperationException("Cannot change size of a locked-size tuple.");
+        }
+    }
+
+    /**
+     * Marks the tuple as locked-size, preventing further changes to its size.
+     *
+     * @param type The type associated with the locked-size tuple.
+     * @return The tuple if successfully locked; otherwise, null.
+     */
+    @Override
+    public Tuple<V> lockSize(String type) {
+        return lock(type) ? this : null;
+    }
+
+    /**
+     * Locks the size of the tuple with a type. Unlike {@link #lockSize(String)}
+     * it cannot be overridden, so constructors can call it.
+     *
+     * @param type The type associated with the locked-size tuple.
+     * @return {@code true} if the tuple was locked, {@code false} if the type is blank.
+     */
+    final boolean lock(String type) {
+        if (type == null || type.isBlank()) {
+            return false;
+        }
+        lockedSize = true;
+        this.type = type;
+        return true;
+    }
+
+    @Override
+    public boolean isLockedSize() {
+        return lockedSize;
+    }
+
+    @Override
+    public String getType() {
+        return type == null ? "" : type;
+    }
+
+    /**
+     * Appends a new value to the tuple.
+     *
+     * @param <T>   The type of the value.
+     * @param value The value to be added.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     * @throws IllegalArgumentException If the value is an instance of Tuple or cannot be stored.
+     * @return The modified tuple.
+     */
+    @Override
+    public <T> Tuple<V> ap(T value) {
+        checkResizable();
+        checkNesting(value);
+        int size = getSize();
+        insertSlot(size, value);
+        appendedSlots(size);
+        return this;
+    }
+
+    /**
+     * Appends all the values of a collection to the tuple, in the order of its
+     * iterator.
+     *
+     * @param values The values to be added.
+     * @return The modified tuple.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple or cannot be stored.
+     */
+    @Override
+    public Tuple<V> apAll(Collection<?> values) {
+        return apAll(values.toArray());
+    }
+
+    /**
+     * Appends all the values of an array to the tuple, in order, growing the
+     * storage once for all of them where the storage allows it.
+     *
+     * @param values The values to be added.
+     * @return The modified tuple.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple or cannot be stored.
+     */
+    @Override
+    public Tuple<V> apAll(Object[] values) {
+        checkResizable();
+        for (Object value : values) {
+            checkNesting(value);
+        }
+        int size = getSize();
+        appendSlots(values);
+        appendedSlots(size);
+        return this;
+    }
+
+    /**
+     * Adds a new value at a specific position in the tuple, shifting the
+     * following values one position ahead.
+     *
+     * @param index The desired position.
+     * @param value The value to be added.
+     * @param <T>   The type of the value.
+     * @throws IllegalArgumentException If the index is negative, or the value is an instance of Tuple or cannot be stored.
+     * @throws IndexOutOfBoundsException If the index exceeds the tuple size.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     */
+    @Override
+    public <T> void add(int index, T value) {
+        checkResizable();
+        if (index < 0) {
+            throw new IllegalArgumentException("Invalid index.");
+        }
+        if (index > getSize()) {
+            throw new IndexOutOfBoundsException("Invalid index.");
+        }
+        checkNesting(value);
+        int size = getSize();
+        insertSlot(index, value);
+        if (index == size) {
+            appendedSlots(size);
+        } else {
+            dropHash();
+        }
+    }
+
+    /**
+     * Gets the value at the specified position in the tuple.
+     *
+     * @param index The desired position.
+     * @param <T>   The type of the value.
+     * @return The value at the specified position.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    // Values are handed out as whatever the caller expects, unchecked like the linked get()
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(int index) {
+        checkIndex(index);
+        return (T) slot(index);
+    }
+
+    /**
+     * Removes the value at the specified position in the tuple. Removing the
+     * only value of the tuple leaves an empty value in its place.
+     *
+     * @param index The desired position.
+     * @return The removed value or null if the index is the tuple size.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     */
+    // The values are stored as V, unchecked like the values given to ap()
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(int index) {
+        checkResizable();
+        if (index == getSize()) {
+            return null;
+        }
+        checkIndex(index);
+        int size = getSize();
+        int oldHash = hashBefore(index);
+        V removedValue = (V) slot(index);
+        removeSlot(index);
+        removedSlot(index, size, oldHash);
+        return removedValue;
+    }
+
+    /**
+     * Replaces the first value of the tuple and returns a view of the
+     * following positions to allow method chaining, like the next node of a
+     * linked tuple.
+     *
+     * @param value The new value to be set in the tuple.
+     * @param <T>   The type of the new value.
+     * @return A view of the tuple from the next position on. If the first position is the last one, returns the tuple itself.
+     * @throws IllegalArgumentException If the types of the existing and new values are incompatible.
+     * @throws IndexOutOfBoundsException If the tuple is empty.
+     */
+    @Override
+    public <T> Tuple<V> set(T value) {
+        replace(0, value);
+        return getSize() == 1 ? this : new Rest<>(this, 1);
+    }
+
+    /**
+     * Replaces the value at the specified position in the tuple.
+     *
+     * @param index The desired position.
+     * @param value The new value.
+     * @param <T>   The type of the value.
+     * @throws IllegalArgumentException If the types are incompatible.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    @Override
+    public <T> void replace(int index, T value) {
+        checkIndex(index);
+        checkReplace(index, value);
+        int oldHash = hashBefore(index);
+        slot(index, value);
+        replacedSlot(index, oldHash);
+    }
+
+    /**
+     * Copies the lock and type of this tuple to a clone of it.
+     *
+     * @param clonedTuple The clone of this tuple.
+     * @param <T>         The type of the clone.
+     * @return The clone, for convenience.
+     */
+    final <T extends Tuple<?>> T copyLockTo(T clonedTuple) {
+        if (isLockedSize()) {
+            clonedTuple.lockSize(getType());
+        }
+        return clonedTuple;
+    }
+
+    @Override
+    public final Object[] toArray() {
+        return copyValues();
+    }
+
+    /**
+     * Copies the values of the tuple into a new array, in order.
+     *
+     * @return An array holding the values of the tuple.
+     */
+    @Override
+    Object[] copyValues() {
+        Object[] values = new Object[getSize()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = slot(i);
+        }
+        return values;
+    }
+
+    /**
+     * Creates an iterator over the values of the tuple, reading them by
+     * position. The iterator cannot remove values.
+     *
+     * @return An iterator over the values of the tuple.
+     */
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<V>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < getSize();
+            }
+
+            @Override
+            public V next() {
+                if (index >= getSize()) {
+                    throw new NoSuchElementException();
+                }
+                return get(index++);
+            }
+        };
+    }
+
+    /**
+     * Performs an action for every value of the tuple, in order.
+     *
+     * @param action The action to be performed.
+     * @throws NullPointerException If the action is null.
+     */
+    @Override
+    public void forEach(Consumer<? super V> action) {
+        Objects.requireNonNull(action);
+        int size = getSize();
+        for (int i = 0; i < size; i++) {
+            action.accept(get(i));
+        }
+    }
+
+    /**
+     * Creates a spliterator over the values of the tuple. It reports its exact
+     * size and splits into halves of exact size, like the spliterator of an array.
+     *
+     * @return A spliterator over the values of the tuple.
+     */
+    @Override
+    public Spliterator<V> spliterator() {
+        return new SlotSpliterator<>(this, 0, getSize());
+    }
+
+    /**
+     * Creates a stream of the numeric values of the tuple as ints, reading
+     * them by position through {@link #getInt(int)}.
+     *
+     * @return A stream of the values of the tuple as ints.
+     * @throws ClassCastException When the stream reaches a value that is not a number.
+     */
+    @Override
+    public IntStream intStream() {
+        return IntStream.range(0, getSize()).map(this::getInt);
+    }
+
+    /**
+     * Creates a stream of the numeric values of the tuple as longs, reading
+     * them by position through {@link #getLong(int)}.
+     *
+     * @return A stream of the values of the tuple as longs.
+     * @throws ClassCastException When the stream reaches a value that is not a number.
+     */
+    @Override
+    public LongStream longStream() {
+        return IntStream.range(0, getSize()).mapToLong(this::getLong);
+    }
+
+    /**
+     * Creates a stream of the numeric values of the tuple as doubles, reading
+     * them by position through {@link #getDouble(int)}.
+     *
+     * @return A stream of the values of the tuple as doubles.
+     * @throws ClassCastException When the stream reaches a value that is not a number.
+     */
+    @Override
+    public DoubleStream doubleStream() {
+        return IntStream.range(0, getSize()).mapToDouble(this::getDouble);
+    }
+
+    /**
+     * Estimates the number of bytes taken by the storage of the tuple. By
+     * default, the storage is the tuple object itself.
+     *
+     * @return The estimated size of the tuple object and the arrays it owns.
+     */
+    @Override
+    long storageSize() {
+        return ShallowSizes.of(getClass());
+    }
+
+    @Override
+    long valuesSize() {
+        long size = 0;
+        int count = getSize();
+        for (int i = 0; i < count; i++) {
+            size += ShallowSizes.ofValue(slot(i));
+        }
+        return size;
+    }
+
+    /**
+     * Gets the hash code of the tuple, computed again only if it is stale.
+     * Only one of the two cache fields is written here, so a thread racing
+     * with another one on the first call either sees the hash code or
+     * computes it again, never a stale zero.
+     *
+     * @return The hash code of the tuple.
+     */
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result != 0 || hashIsZero) {
+            return result;
+        }
+        result = 1;
+        boolean immutable = !storageShared();
+        int size = getSize();
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + slotHash(i);
+            immutable = immutable && immutableSlot(i);
+        }
+        if (!immutable) {
+            return result;
+        }
+        if (result == 0) {
+            hashIsZero = true;
+        } else {
+            hash = result;
+        }
+        return result;
+    }
+
+    @Override
+    long hashWith(TupleHasher hasher, long state) {
+        int size = getSize();
+        for (int i = 0; i < size; i++) {
+            state = hashSlot(i, hasher, state);
+        }
+        return hasher.finish(state, size);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("(").append(slot(0));
+        int size = getSize();
+        for (int i = 1; i < size; i++) {
+            result.append(", ").append(slot(i));
+        }
+        return result.append(")").toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Tuple)) {
+            return false;
+        }
+
+        Tuple<?> other = (Tuple<?>) obj;
+
+        if (isLockedSize() != other.isLockedSize()) {
+            return false;
+        }
+        if (!getType().isEmpty() && !other.getType().isEmpty() && !getType().equals(other.getType())) {
+            return false;
+        }
+
+        // Two indexed tuples are compared without copying their values
+        if (other instanceof IndexedTuple) {
+            IndexedTuple<?> otherIndexed = (IndexedTuple<?>) other;
+            int size = getSize();
+            if (size != otherIndexed.getSize()) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (!Objects.equals(slot(i), otherIndexed.slot(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Arrays.equals(copyValues(), other.copyValues());
+    }
+
+    /**
+     * Splits a range of positions of an indexed tuple for parallel streams.
+     *
+     * @param <V> The type of data stored in the tuple.
+     */
+    private static final class SlotSpliterator<V> implements Spliterator<V> {
+
+        private final IndexedTuple<V> tuple;
+        private int index;
+        private final int end;
+
+        SlotSpliterator(IndexedTuple<V> tuple, int index, int end) {
+            this.tuple = tuple;
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super V> action) {
+            Objects.requireNonNull(action);
+            if (index >= end) {
+                return false;
+            }
+            action.accept(tuple.get(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super V> action) {
+            Objects.requireNonNull(action);
+            int i = index;
+            index = end;
+            for (; i < end; i++) {
+                action.accept(tuple.get(i));
+            }
+        }
+
+        @Override
+        public Spliterator<V> trySplit() {
+            int middle = (index + end) >>> 1;
+            if (middle <= index) {
+                return null;
+            }
+            int start = index;
+            index = middle;
+            return new SlotSpliterator<>(tuple, start, middle);
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
+
+    /**
+     * The positions of an indexed tuple from one of them on, as returned by
+     * {@link IndexedTuple#set(Object)}. Like a node in the middle of a linked
+     * tuple, it reads and writes the values of the whole tuple, shares its
+     * lock and type, and its root is the whole tuple.
+     *
+     * @param <V> The type of data stored in the tuple.
+     */
+    static final class Rest<V> extends IndexedTuple<V> {
+
+        private final IndexedTuple<V> owner;
+        private final int offset;
+
+        /**
+         * Creates a view of a tuple from a position on.
+         *
+         * @param owner  The viewed tuple.
+         * @param offset The first viewed position.
+         */
+        Rest(IndexedTuple<V> owner, int offset) {
+            this.owner = owner;
+            this.offset = offset;
+        }
+
+        @Override
+        Object slot(int index) {
+            return owner.slot(offset + index);
+        }
+
+        @Override
+        void slot(int index, Object value) {
+            int oldHash = owner.hashBefore(offset + index);
+            owner.slot(offset + index, value);
+            owner.replacedSlot(offset + index, oldHash);
+        }
+
+        @Override
+        void insertSlot(int index, Object value) {
+            owner.add(offset + index, value);
+        }
+
+        @Override
+        void removeSlot(int index) {
+            owner.remove(offset + index);
+        }
+
+        @Override
+        boolean storageShared() {
+            return true;
+        }
+
+        @Override
+        void checkReplace(int index, Object value) {
+            owner.checkReplace(offset + index, value);
+        }
+
+        @Override
+        SlotKind slotKind(int index) {
+            return owner.slotKind(offset + index);
+        }
+
+        @Override
+        long slotBits(int index) {
+            return owner.slotBits(offset + index);
+        }
+
+        @Override
+        long hashSlot(int index, TupleHasher hasher, long state) {
+            return owner.hashSlot(offset + index, hasher, state);
+        }
+
+        @Override
+        public int getSize() {
+            return Math.max(owner.getSize() - offset, 0);
+        }
+
+        @Override
+        public Tuple<V> getRoot() {
+            return owner;
+        }
+
+        @Override
+        public <T> Tuple<V> set(T value) {
+            owner.replace(offset, value);
+            return offset + 1 >= owner.getSize() ? owner : new Rest<>(owner, offset + 1);
+        }
+
+        @Override
+        public Tuple<V> lockSize(String type) {
+            return owner.lockSize(type) == null ? null : this;
+        }
+
+        @Override
+        public boolean isLockedSize() {
+            return owner.isLockedSize();
+        }
+
+        @Override
+        public String getType() {
+            return owner.getType();
+        }
+
+        /**
+         * Clones the viewed positions into a new tuple, the way the linked
+         * tuple clones the nodes from one of them on.
+         *
+         * @return A tuple holding clones of the viewed values, with the lock and type of the viewed tuple.
+         * @throws CloneNotSupportedException If cloning fails due to unclonable objects.
+         */
+        @Override
+        public Tuple<V> clone() throws CloneNotSupportedException {
+            Object[] values = copyValues();
+            for (int i = 0; i < values.length; i++) {
+                values[i] = cloneObject(values[i]);
+            }
+            IndexedTuple<V> tuple = FixedTuple.ofValues(values);
+            if (tuple == null) {
+                tuple = ArrayTuple.adopt(values);
+            }
+            return copyLockTo(tuple);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package tuplesProject;
+
+import java.util.Arrays;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * A tuple of int values stored unboxed in an {@code int[]}.
+ * <p>
+ * Reading and writing through {@link #getInt(int)}, {@link #setInt(int, int)}
+ * and {@link #apInt(int)} never allocates, and cloning copies the array without
+ * going through the per-value cloning of the other tuples. The generic
+ * operations still work, boxing on the way out and accepting only
+ * {@code Integer} values on the way in.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ IntTuple tuple = new IntTuple(1, 2, 3);
+ tuple.setInt(0, tuple.getInt(1) + tuple.getInt(2));
+ }</pre>
+ */
+public class IntTuple extends IndexedTuple<Integer> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates a tuple holding the given values. With no values, the tuple
+     * holds a single zero.
+     *
+     * @param values The values of the tuple.
+     */
+    public IntTuple(int... values) {
+        if (values.length == 0) {
+            this.values = new int[DEFAULT_CAPACITY];
+            size = 1;
+            return;
+        }
+        this.values = values.clone();
+        size = values.length;
+    }
+
+    /**
+     * Creates a tuple that adopts the given array as its storage.
+     *
+     * @param values The array holding the values.
+     * @param size   The number of values in use.
+     */
+    private IntTuple(int[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Checks that the given value can be stored in this tuple.
+     *
+     * @param value The value to be checked.
+     * @throws IllegalArgumentException If the value is not an Integer.
+     */
+    private static void checkValue(Object value) {
+        if (!(value instanceof Integer)) {
+            throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
+        }
+    }
+
+    @Override
+    Object slot(int index) {
+        return values[index];
+    }
+
+    @Override
+    void slot(int index, Object value) {
+        values[index] = (Integer) value;
+    }
+
+    @Override
+    void insertSlot(int index, Object value) {
+        checkValue(value);
+        insertInt(index, (Integer) value);
+    }
+
+    /**
+     * Inserts an int at a position, growing the array if needed.
+     *
+     * @param index The position to insert at.
+     * @param value The value to be inserted.
+     */
+    private void insertInt(int index, int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+
+    @Override
+    void removeSlot(int index) {
+        if (size == 1) {
+            // The tuple was single element, reset the value.
+            values[0] = 0;
+            return;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+    }
+
+    @Override
+    void checkReplace(int index, Object value) {
+        checkValue(value);
+    }
+
+    @Override
+    int slotHash(int index) {
+        return Integer.hashCode(values[index]);
+    }
+
+    @Override
+    SlotKind slotKind(int index) {
+        return SlotKind.INT;
+    }
+
+    @Override
+    long slotBits(int index) {
+        return values[index];
+    }
+
+    @Override
+    long hashSlot(int index, TupleHasher hasher, long state) {
+        return hasher.mixBits(state, SlotKind.INT, values[index]);
+    }
+
+    @Override
+    int compareSlot(int index, IndexedTuple<?> other) {
+        if (other instanceof IntTuple) {
+            return Integer.compare(values[index], ((IntTuple) other).values[index]);
+        }
+        return super.compareSlot(index, other);
+    }
+
+    @Override
+    long storageSize() {
+        return ShallowSizes.of(IntTuple.class) + ShallowSizes.ofArray(int.class, values.length);
+    }
+
+    /**
+     * The values are stored unboxed, so they retain nothing beyond the storage.
+     *
+     * @return Always zero.
+     */
+    @Override
+    long valuesSize() {
+        return 0;
+    }
+
+    /**
+     * Gets the size of the tuple.
+     *
+     * @return The number of values in the tuple.
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Appends a new int to the tuple without boxing it.
+     *
+     * @param value The value to be added.
+     * @return The modified tuple.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     */
+    public IntTuple apInt(int value) {
+        checkResizable();
+        insertInt(size, value);
+        appendedSlots(size - 1);
+        return this;
+    }
+
+    /**
+     * Creates a stream of the values of the tuple, read straight from its array.
+     *
+     * @return A stream of the values of the tuple.
+     */
+    @Override
+    public IntStream intStream() {
+        return Arrays.stream(values, 0, size);
+    }
+
+    @Override
+    public LongStream longStream() {
+        return intStream().asLongStream();
+    }
+
+    @Override
+    public DoubleStream doubleStream() {
+        return intStream().asDoubleStream();
+    }
+
+    @Override
+    public int getInt(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    @Override
+    public long getLong(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    @Override
+    public double getDouble(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    @Override
+    public void setInt(int index, int value) {
+        checkIndex(index);
+        int oldHash = hashBefore(index);
+        values[index] = value;
+        replacedSlot(index, oldHash);
+    }
+
+    /**
+     * Copies the values of the tuple into a new int array, in order.
+     *
+     * @return An array holding the values of the tuple.
+     */
+    public int[] toIntArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    IntTuple shallowCopy() {
+        return clone();
+    }
+
+    /**
+     * Creates a clone of the tuple. Since the values are primitive, copying
+     * the array is already a deep clone.
+     *
+     * @return A new tuple holding the same values.
+     */
+    @Override
+    public IntTuple clone() {
+        return copyLockTo(new IntTuple(Arrays.copyOf(values, size), size));
+    }
+}
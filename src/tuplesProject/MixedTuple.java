@@ -0,0 +1,310 @@
+package tuplesProject;
+
+import java.util.Arrays;
+
+/**
+ * A tuple that stores primitive values unboxed next to reference values.
+ * <p>
+ * Each position has a {@link SlotKind} decided by the first value stored in it.
+ * Positions of a primitive kind keep their value as raw bits in a {@code long[]}
+ * lane, while the other positions keep their value in an {@code Object[]} lane.
+ * The typed accessors read and write the primitive lane without boxing, and
+ * cloning only copies the values of the reference lane.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ // A "String-Integer" tuple whose int is never boxed
+ Tuple<?> tuple = new MixedTuple("Text").ap(0);
+ tuple.setInt(1, tuple.getInt(1) + 1);
+ }</pre>
+ */
+public class MixedTuple extends IndexedTuple<Object> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private SlotKind[] kinds;
+    private long[] bits;
+    private Object[] references;
+    private int size;
+
+    /**
+     * Creates a mixed tuple holding a single value.
+     *
+     * @param value The value of the tuple.
+     * @throws IllegalArgumentException If the specified value is an instance of Tuple.
+     */
+    public MixedTuple(Object value) {
+        checkNesting(value);
+        kinds = new SlotKind[DEFAULT_CAPACITY];
+        bits = new long[DEFAULT_CAPACITY];
+        references = new Object[DEFAULT_CAPACITY];
+        kinds[0] = SlotKind.REFERENCE;
+        size = 1;
+        storeNew(0, value);
+    }
+
+    /**
+     * Constructs a mixed tuple holding the same values as the given tuple, with
+     * the kinds of its current values. The values are not cloned, and the new
+     * tuple is locked-size with the same type if the given one is, as its
+     * clones are.
+     *
+     * @param tuple The tuple to copy the values from.
+     */
+    public MixedTuple(Tuple<?> tuple) {
+        Object[] values = tuple.toArray();
+        kinds = new SlotKind[values.length];
+        bits = new long[values.length];
+        references = new Object[values.length];
+        size = values.length;
+        for (int i = 0; i < size; i++) {
+            storeNew(i, values[i]);
+        }
+        if (tuple.isLockedSize()) {
+            lock(tuple.getType());
+        }
+    }
+
+    /**
+     * Creates a mixed tuple that adopts the given lanes as its storage.
+     */
+    private MixedTuple(SlotKind[] kinds, long[] bits, Object[] references, int size) {
+        this.kinds = kinds;
+        this.bits = bits;
+        this.references = references;
+        this.size = size;
+    }
+
+    /**
+     * Stores a value at a position, deciding its kind from the value.
+     *
+     * @param index The position to write.
+     * @param value The value to be stored.
+     */
+    private void storeNew(int index, Object value) {
+        SlotKind kind = SlotKind.of(value);
+        kinds[index] = kind;
+        if (kind.isPrimitive()) {
+            bits[index] = kind.toBits(value);
+            references[index] = null;
+        } else {
+            references[index] = value;
+        }
+    }
+
+    /**
+     * Gets the kind of the value at the specified position.
+     *
+     * @param index The desired position.
+     * @return The kind of the position.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    public SlotKind getKind(int index) {
+        checkIndex(index);
+        return kinds[index];
+    }
+
+    @Override
+    Object slot(int index) {
+        SlotKind kind = kinds[index];
+        return kind.isPrimitive() ? kind.fromBits(bits[index]) : references[index];
+    }
+
+    @Override
+    void slot(int index, Object value) {
+        SlotKind kind = kinds[index];
+        if (kind.isPrimitive()) {
+            bits[index] = kind.toBits(value);
+        } else {
+            references[index] = value;
+        }
+    }
+
+    @Override
+    void checkReplace(int index, Object value) {
+        SlotKind kind = kinds[index];
+        if (kind.isPrimitive()) {
+            if (!kind.boxedType().isInstance(value)) {
+                throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
+            }
+            return;
+        }
+        super.checkReplace(index, value);
+    }
+
+    @Override
+    void insertSlot(int index, Object value) {
+        if (size == kinds.length) {
+            int newCapacity = size + (size >> 1) + 1;
+            kinds = Arrays.copyOf(kinds, newCapacity);
+            bits = Arrays.copyOf(bits, newCapacity);
+            references = Arrays.copyOf(references, newCapacity);
+        }
+        System.arraycopy(kinds, index, kinds, index + 1, size - index);
+        System.arraycopy(bits, index, bits, index + 1, size - index);
+        System.arraycopy(references, index, references, index + 1, size - index);
+        size++;
+        storeNew(index, value);
+    }
+
+    @Override
+    void removeSlot(int index) {
+        if (size == 1) {
+            // The tuple was single element, set the value to null.
+            storeNew(0, null);
+            return;
+        }
+        System.arraycopy(kinds, index + 1, kinds, index, size - index - 1);
+        System.arraycopy(bits, index + 1, bits, index, size - index - 1);
+        System.arraycopy(references, index + 1, references, index, size - index - 1);
+        references[--size] = null;
+    }
+
+    @Override
+    int slotHash(int index) {
+        SlotKind kind = kinds[index];
+        return kind.isPrimitive() ? kind.hashBits(bits[index]) : super.slotHash(index);
+    }
+
+    @Override
+    SlotKind slotKind(int index) {
+        return kinds[index];
+    }
+
+    @Override
+    long slotBits(int index) {
+        return bits[index];
+    }
+
+    @Override
+    long hashSlot(int index, TupleHasher hasher, long state) {
+        SlotKind kind = kinds[index];
+        return kind.isPrimitive() ? hasher.mixBits(state, kind, bits[index]) : super.hashSlot(index, hasher, state);
+    }
+
+    @Override
+    int compareSlot(int index, IndexedTuple<?> other) {
+        SlotKind kind = kinds[index];
+        if (kind.isPrimitive() && other instanceof MixedTuple && ((MixedTuple) other).kinds[index] == kind) {
+            return kind.compareBits(bits[index], ((MixedTuple) other).bits[index]);
+        }
+        return super.compareSlot(index, other);
+    }
+
+    @Override
+    long storageSize() {
+        return ShallowSizes.of(MixedTuple.class) + ShallowSizes.ofArray(SlotKind.class, kinds.length)
+                + ShallowSizes.ofArray(long.class, bits.length) + ShallowSizes.ofArray(Object.class, references.length);
+    }
+
+    /**
+     * Only the values of the reference lane retain objects; the primitive lane
+     * is part of the storage.
+     *
+     * @return The sum of the estimated sizes of the values of the reference lane.
+     */
+    @Override
+    long valuesSize() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += ShallowSizes.ofValue(references[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Gets the size of the tuple.
+     *
+     * @return The number of values in the tuple.
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Checks whether the position holds a number stored in the primitive lane.
+     *
+     * @param index The position to be checked.
+     * @return {@code true} if the value can be read from its raw bits.
+     */
+    private boolean isNumeric(int index) {
+        SlotKind kind = kinds[index];
+        return kind.isPrimitive() && kind != SlotKind.BOOLEAN && kind != SlotKind.CHAR;
+    }
+
+    @Override
+    public int getInt(int index) {
+        checkIndex(index);
+        return isNumeric(index) ? (int) kinds[index].bitsToLong(bits[index]) : super.getInt(index);
+    }
+
+    @Override
+    public long getLong(int index) {
+        checkIndex(index);
+        return isNumeric(index) ? kinds[index].bitsToLong(bits[index]) : super.getLong(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        checkIndex(index);
+        return isNumeric(index) ? kinds[index].bitsToDouble(bits[index]) : super.getDouble(index);
+    }
+
+    @Override
+    public void setInt(int index, int value) {
+        checkIndex(index);
+        if (kinds[index] != SlotKind.INT) {
+            throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
+        }
+        int oldHash = hashBefore(index);
+        bits[index] = value;
+        replacedSlot(index, oldHash);
+    }
+
+    @Override
+    public void setLong(int index, long value) {
+        checkIndex(index);
+        if (kinds[index] != SlotKind.LONG) {
+            throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
+        }
+        int oldHash = hashBefore(index);
+        bits[index] = value;
+        replacedSlot(index, oldHash);
+    }
+
+    @Override
+    public void setDouble(int index, double value) {
+        checkIndex(index);
+        if (kinds[index] != SlotKind.DOUBLE) {
+            throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
+        }
+        int oldHash = hashBefore(index);
+        bits[index] = Double.doubleToRawLongBits(value);
+        replacedSlot(index, oldHash);
+    }
+
+    @Override
+    MixedTuple shallowCopy() {
+        return copyLockTo(new MixedTuple(Arrays.copyOf(kinds, size), Arrays.copyOf(bits, size),
+                Arrays.copyOf(references, size), size));
+    }
+
+    /**
+     * Creates a deep clone of the tuple. Only the values of the reference lane
+     * need to be cloned; the primitive lane is copied as is.
+     *
+     * @return A new tuple that is a deep clone of the current instance.
+     * @throws CloneNotSupportedException If cloning fails due to unclonable objects.
+     */
+    @Override
+    public MixedTuple clone() throws CloneNotSupportedException {
+        Object[] clonedReferences = new Object[size];
+        for (int i = 0; i < size; i++) {
+            if (references[i] != null) {
+                clonedReferences[i] = cloneObject(references[i]);
+            }
+        }
+        return copyLockTo(new MixedTuple(Arrays.copyOf(kinds, size), Arrays.copyOf(bits, size),
+                clonedReferences, size));
+    }
+}
@@ -0,0 +1,498 @@
+package tuplesProject;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An immutable tuple whose modifications return new versions that share the
+ * unchanged structure of the old one.
+ * <p>
+ * The values are kept in a balanced binary tree indexed by position, so
+ * appending, adding, removing or replacing a value copies only the path from
+ * the root to that position: O(log n) new nodes, while every other node and
+ * every value is shared with the previous version. Since no version can ever
+ * change, handing one to another component needs no defensive copy.
+ * <p>
+ * {@link #ap(Object)} and {@link #set(Object)} return the new version directly.
+ * Adding, removing and replacing at a position are done through
+ * {@link #withAdded(int, Object)}, {@link #withRemoved(int)} and
+ * {@link #withReplaced(int, Object)}; the in-place {@code add}, {@code remove}
+ * and {@code replace} throw {@link UnsupportedOperationException}.
+ * {@link #lockSize(String)} returns a new, locked version as well.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ PersistentTuple<Object> first = new PersistentTuple<>("a").ap(3);
+ PersistentTuple<Object> second = first.withReplaced(1, 4);
+ // first is still (a, 3), second is (a, 4)
+ }</pre>
+ *
+ * @param <V> The type of data stored in the tuple.
+ */
+public final class PersistentTuple<V> extends IndexedTuple<V> {
+
+    private final Node root;
+    private final int cursor;
+
+    /**
+     * Creates a persistent tuple holding a single value.
+     *
+     * @param value The value of the tuple.
+     * @throws IllegalArgumentException If the specified value is an instance of Tuple.
+     */
+    public PersistentTuple(V value) {
+        checkNesting(value);
+        root = new Node(null, value, null);
+        cursor = 0;
+    }
+
+    /**
+     * Constructs a persistent tuple from a list of values.
+     * An empty or null list results in a tuple holding a single null value.
+     *
+     * @param list The list of values to construct the tuple from.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    public PersistentTuple(List<?> list) {
+        this(list == null || list.isEmpty() ? new Object[1] : list.toArray());
+    }
+
+    /**
+     * Constructs a persistent tuple holding the same values as the given tuple.
+     * The values are not cloned, and the new tuple is locked-size with the same
+     * type if the given one is, as its clones are.
+     *
+     * @param tuple The tuple to copy the values from.
+     */
+    public PersistentTuple(Tuple<V> tuple) {
+        this(tuple.toArray());
+        if (tuple.isLockedSize()) {
+            lock(tuple.getType());
+        }
+    }
+
+    /**
+     * Builds a balanced tree holding the given values.
+     *
+     * @param values The values of the tuple.
+     */
+    private PersistentTuple(Object[] values) {
+        for (Object value : values) {
+            checkNesting(value);
+        }
+        root = build(values, 0, values.length);
+        cursor = 0;
+    }
+
+    /**
+     * Creates a new version of a tuple, keeping its lock and type.
+     *
+     * @param root     The root of the tree of the new version.
+     * @param cursor   The cursor position of the new version.
+     * @param previous The version being modified.
+     */
+    private PersistentTuple(Node root, int cursor, PersistentTuple<V> previous) {
+        this.root = root;
+        this.cursor = cursor;
+        if (previous.isLockedSize()) {
+            lock(previous.getType());
+        }
+    }
+
+    @Override
+    Object slot(int index) {
+        return get(root, index);
+    }
+
+    @Override
+    void slot(int index, Object value) {
+        throw new UnsupportedOperationException("Cannot modify a persistent tuple in place.");
+    }
+
+    @Override
+    void insertSlot(int index, Object value) {
+        throw new UnsupportedOperationException("Cannot modify a persistent tuple in place.");
+    }
+
+    @Override
+    void removeSlot(int index) {
+        throw new UnsupportedOperationException("Cannot modify a persistent tuple in place.");
+    }
+
+    /**
+     * Estimates the number of bytes taken by the tree of the tuple. Versions
+     * share most of their nodes, so the estimate counts every node the tuple
+     * reaches, including those shared with other versions.
+     *
+     * @return The estimated size of the tuple and its nodes.
+     */
+    @Override
+    long storageSize() {
+        return ShallowSizes.of(PersistentTuple.class) + getSize() * ShallowSizes.of(Node.class);
+    }
+
+    /**
+     * Returns a new version of the tuple that is locked-size with the given
+     * type, sharing every value and node with this one. This tuple is left
+     * unchanged, since other holders of it may rely on its lock and type.
+     *
+     * @param type The type associated with the locked-size tuple.
+     * @return The new locked-size version, or null if the type is blank.
+     */
+    @Override
+    public PersistentTuple<V> lockSize(String type) {
+        if (type == null || type.isBlank()) {
+            return null;
+        }
+        PersistentTuple<V> locked = new PersistentTuple<>(root, cursor, this);
+        locked.lock(type);
+        return locked;
+    }
+
+    /**
+     * Gets the size of the tuple.
+     *
+     * @return The number of values in the tuple.
+     */
+    @Override
+    public int getSize() {
+        return root.size;
+    }
+
+    /**
+     * Returns a new version of the tuple with a value appended.
+     *
+     * @param <T>   The type of the value.
+     * @param value The value to be added.
+     * @return The new version of the tuple.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     * @throws IllegalArgumentException If the specified value is an instance of Tuple.
+     */
+    @Override
+    public <T> PersistentTuple<V> ap(T value) {
+        return withAdded(getSize(), value);
+    }
+
+    /**
+     * Returns a new version of the tuple with all the values of a collection
+     * appended, in the order of its iterator.
+     *
+     * @param values The values to be added.
+     * @return The new version of the tuple.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    @Override
+    public PersistentTuple<V> apAll(Collection<?> values) {
+        return apAll(values.toArray());
+    }
+
+    /**
+     * Returns a new version of the tuple with all the values of an array
+     * appended, in order.
+     *
+     * @param values The values to be added.
+     * @return The new version of the tuple.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    @Override
+    public PersistentTuple<V> apAll(Object[] values) {
+        checkResizable();
+        for (Object value : values) {
+            checkNesting(value);
+        }
+        PersistentTuple<V> result = this;
+        for (Object value : values) {
+            result = result.ap(value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new version of the tuple with a value added at a specific
+     * position, shifting the following values one position ahead.
+     *
+     * @param index The desired position.
+     * @param value The value to be added.
+     * @param <T>   The type of the value.
+     * @return The new version of the tuple.
+     * @throws IllegalArgumentException If the index is negative or the value is an instance of Tuple.
+     * @throws IndexOutOfBoundsException If the index exceeds the tuple size.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     */
+    public <T> PersistentTuple<V> withAdded(int index, T value) {
+        checkResizable();
+        if (index < 0) {
+            throw new IllegalArgumentException("Invalid index.");
+        }
+        if (index > getSize()) {
+            throw new IndexOutOfBoundsException("Invalid index.");
+        }
+        checkNesting(value);
+        return new PersistentTuple<>(insert(root, index, value), cursor, this);
+    }
+
+    /**
+     * Returns a new version of the tuple without the value at the specified
+     * position. Removing the only value leaves a null value in its place.
+     *
+     * @param index The desired position.
+     * @return The new version of the tuple.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     */
+    public PersistentTuple<V> withRemoved(int index) {
+        checkResizable();
+        checkIndex(index);
+        Node newRoot = getSize() == 1 ? new Node(null, null, null) : delete(root, index);
+        return new PersistentTuple<>(newRoot, cursor < newRoot.size ? cursor : 0, this);
+    }
+
+    /**
+     * Returns a new version of the tuple with the value at the specified
+     * position replaced.
+     *
+     * @param index The desired position.
+     * @param value The new value.
+     * @param <T>   The type of the value.
+     * @return The new version of the tuple.
+     * @throws IllegalArgumentException If the types are incompatible.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    public <T> PersistentTuple<V> withReplaced(int index, T value) {
+        checkIndex(index);
+        checkReplace(index, value);
+        return new PersistentTuple<>(replace(root, index, value), cursor, this);
+    }
+
+    /**
+     * Returns a new version of the tuple with the value at the cursor position
+     * replaced and the cursor moved to the next position, going back to the
+     * first one after the last. This tuple is left unchanged.
+     *
+     * @param value The new value to be set in the tuple.
+     * @param <T>   The type of the new value.
+     * @return The new version of the tuple for method chaining.
+     * @throws IllegalArgumentException If the types of the existing and new values are incompatible.
+     */
+    @Override
+    public <T> PersistentTuple<V> set(T value) {
+        checkReplace(cursor, value);
+        int nextCursor = (cursor + 1 == getSize()) ? 0 : cursor + 1;
+        return new PersistentTuple<>(replace(root, cursor, value), nextCursor, this);
+    }
+
+    /**
+     * Not supported, since a persistent tuple cannot change.
+     *
+     * @throws UnsupportedOperationException Always; use {@link #withAdded(int, Object)}.
+     */
+    @Override
+    public <T> void add(int index, T value) {
+        throw new UnsupportedOperationException("Cannot modify a persistent tuple in place.");
+    }
+
+    /**
+     * Not supported, since a persistent tuple cannot change.
+     *
+     * @throws UnsupportedOperationException Always; use {@link #withRemoved(int)}.
+     */
+    @Override
+    public V remove(int index) {
+        throw new UnsupportedOperationException("Cannot modify a persistent tuple in place.");
+    }
+
+    /**
+     * Not supported, since a persistent tuple cannot change.
+     *
+     * @throws UnsupportedOperationException Always; use {@link #withReplaced(int, Object)}.
+     */
+    @Override
+    public <T> void replace(int index, T value) {
+        throw new UnsupportedOperationException("Cannot modify a persistent tuple in place.");
+    }
+
+    /**
+     * Creates a deep clone of the tuple. Unlike the modifications, the clone
+     * shares no structure and no values with this tuple.
+     *
+     * @return A new tuple that is a deep clone of the current instance.
+     * @throws CloneNotSupportedException If cloning fails due to incompatible types or unclonable objects.
+     */
+    @Override
+    public PersistentTuple<V> clone() throws CloneNotSupportedException {
+        Object[] values = toArray();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = cloneObject(values[i]);
+        }
+        PersistentTuple<V> clone = new PersistentTuple<>(values);
+        if (isLockedSize()) {
+            clone.lock(getType());
+        }
+        return clone;
+    }
+
+    @Override
+    Object[] copyValues() {
+        Object[] values = new Object[getSize()];
+        collect(root, values, 0);
+        return values;
+    }
+
+    /**
+     * Copies the values of a subtree into an array, in order.
+     *
+     * @param node   The root of the subtree.
+     * @param values The array receiving the values.
+     * @param offset The position of the first value of the subtree.
+     */
+    private static void collect(Node node, Object[] values, int offset) {
+        while (node != null) {
+            collect(node.left, values, offset);
+            offset += size(node.left);
+            values[offset++] = node.value;
+            node = node.right;
+        }
+    }
+
+    /**
+     * A node of the tree. Nodes never change once created, so they can be
+     * shared by any number of versions.
+     */
+    private static final class Node {
+
+        final Node left;
+        final Object value;
+        final Node right;
+        final int size;
+        final int height;
+
+        Node(Node left, Object value, Node right) {
+            this.left = left;
+            this.value = value;
+            this.right = right;
+            size = size(left) + size(right) + 1;
+            height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Builds a balanced subtree holding a range of values.
+     *
+     * @param values The values of the tuple.
+     * @param from   The first position of the range, inclusive.
+     * @param to     The last position of the range, exclusive.
+     * @return The root of the subtree, or null for an empty range.
+     */
+    private static Node build(Object[] values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(build(values, from, middle), values[middle], build(values, middle + 1, to));
+    }
+
+    /**
+     * Finds the value at a position of a subtree.
+     */
+    private static Object get(Node node, int index) {
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Copies the path to a position of a subtree, replacing its value.
+     *
+     * @return The root of the new subtree.
+     */
+    private static Node replace(Node node, int index, Object value) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node(replace(node.left, index, value), node.value, node.right);
+        }
+        if (index == leftSize) {
+            return new Node(node.left, value, node.right);
+        }
+        return new Node(node.left, node.value, replace(node.right, index - leftSize - 1, value));
+    }
+
+    /**
+     * Copies the path to a position of a subtree, inserting a value there.
+     *
+     * @return The root of the new, rebalanced subtree.
+     */
+    private static Node insert(Node node, int index, Object value) {
+        if (node == null) {
+            return new Node(null, value, null);
+        }
+        int leftSize = size(node.left);
+        if (index <= leftSize) {
+            return balance(insert(node.left, index, value), node.value, node.right);
+        }
+        return balance(node.left, node.value, insert(node.right, index - leftSize - 1, value));
+    }
+
+    /**
+     * Copies the path to a position of a subtree, removing its value.
+     *
+     * @return The root of the new, rebalanced subtree, or null if it became empty.
+     */
+    private static Node delete(Node node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(delete(node.left, index), node.value, node.right);
+        }
+        if (index > leftSize) {
+            return balance(node.left, node.value, delete(node.right, index - leftSize - 1));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // Replace the removed value by the first value of the right subtree
+        return balance(node.left, get(node.right, 0), delete(node.right, 0));
+    }
+
+    /**
+     * Creates a node from its parts, rotating it if the heights of its
+     * subtrees differ by more than one.
+     */
+    private static Node balance(Node left, Object value, Node right) {
+        int difference = height(left) - height(right);
+        if (difference > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.left, left.value, new Node(left.right, value, right));
+            }
+            return new Node(new Node(left.left, left.value, left.right.left), left.right.value,
+                    new Node(left.right.right, value, right));
+        }
+        if (difference < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(new Node(left, value, right.left), right.value, right.right);
+            }
+            return new Node(new Node(left, value, right.left.left), right.left.value,
+                    new Node(right.left.right, right.value, right.right));
+        }
+        return new Node(left, value, right);
+    }
+}
@@ -0,0 +1,134 @@
+package tuplesProject;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * A model of the number of bytes taken on the heap by objects, used to
+ * estimate the memory retained by tuples.
+ * <p>
+ * The shallow size of each class is computed once from its instance fields and
+ * cached in a {@link ClassValue}, so estimating a size on the hot path costs a
+ * lookup per object. The model follows the layout of a HotSpot JVM: an object
+ * header, the fields of the class and its superclasses, and padding to a
+ * multiple of 8 bytes. On 64-bit JVMs, compressed references are assumed when
+ * the maximum heap is below 32 GB, as HotSpot does by default. Sizes are
+ * estimates: the gaps the JVM leaves between fields of different classes are
+ * not modeled.
+ */
+final class ShallowSizes {
+
+    private static final boolean IS_64_BIT = !"32".equals(System.getProperty("sun.arch.data.model"));
+    private static final boolean COMPRESSED = !IS_64_BIT || Runtime.getRuntime().maxMemory() < (32L << 30);
+
+    /**
+     * The size of a reference.
+     */
+    static final int REFERENCE = COMPRESSED ? 4 : 8;
+
+    /**
+     * The size of the header of an object.
+     */
+    static final int OBJECT_HEADER = IS_64_BIT ? (COMPRESSED ? 12 : 16) : 8;
+
+    /**
+     * The size of the header of an array, including its length.
+     */
+    static final int ARRAY_HEADER = IS_64_BIT ? (COMPRESSED ? 16 : 24) : 12;
+
+    private static final ClassValue<Long> SIZES = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = OBJECT_HEADER;
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        size += fieldSize(field.getType());
+                    }
+                }
+            }
+            return align(size);
+        }
+    };
+
+    private ShallowSizes() {
+    }
+
+    /**
+     * Gets the number of bytes taken by a field or array element of a type.
+     *
+     * @param type The type of the field.
+     * @return The size of the field.
+     */
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    /**
+     * Rounds a size up to the alignment of objects.
+     *
+     * @param size The size to be aligned.
+     * @return The aligned size.
+     */
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * Gets the shallow size of the instances of a class.
+     *
+     * @param type The class, which must not be an array class.
+     * @return The number of bytes taken by an instance, not counting the objects it refers to.
+     */
+    static long of(Class<?> type) {
+        return SIZES.get(type);
+    }
+
+    /**
+     * Gets the size of an array.
+     *
+     * @param componentType The component type of the array.
+     * @param length        The length of the array.
+     * @return The number of bytes taken by the array, not counting the objects it refers to.
+     */
+    static long ofArray(Class<?> componentType, int length) {
+        return align(ARRAY_HEADER + (long) fieldSize(componentType) * length);
+    }
+
+    /**
+     * Estimates the size of a value held by a tuple. Strings and arrays also
+     * count their contents; other values count their shallow size only, since
+     * following their references would cost a walk over their whole graph.
+     * Strings are assumed to hold only Latin-1 characters, which take a byte
+     * each.
+     *
+     * @param value The value, possibly null.
+     * @return The estimated number of bytes retained through the value.
+     */
+    static long ofValue(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            return of(String.class) + ofArray(byte.class, ((String) value).length());
+        }
+        if (type.isArray()) {
+            return ofArray(type.getComponentType(), Array.getLength(value));
+        }
+        return of(type);
+    }
+}
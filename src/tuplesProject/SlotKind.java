@@ -0,0 +1,238 @@
+package tuplesProject;
+
+/**
+ * The kind of value held by a position of a tuple.
+ * <p>
+ * Values of the eight primitive types (in their boxed form) have their own kind
+ * so tuples can store them unboxed as raw bits; everything else, including
+ * null, is a {@link #REFERENCE}.
+ */
+public enum SlotKind {
+    BOOLEAN(Boolean.class, 1),
+    BYTE(Byte.class, 1),
+    CHAR(Character.class, 2),
+    SHORT(Short.class, 2),
+    INT(Integer.class, 4),
+    FLOAT(Float.class, 4),
+    LONG(Long.class, 8),
+    DOUBLE(Double.class, 8),
+    REFERENCE(Object.class, 4);
+
+    private final Class<?> boxedType;
+    private final int byteSize;
+
+    SlotKind(Class<?> boxedType, int byteSize) {
+        this.boxedType = boxedType;
+        this.byteSize = byteSize;
+    }
+
+    /**
+     * Gets the class of the values held by slots of this kind.
+     *
+     * @return The boxed class of the primitive kinds, or {@code Object} for references.
+     */
+    public Class<?> boxedType() {
+        return boxedType;
+    }
+
+    /**
+     * Gets the number of bytes taken by a slot of this kind in a packed binary
+     * layout. References take an int handle into a table of objects.
+     *
+     * @return The size of the slot in bytes.
+     */
+    public int byteSize() {
+        return byteSize;
+    }
+
+    /**
+     * Checks whether slots of this kind hold primitive values.
+     *
+     * @return {@code true} for every kind but {@link #REFERENCE}.
+     */
+    public boolean isPrimitive() {
+        return this != REFERENCE;
+    }
+
+    /**
+     * Gets the kind of slot needed to store values of the given class.
+     *
+     * @param type The class of the values, either primitive or boxed.
+     * @return The kind matching the class, or {@link #REFERENCE} for non-primitive classes.
+     */
+    public static SlotKind of(Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return INT;
+        }
+        if (type == long.class || type == Long.class) {
+            return LONG;
+        }
+        if (type == double.class || type == Double.class) {
+            return DOUBLE;
+        }
+        if (type == float.class || type == Float.class) {
+            return FLOAT;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return BOOLEAN;
+        }
+        if (type == byte.class || type == Byte.class) {
+            return BYTE;
+        }
+        if (type == short.class || type == Short.class) {
+            return SHORT;
+        }
+        if (type == char.class || type == Character.class) {
+            return CHAR;
+        }
+        return REFERENCE;
+    }
+
+    /**
+     * Gets the kind of slot needed to store the given value.
+     *
+     * @param value The value to be stored.
+     * @return The kind matching the class of the value, or {@link #REFERENCE} for null.
+     */
+    public static SlotKind of(Object value) {
+        return value == null ? REFERENCE : of(value.getClass());
+    }
+
+    /**
+     * Converts a boxed value of this kind to its raw bits.
+     * Floating point values keep their exact bit pattern.
+     *
+     * @param value The boxed value.
+     * @return The raw bits of the value.
+     * @throws IllegalArgumentException If the value does not belong to this kind.
+     */
+    public long toBits(Object value) {
+        if (this == REFERENCE || !boxedType.isInstance(value)) {
+            throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
+        }
+        switch (this) {
+            case BOOLEAN:
+                return ((Boolean) value) ? 1L : 0L;
+            case CHAR:
+                return (Character) value;
+            case FLOAT:
+                return Float.floatToRawIntBits((Float) value);
+            case DOUBLE:
+                return Double.doubleToRawLongBits((Double) value);
+            default:
+                return ((Number) value).longValue();
+        }
+    }
+
+    /**
+     * Converts raw bits of this kind back to a boxed value.
+     *
+     * @param bits The raw bits of the value.
+     * @return The boxed value.
+     * @throws UnsupportedOperationException If this kind is {@link #REFERENCE}.
+     */
+    public Object fromBits(long bits) {
+        switch (this) {
+            case BOOLEAN:
+                return bits != 0;
+            case BYTE:
+                return (byte) bits;
+            case CHAR:
+                return (char) bits;
+            case SHORT:
+                return (short) bits;
+            case INT:
+                return (int) bits;
+            case FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            case LONG:
+                return bits;
+            case DOUBLE:
+                return Double.longBitsToDouble(bits);
+            default:
+                throw new UnsupportedOperationException("References have no raw bits.");
+        }
+    }
+
+    /**
+     * Computes the hash code of raw bits of this kind, matching the hash code
+     * of the boxed value without boxing it.
+     *
+     * @param bits The raw bits of the value.
+     * @return The hash code of the value.
+     */
+    public int hashBits(long bits) {
+        switch (this) {
+            case BOOLEAN:
+                return Boolean.hashCode(bits != 0);
+            case FLOAT:
+                return Float.hashCode(Float.intBitsToFloat((int) bits));
+            case LONG:
+                return Long.hashCode(bits);
+            case DOUBLE:
+                return Double.hashCode(Double.longBitsToDouble(bits));
+            case REFERENCE:
+                throw new UnsupportedOperationException("References have no raw bits.");
+            default:
+                // Byte, Character, Short and Integer hash to their own value
+                return (int) bits;
+        }
+    }
+
+    /**
+     * Compares raw bits of this kind the way the boxed values compare, without
+     * boxing them.
+     *
+     * @param first  The raw bits of the first value.
+     * @param second The raw bits of the second value.
+     * @return A negative number, zero or a positive number as the first value is less than, equal to or greater than the second.
+     * @throws UnsupportedOperationException If this kind is {@link #REFERENCE}.
+     */
+    public int compareBits(long first, long second) {
+        switch (this) {
+            case FLOAT:
+                return Float.compare(Float.intBitsToFloat((int) first), Float.intBitsToFloat((int) second));
+            case DOUBLE:
+                return Double.compare(Double.longBitsToDouble(first), Double.longBitsToDouble(second));
+            case REFERENCE:
+                throw new UnsupportedOperationException("References have no raw bits.");
+            default:
+                // Integral values are sign-extended, and chars and booleans are never negative
+                return Long.compare(first, second);
+        }
+    }
+
+    /**
+     * Reads raw bits of this kind as a long, converting floating point values.
+     *
+     * @param bits The raw bits of the value.
+     * @return The value as a long.
+     */
+    public long bitsToLong(long bits) {
+        switch (this) {
+            case FLOAT:
+                return (long) Float.intBitsToFloat((int) bits);
+            case DOUBLE:
+                return (long) Double.longBitsToDouble(bits);
+            default:
+                return bits;
+        }
+    }
+
+    /**
+     * Reads raw bits of this kind as a double, converting integral values.
+     *
+     * @param bits The raw bits of the value.
+     * @return The value as a double.
+     */
+    public double bitsToDouble(long bits) {
+        switch (this) {
+            case FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            case DOUBLE:
+                return Double.longBitsToDouble(bits);
+            default:
+                return bits;
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package tuplesProject;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A class that represents a linked tuple.
@@ -22,20 +30,30 @@ import java.util.Objects;
  // Creating a previousTuple with different types
  Tuple<?> previousTuple = new Tuple("a").ap(3).ap(true).ap(4.5f);
  }</pre>
+ * <p>
+ * Tuples are ordered lexicographically by their values (see
+ * {@link #compareTo(Tuple)}). This ordering ignores the lock and type of the
+ * tuples, so it is not consistent with {@link #equals(Object)}.
+ * <p>
+ * Tuples are {@link Iterable}: iterating, {@link #forEach(Consumer)} and
+ * {@link #stream()} walk the values from the given node to the end of the
+ * tuple in a single pass, instead of seeking every position from the start.
  *
  * @param <V> The type of data stored in the previousTuple.
  * @version 1.0
  * @author Luiz Filipe Ferreira Ramos
  */
-public class Tuple<V> implements Cloneable {
+public class Tuple<V> implements Cloneable, Comparable<Tuple<?>>, Iterable<V> {
+    
+    /**
+     * The inverse of 31 modulo 2<sup>32</sup>, which undoes a step of the hash
+     * code of a tuple.
+     */
+    static final int INVERSE_31 = 0xBDEF7BDF;
     
-    private static HashMap<String, Tuple> tupleTypes = new HashMap();
     private V value;
     private Tuple<V> next;
-    private Tuple<V> root;
-    private Tuple<V> last;
-    private boolean lockedSize;
-    private String type;
+    private Header<V> header;
     
     /**
      * Creates an empty tuple. If the specified value is an instance of Tuple,
@@ -49,25 +67,34 @@ public class Tuple<V> implements Cloneable {
             throw new IllegalArgumentException("Cannot set a Tuple as the value to avoid nesting.");
         }
         this.value = value;
-        last = this;
-        root = this;
+        header = new Header<>(this);
+        header.added(value, true);
     }
 
     /**
-     * Creates a tuple with a specific value and next reference. If the specified value
-     * is an instance of Tuple, it will not be set as the value, ensuring the tuple does
-     * not become nested.
+     * Creates an empty head node for subclasses that keep their elements in
+     * their own storage instead of a linked chain. Such tuples have no header.
+     */
+    Tuple() {
+    }
+
+    /**
+     * Creates a node holding a value, to be linked into the chain of the given
+     * header. If the specified value is an instance of Tuple, it will not be set
+     * as the value, ensuring the tuple does not become nested.
      *
-     * @param value The value of the previousTuple.
-     * @param next  The next previousTuple in the linked chain.
+     * @param value  The value of the node.
+     * @param next   The next node in the linked chain.
+     * @param header The header of the chain the node belongs to.
      * @throws IllegalArgumentException If the specified value is an instance of Tuple.
      */
-    private Tuple(V value, Tuple<V> next) {
+    private Tuple(V value, Tuple<V> next, Header<V> header) {
         if (value instanceof Tuple) {
             throw new IllegalArgumentException("Cannot set a Tuple as the value to avoid nesting.");
         }
         this.value = value;
         this.next = next;
+        this.header = header;
     }
     
     /**
@@ -76,46 +103,268 @@ public class Tuple<V> implements Cloneable {
     * @param list The list of values to construct the Tuple from.
     */
     public Tuple(List<?> list) {
-        root = this;
-        last = this;
+        header = new Header<>(this);
         if (list != null && !list.isEmpty()) {
-            value = (V) list.get(0);
+            Iterator<?> values = list.iterator();
+            value = (V) values.next();
             
             if (value instanceof Tuple) {
                 value = null;
+                header.added(null, true);
                 return;
             }
-            if (list.size() > 1) {
-                List<?> remaining = list.subList(1, list.size());
-                next = createChainedTuple(remaining);
-            }
+            header.added(value, true);
+            appendNodes(values);
+        } else {
+            header.added(null, true);
         }
     }
-
+    
     /**
-    * Creates a chain of tuples from a list of values.
-    *
-    * @param list The list of values to create the chain from.
-    * @return The root previousTuple in the created chain.
-    */
-    private Tuple<V> createChainedTuple(List<?> list) {
-        if (list == null || list.isEmpty()) { 
-            return null; // Empty list results in a null previousTuple.
+     * Creates a linked tuple holding the given values, appending each one to
+     * the tail in constant time. With no values, the tuple holds a single null
+     * value.
+     *
+     * @param values The values of the tuple.
+     * @param <V>    The type of data stored in the tuple.
+     * @return The new tuple.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    @SafeVarargs
+    public static <V> Tuple<V> of(V... values) {
+        if (values.length == 0) {
+            return new Tuple<>((V) null);
         }
-
-        Tuple<V> tuple = new Tuple<>((V) list.get(0));
-        Tuple<V> current = tuple;
-        last = tuple;
-        last.root = this.root;
-
-        for (int i = 1; i < list.size(); i++) {
-            // Append each element in the list to the current previousTuple.
-            current = current.ap((V) list.get(i));
+        Tuple<V> tuple = new Tuple<>(values[0]);
+        for (int i = 1; i < values.length; i++) {
+            tuple.ap(values[i]);
         }
-
         return tuple;
     }
     
+    /**
+     * Creates an array-backed tuple that adopts the given array as its storage
+     * without copying it if it is exactly an {@code Object[]}, and works on a
+     * copy of any narrower array. Changes to an adopted array show through the
+     * tuple, and changes to the tuple through the array, until the tuple
+     * outgrows the array. With an empty array, the tuple holds a single null
+     * value instead.
+     * <p>
+     * An array of a narrower component type, such as a {@code String[]}, could
+     * not store values of other classes, so it is copied into an
+     * {@code Object[]} and no longer shared with the caller.
+     *
+     * @param values The array holding the values of the tuple.
+     * @param <V>    The type of data stored in the tuple.
+     * @return The new tuple.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    public static <V> ArrayTuple<V> wrap(V[] values) {
+        return ArrayTuple.share(values);
+    }
+    
+    /**
+     * The state shared by all the nodes of a linked tuple: its first and last
+     * nodes and its number of values, kept up to date by every operation that
+     * changes the chain so they can be read in constant time, and its lock and
+     * type. Keeping them here leaves each node with only its value, the next
+     * node and its header.
+     * <p>
+     * The header also keeps the hash code of the whole tuple up to date. With
+     * {@code h} the hash code of a tuple of {@code n} values, appending a value
+     * {@code v} gives {@code 31 * h + hash(v)}, removing the last value undoes
+     * it by multiplying by the inverse of 31 modulo 2<sup>32</sup>, and replacing
+     * the value at {@code k} positions from the end adds the difference of the
+     * hashes times {@code 31^k}. Changes at positions that are not known, in
+     * the middle of the chain or through a node other than the root, only mark
+     * the hash as stale, to be computed again on the next call to
+     * {@link #hashCode()}. The hash of a value can only be trusted while the
+     * value does not change, so the hash is only kept while all the values are
+     * immutable.
+     *
+     * @param <V> The type of data stored in the tuple.
+     */
+    private static final class Header<V> {
+        
+        private final Tuple<V> root;
+        private Tuple<V> tail;
+        private int size;
+        private boolean lockedSize;
+        private String type;
+        private int hash = 1;
+        private boolean hashValid = true;
+        private int mutableValues;
+        
+        private Header(Tuple<V> root) {
+            this.root = root;
+            this.tail = root;
+            this.size = 1;
+        }
+        
+        /**
+         * Updates the hash after a value was inserted.
+         *
+         * @param value The inserted value.
+         * @param atEnd Whether the value was appended after the last one.
+         */
+        private void added(Object value, boolean atEnd) {
+            if (atEnd) {
+                hash = 31 * hash + Objects.hashCode(value);
+            } else {
+                hashValid = false;
+            }
+            count(value, 1);
+        }
+        
+        /**
+         * Updates the hash after a value was removed.
+         *
+         * @param value The removed value.
+         * @param atEnd Whether the value was the last one.
+         */
+        private void removed(Object value, boolean atEnd) {
+            if (atEnd) {
+                hash = (hash - Objects.hashCode(value)) * INVERSE_31;
+            } else {
+                hashValid = false;
+            }
+            count(value, -1);
+        }
+        
+        /**
+         * Updates the hash after a value was replaced.
+         *
+         * @param fromEnd  The number of values after the replaced one, or -1 if it is not known.
+         * @param oldValue The value that was replaced.
+         * @param newValue The new value.
+         */
+        private void replaced(int fromEnd, Object oldValue, Object newValue) {
+            if (fromEnd >= 0) {
+                hash += (Objects.hashCode(newValue) - Objects.hashCode(oldValue)) * pow31(fromEnd);
+            } else {
+                hashValid = false;
+            }
+            count(oldValue, -1);
+            count(newValue, 1);
+        }
+        
+        /**
+         * Keeps count of the values whose hash may change while in the tuple.
+         *
+         * @param value The value added to or removed from the tuple.
+         * @param delta 1 if the value was added, -1 if it was removed.
+         */
+        private void count(Object value, int delta) {
+            if (value != null && !isPrimitive(value)) {
+                mutableValues += delta;
+                // Its hash may change before it is removed, so the hash cannot be trusted anymore
+                hashValid = false;
+            }
+        }
+    }
+    
+    /**
+     * Iterates over the values of a linked tuple, following the chain of nodes.
+     *
+     * @param <V> The type of data stored in the tuple.
+     */
+    private static final class NodeIterator<V> implements Iterator<V> {
+        
+        private Tuple<V> current;
+        
+        NodeIterator(Tuple<V> first) {
+            current = first;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+        
+        @Override
+        public V next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            V result = current.value;
+            current = current.next;
+            return result;
+        }
+    }
+    
+    /**
+     * Splits a linked tuple for parallel streams. It covers a known number of
+     * nodes, so it reports its exact size. Splitting walks to the middle of its
+     * nodes and hands out the first half, so both halves keep exact sizes.
+     *
+     * @param <V> The type of data stored in the tuple.
+     */
+    private static final class NodeSpliterator<V> implements Spliterator<V> {
+        
+        /**
+         * Below this many nodes, a spliterator is not split any further.
+         */
+        private static final int MIN_SPLIT = 1024;
+        
+        private Tuple<V> current;
+        private int remaining;
+        
+        NodeSpliterator(Tuple<V> first, int size) {
+            current = first;
+            remaining = size;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super V> action) {
+            Objects.requireNonNull(action);
+            if (remaining == 0) {
+                return false;
+            }
+            V result = current.value;
+            current = current.next;
+            remaining--;
+            action.accept(result);
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(Consumer<? super V> action) {
+            Objects.requireNonNull(action);
+            Tuple<V> node = current;
+            int count = remaining;
+            current = null;
+            remaining = 0;
+            for (; count > 0; count--) {
+                action.accept(node.value);
+                node = node.next;
+            }
+        }
+        
+        @Override
+        public Spliterator<V> trySplit() {
+            if (remaining < MIN_SPLIT) {
+                return null;
+            }
+            int half = remaining >>> 1;
+            Tuple<V> first = current;
+            for (int i = 0; i < half; i++) {
+                current = current.next;
+            }
+            remaining -= half;
+            return new NodeSpliterator<>(first, half);
+        }
+        
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+        
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
+    
     /**
      * Marks the tuple as locked-size, preventing further modifications.
      * Once locked, the size of the tuple cannot be changed, and attempts to
@@ -138,15 +387,10 @@ public class Tuple<V> implements Cloneable {
         if (type == null || type.isBlank()) {
             return null; // Unsuccessful lockSize operation
         }
-        lockedSize = true;
-        
-        Tuple<V> current = this;
-        while (current.next != null) {
-            current = current.next;
-            current.lockedSize = true;
-        }
         
-        this.type = type;
+        // Every node shares the header, so the whole tuple is locked at once
+        header.lockedSize = true;
+        header.type = type;
         return this;
     }
     
@@ -156,7 +400,7 @@ public class Tuple<V> implements Cloneable {
     * @return {@code true} if the previousTuple is locked-size, {@code false} otherwise.
     */
     public boolean isLockedSize() {
-        return lockedSize;
+        return header.lockedSize;
     }
     
     /**
@@ -165,41 +409,286 @@ public class Tuple<V> implements Cloneable {
     * @return The type associated with the locked-size previousTuple or blank if not set.
     */
     public String getType() {
+        String type = header.type;
         return (type == null || type.isBlank()) ? "" : type;
     }
     
     /**
-    * Adds a typed tuple to the global type registry.
+    * Adds a typed tuple to the global type registry, with the
+    * {@link ClonePolicy#SHARE_IMMUTABLE} policy.
+    * A linked tuple small enough to fit in a fixed-arity tuple ({@link Tuple1}
+    * to {@link Tuple8}) is registered as one, so the typed tuples created from
+    * it keep their values in fields instead of a chain of nodes. Fixed-arity
+    * tuples are further registered as instances of a class generated for
+    * their type.
+    * <p>
+    * The registry can be used from several threads at once.
     *
     * @param tuple The tuple to be added to the registry.
     * @return true if the tuple was successfully added, false otherwise.
     */
     public static boolean setTypedTuple(Tuple tuple) {
-        String type = tuple.type;
+        return setTypedTuple(tuple, ClonePolicy.SHARE_IMMUTABLE);
+    }
+    
+    /**
+    * Adds a typed tuple to the global type registry, with the policy used to
+    * copy it each time a typed tuple of its type is requested.
+    *
+    * @param tuple  The tuple to be added to the registry.
+    * @param policy How the typed tuples of the type are copied from the tuple.
+    * @return true if the tuple was successfully added, false otherwise.
+    * @see #setTypedTuple(Tuple)
+    */
+    public static boolean setTypedTuple(Tuple<?> tuple, ClonePolicy policy) {
+        String type = tuple.getType();
         
         // Typed Tuple should be a locked-size Tuple.
-        if(type == null || !tuple.lockedSize || tupleTypes.containsKey(type)) {
+        if(type.isEmpty() || !tuple.isLockedSize() || TupleRegistry.get(type) != null) {
+            return false;
+        }
+        
+        return TupleRegistry.add(type, newTupleType(tuple, Objects.requireNonNull(policy)));
+    }
+    
+    /**
+    * Adds a typed tuple to the global type registry, replacing the tuple
+    * currently registered for its type, if any, with the
+    * {@link ClonePolicy#SHARE_IMMUTABLE} policy. Threads getting typed tuples
+    * of the type while it is replaced are never blocked, and get copies of
+    * either the old or the new tuple.
+    *
+    * @param tuple The tuple to be added to the registry.
+    * @return true if the tuple was successfully added, false if it is not a locked-size tuple with a type.
+    */
+    public static boolean replaceTypedTuple(Tuple<?> tuple) {
+        return replaceTypedTuple(tuple, ClonePolicy.SHARE_IMMUTABLE);
+    }
+    
+    /**
+    * Adds a typed tuple to the global type registry, replacing the tuple
+    * currently registered for its type, if any, with the policy used to copy
+    * it each time a typed tuple of its type is requested.
+    *
+    * @param tuple  The tuple to be added to the registry.
+    * @param policy How the typed tuples of the type are copied from the tuple.
+    * @return true if the tuple was successfully added, false if it is not a locked-size tuple with a type.
+    * @see #replaceTypedTuple(Tuple)
+    */
+    public static boolean replaceTypedTuple(Tuple<?> tuple, ClonePolicy policy) {
+        String type = tuple.getType();
+        
+        if(type.isEmpty() || !tuple.isLockedSize()) {
             return false;
         }
         
-        tupleTypes.put(type, tuple);
+        TupleRegistry.put(type, newTupleType(tuple, Objects.requireNonNull(policy)));
         return true;
     }
     
     /**
-    * Gets a cloned copy of the tuple associated with the provided type.
+    * Creates the registry entry of a typed tuple, converting it to the
+    * representation its typed tuples are created in.
+    *
+    * @param tuple  The tuple to be registered.
+    * @param policy How the typed tuples of the type are copied from the tuple.
+    * @return The registry entry of the tuple.
+    */
+    private static TupleType newTupleType(Tuple<?> tuple, ClonePolicy policy) {
+        if (tuple.getClass() == Tuple.class && tuple.getSize() <= FixedTuple.MAX_ARITY) {
+            tuple = FixedTuple.of(tuple);
+        }
+        if (tuple instanceof FixedTuple) {
+            tuple = TupleClassFactory.specialize((FixedTuple<?>) tuple);
+        }
+        return new TupleType(tuple, policy);
+    }
+    
+    /**
+    * Gets the id of a registered type. Ids are small non-negative integers
+    * that stay the same for as long as the program runs, so code creating many
+    * tuples of a type can resolve its name once and then use
+    * {@link #getTypedTuple(int)}, which does not hash the name.
+    *
+    * @param type The type name.
+    * @return The id of the type, or -1 if it is not registered.
+    */
+    public static int getTypeId(String type) {
+        return TupleRegistry.idOf(type);
+    }
+    
+    /**
+    * Gets a copy of the tuple associated with the provided type.
+    * Types of up to {@link FixedTuple#MAX_ARITY} values registered as linked
+    * tuples are returned as fixed-arity tuples.
+    * <p>
+    * The copy is made following the {@link ClonePolicy} the type was
+    * registered with. By default it shares the immutable values of the
+    * registered tuple and holds clones of its mutable ones, made when the copy
+    * is created, so reading the copy never changes it. Registered tuples that
+    * cannot share their values are deep cloned instead. Frozen registered
+    * tuples are always copied the sharing way, into a mutable tuple.
     *
     * @param type The type of the desired tuple.
-    * @return A cloned copy of the tuple associated with the type, or null if not found or not cloneable.
+    * @return A copy of the tuple associated with the type, or null if not found or not cloneable.
     */
     public static Tuple getTypedTuple(String type) {
+        return instantiate(TupleRegistry.get(type));
+    }
+    
+    /**
+    * Gets a copy of the tuple associated with the type of the provided id,
+    * the same way as {@link #getTypedTuple(String)}.
+    *
+    * @param typeId The id of the type, as returned by {@link #getTypeId(String)}.
+    * @return A copy of the tuple associated with the type, or null if not found or not cloneable.
+    */
+    // Raw like getTypedTuple(String), so callers can switch between the two overloads
+    @SuppressWarnings("rawtypes")
+    public static Tuple getTypedTuple(int typeId) {
+        return instantiate(TupleRegistry.get(typeId));
+    }
+    
+    /**
+    * Gets several copies of the tuple associated with the provided type. The
+    * type is looked up once, and every copy is made the same way as by
+    * {@link #getTypedTuple(String)}.
+    *
+    * @param type  The type of the desired tuples.
+    * @param count The number of tuples to be created.
+    * @return The copies of the tuple associated with the type, or null if not found or not cloneable.
+    * @throws IllegalArgumentException If the count is negative.
+    */
+    public static Tuple<?>[] getTypedTuples(String type, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid count.");
+        }
+        TupleType tupleType = TupleRegistry.get(type);
+        if (tupleType == null) {
+            return null;
+        }
+        try {
+            return tupleType.instantiate(count);
+        } catch (CloneNotSupportedException ex) {
+            return null;
+        }
+    }
+    
+    /**
+    * Creates several tuples of the provided type, filled with the values of
+    * rows instead of copies of the values of the registered tuple. The type is
+    * looked up once, and the values of the rows are not cloned. Tuples of up
+    * to {@link FixedTuple#MAX_ARITY} values are built directly from their row,
+    * with no copy of the registered tuple.
+    *
+    * @param type  The type of the desired tuples.
+    * @param count The number of tuples to be created.
+    * @param rows  A function giving the values of the tuple at each position of the result.
+    * @return The new tuples, or null if the type is not found or the registered tuple is not cloneable.
+    * @throws IllegalArgumentException If the count is negative, or a row does not match the type.
+    */
+    public static Tuple<?>[] getTypedTuples(String type, int count, IntFunction<Object[]> rows) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid count.");
+        }
+        Objects.requireNonNull(rows);
+        TupleType tupleType = TupleRegistry.get(type);
+        if (tupleType == null) {
+            return null;
+        }
+        Tuple<?>[] tuples = new Tuple<?>[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                tuples[i] = tupleType.instantiate(rows.apply(i));
+            }
+        } catch (CloneNotSupportedException ex) {
+            return null;
+        }
+        return tuples;
+    }
+    
+    /**
+    * Gets the comparator of the tuples of the provided type, compiled from the
+    * schema of the registered tuple when it was registered. It orders tuples
+    * the same way as {@link #compareTo(Tuple)}, but knows how to compare each
+    * position beforehand. Numeric positions are compared without boxing only
+    * between tuples storing primitive values unboxed.
+    *
+    * @param type The type of the tuples to be compared.
+    * @return The comparator of the type, or null if the type is not registered.
+    */
+    public static Comparator<Tuple<?>> getComparator(String type) {
+        TupleType tupleType = TupleRegistry.get(type);
+        return tupleType == null ? null : tupleType.getComparator();
+    }
+    
+    /**
+    * Gets a comparator of the first positions of tuples, ordering them the
+    * same way as {@link #comparePrefix(Tuple, int)}.
+    *
+    * @param length The number of positions compared.
+    * @return The comparator.
+    * @throws IllegalArgumentException If the length is negative.
+    */
+    public static Comparator<Tuple<?>> prefixComparator(int length) {
+        return TupleComparator.prefix(length);
+    }
+    
+    /**
+    * Creates a typed tuple from a registry entry.
+    *
+    * @param tupleType The registry entry, or null.
+    * @return A copy of the registered tuple, or null if there is no entry or it is not cloneable.
+    */
+    private static Tuple<?> instantiate(TupleType tupleType) {
+        if (tupleType == null) {
+            return null;
+        }
         try {
-            return tupleTypes.get(type).clone();
+            return tupleType.instantiate();
         } catch (CloneNotSupportedException ex) {
             return null;
         }
     }
     
+    /**
+    * Gets the registered tuple associated with the provided type, without cloning it.
+    *
+    * @param type The type of the desired tuple.
+    * @return The registered tuple, or null if not found.
+    */
+    static Tuple<?> getTemplate(String type) {
+        TupleType tupleType = TupleRegistry.get(type);
+        return tupleType == null ? null : tupleType.getTemplate();
+    }
+    
+    /**
+    * Estimates the number of bytes of heap retained by the tuples registered
+    * for each type, as given by {@link #estimateRetainedSize()}. The size of
+    * each registered tuple is computed when it is registered, so the report
+    * only costs a pass over the types.
+    *
+    * @return The estimated size of the registered tuple of each type, by type.
+    */
+    public static Map<String, Long> estimateTypedTupleSizes() {
+        Map<String, Long> sizes = new TreeMap<>();
+        TupleRegistry.forEach((type, tupleType) -> sizes.put(type, tupleType.getTemplateSize()));
+        return sizes;
+    }
+    
+    /**
+    * Estimates the number of bytes of heap retained by all the tuples in the
+    * global type registry.
+    *
+    * @return The sum of the estimated sizes of the registered tuples.
+    * @see #estimateTypedTupleSizes()
+    */
+    public static long estimateRegistrySize() {
+        long[] size = new long[1];
+        TupleRegistry.forEach((type, tupleType) -> size[0] += tupleType.getTemplateSize());
+        return size[0];
+    }
+    
     /**
      * Removes a typed tuple from the global type registry.
     *
@@ -211,8 +700,7 @@ public class Tuple<V> implements Cloneable {
            return false; // Invalid or empty type
        }
 
-       Tuple removedTuple = tupleTypes.remove(type);
-       return removedTuple != null;
+       return TupleRegistry.remove(type);
    }
     
     /**
@@ -221,21 +709,20 @@ public class Tuple<V> implements Cloneable {
      * @return The root node of the tuple.
      */
     public Tuple<V> getRoot() {
-        Tuple<V> current = this;
-
-        while (current.next != null) {
-            current = current.next;
-        }
-
-        return current.root;
+        return header == null ? this : header.root;
     }
     
     /**
-    * Gets the size of the tuple.
+    * Gets the size of the tuple. The size of a whole tuple is kept up to date
+    * as it changes; only nodes further down the chain count their values.
     *
     * @return The number of nodes in the tuple.
     */
    public int getSize() {
+       if (header != null && header.root == this) {
+           return header.size;
+       }
+       
        int size = 0;
        Tuple<V> current = this;
 
@@ -256,27 +743,117 @@ public class Tuple<V> implements Cloneable {
      * @return The modified previousTuple.
      */
     public <T> Tuple<V> ap(T value) {
-        if(lockedSize) {
+        if(header.lockedSize) {
             throw new UnsupportedOperationException("Cannot change size of a locked-size tuple.");
         }
-        Tuple<V> newTuple = new Tuple<>((V) value);
-
-        if (last == null) {
-            // This is the root previousTuple, initialize 'last' to point to the current instance
-            last = this;
-            root = this;
-        }
+        Tuple<V> newTuple = new Tuple<>((V) value, null, header);
 
         // Append the new previousTuple to the end of the chain
-        last.next = newTuple;
-        last.next.root = last.root;
-
-        // Update 'last' to point to the newly added previousTuple
-        last = newTuple;
+        header.tail.next = newTuple;
+        header.tail = newTuple;
+        header.size++;
+        header.added(value, true);
 
         return this;
     }
     
+    /**
+     * Appends all the values of a collection to the tuple, in the order of its
+     * iterator. The new nodes are linked to each other before being linked to
+     * the tuple, so the tuple is left unchanged if any value is rejected.
+     *
+     * @param values The values to be added.
+     * @return The modified tuple.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    public Tuple<V> apAll(Collection<?> values) {
+        if(header.lockedSize) {
+            throw new UnsupportedOperationException("Cannot change size of a locked-size tuple.");
+        }
+        appendNodes(values.iterator());
+        return this;
+    }
+    
+    /**
+     * Appends all the values of an array to the tuple, in order. The tuple is
+     * left unchanged if any value is rejected.
+     *
+     * @param values The values to be added.
+     * @return The modified tuple.
+     * @throws UnsupportedOperationException If the tuple size is locked.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    public Tuple<V> apAll(Object[] values) {
+        if(header.lockedSize) {
+            throw new UnsupportedOperationException("Cannot change size of a locked-size tuple.");
+        }
+        appendNodes(values);
+        return this;
+    }
+    
+    /**
+     * Links nodes holding the given values after the last node of the tuple.
+     *
+     * @param values The values to be appended.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    // The values are appended as V, unchecked like the values given to ap()
+    @SuppressWarnings("unchecked")
+    private void appendNodes(Iterator<?> values) {
+        if (!values.hasNext()) {
+            return;
+        }
+        Tuple<V> first = new Tuple<>((V) values.next(), null, header);
+        Tuple<V> last = first;
+        int count = 1;
+        while (values.hasNext()) {
+            last.next = new Tuple<>((V) values.next(), null, header);
+            last = last.next;
+            count++;
+        }
+        linkNodes(first, last, count);
+    }
+    
+    /**
+     * Links nodes holding the values of an array after the last node of the tuple.
+     *
+     * @param values The values to be appended.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    // The values are appended as V, unchecked like the values given to ap()
+    @SuppressWarnings("unchecked")
+    private void appendNodes(Object[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        Tuple<V> first = new Tuple<>((V) values[0], null, header);
+        Tuple<V> last = first;
+        for (int i = 1; i < values.length; i++) {
+            last.next = new Tuple<>((V) values[i], null, header);
+            last = last.next;
+        }
+        linkNodes(first, last, values.length);
+    }
+    
+    /**
+     * Links a chain of new nodes after the last node of the tuple. Nothing is
+     * linked before the whole chain has been built, so a rejected value leaves
+     * the tuple unchanged.
+     *
+     * @param first The first node of the chain.
+     * @param last  The last node of the chain.
+     * @param count The number of nodes of the chain.
+     */
+    private void linkNodes(Tuple<V> first, Tuple<V> last, int count) {
+        header.tail.next = first;
+        header.tail = last;
+        header.size += count;
+        for (Tuple<V> current = first; current != null; current = current.next) {
+            header.added(current.value, true);
+        }
+    }
+    
     /**
      * Adds a new value at a specific position in the previousTuple.
      *
@@ -287,48 +864,46 @@ public class Tuple<V> implements Cloneable {
      * @throws UnsupportedOperationException If the previousTuple size is locked.
      */
     public <T> void add(int index, T value) {
-        if(lockedSize) {
+        if(header.lockedSize) {
             throw new UnsupportedOperationException("Cannot change size of a locked-size tuple.");
         }
         if (index < 0) {
             throw new IllegalArgumentException("Invalid index.");
         }
         
+        if (value instanceof Tuple) {
+            throw new IllegalArgumentException("Cannot set a Tuple as the value to avoid nesting.");
+        }
+        
         // Adding at the beginning of the tuple
         if (index == 0) {
-            Tuple<V> newTuple = new Tuple<>((V) value, this.next);
+            // This node keeps its place, so its current value moves to a new node after it
+            Tuple<V> newTuple = new Tuple<>(this.value, this.next, header);
             
             // If the Tuple was single element.
-            if (this.next == null) {
-                last = newTuple;
-                last.root = this;
+            if (header.tail == this) {
+                header.tail = newTuple;
             }
             
             this.value = (V) value;
             this.next = newTuple;
-            root = this;
-            last.root = this;
+            header.size++;
+            header.added(value, false);
             return;
         }
         
         // Adding at a specific position within the tuple
         Tuple<V> previousTuple = seek(index - 1);
-
-        if (previousTuple != null) {
-            if (previousTuple.next != null) {
-                // Adding in the middle of the tuple
-                Tuple<V> newTuple = new Tuple<>((V) value, previousTuple.next);
-                if (previousTuple.next.next == null) {
-                    last = previousTuple.next;
-                    last.root = previousTuple.root;
-                }
-                previousTuple.next = newTuple;
-            } else {
-                // Adding at the end of the tuple
-                last = previousTuple.next = new Tuple<>((V) value, previousTuple.next);
-                last.root = previousTuple.root;
-            }
+        Tuple<V> newTuple = new Tuple<>((V) value, previousTuple.next, header);
+        
+        boolean atEnd = header.tail == previousTuple;
+        if (atEnd) {
+            // Adding at the end of the tuple
+            header.tail = newTuple;
         }
+        previousTuple.next = newTuple;
+        header.size++;
+        header.added(value, atEnd);
     }
     
     /**
@@ -353,43 +928,46 @@ public class Tuple<V> implements Cloneable {
      * @throws UnsupportedOperationException If the previousTuple size is locked.
      */
     public V remove(int index) {
-        if(lockedSize) {
+        if(header.lockedSize) {
             throw new UnsupportedOperationException("Cannot change size of a locked-size tuple.");
         }
         if (index == 0) {
             // Removing the element involves updating 'value' and 'next'.
             V removedValue = this.value;
             if(this.next != null) {
+                if (header.tail == this.next) {
+                    header.tail = this;
+                }
                 this.value = this.next.value;
                 this.next = this.next.next;
+                header.size--;
+                header.removed(removedValue, false);
             } else {
                 // The Tuple was single element, set 'value' to null.
                 value = null;
+                header.replaced(0, removedValue, null);
             }
             return removedValue;
         }
         
         Tuple<V> previousTuple = seek(index-1);
 
-        if (previousTuple == null || previousTuple.next == null) {
+        if (previousTuple.next == null) {
             return null;
         }
 
+        // Removing the element involves unlinking its node.
         Tuple<V> tuple = previousTuple.next;
-        V removedValue = tuple.value;
-        
-        // Removing the element involves updating 'value' and 'next'.
-        if (tuple.next != null) {
-            tuple.value = tuple.next.value;
-            tuple.next = tuple.next.next;
-        } else {
-            // The removed Tuple was the last, excludes the reference to it.
-            previousTuple.next = null;
-            last = previousTuple;
-            last.root = this;
+        previousTuple.next = tuple.next;
+        boolean atEnd = header.tail == tuple;
+        if (atEnd) {
+            // The removed Tuple was the last.
+            header.tail = previousTuple;
         }
+        header.size--;
+        header.removed(tuple.value, atEnd);
 
-        return removedValue;
+        return tuple.value;
     }
     
     /**
@@ -405,8 +983,11 @@ public class Tuple<V> implements Cloneable {
         if (!this.value.getClass().isAssignableFrom(value.getClass())) {
             throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
         }
+        // Only the root and the last node know how far they are from the end
+        int fromEnd = this == header.root ? header.size - 1 : (this == header.tail ? 0 : -1);
+        header.replaced(fromEnd, this.value, value);
         this.value = (V) value;
-        return this.next == null ? root : this.next;
+        return this.next == null ? getRoot() : this.next;
     }
     
    /**
@@ -423,9 +1004,109 @@ public class Tuple<V> implements Cloneable {
         if (!tuple.value.getClass().isAssignableFrom(value.getClass())) {
             throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
         }
+        header.replaced(this == header.root ? header.size - 1 - index : -1, tuple.value, value);
         tuple.value = (V) value;
     }
     
+    /**
+     * Gets the numeric value at the specified position as an int.
+     * Tuples that store primitive values read them without boxing.
+     *
+     * @param index The desired position.
+     * @return The value at the specified position as an int.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     * @throws ClassCastException If the value is not a number.
+     * @throws NullPointerException If the value is null.
+     */
+    public int getInt(int index) {
+        return this.<Number>get(index).intValue();
+    }
+    
+    /**
+     * Gets the numeric value at the specified position as a long.
+     * Tuples that store primitive values read them without boxing.
+     *
+     * @param index The desired position.
+     * @return The value at the specified position as a long.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     * @throws ClassCastException If the value is not a number.
+     * @throws NullPointerException If the value is null.
+     */
+    public long getLong(int index) {
+        return this.<Number>get(index).longValue();
+    }
+    
+    /**
+     * Gets the numeric value at the specified position as a double.
+     * Tuples that store primitive values read them without boxing.
+     *
+     * @param index The desired position.
+     * @return The value at the specified position as a double.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     * @throws ClassCastException If the value is not a number.
+     * @throws NullPointerException If the value is null.
+     */
+    public double getDouble(int index) {
+        return this.<Number>get(index).doubleValue();
+    }
+    
+    /**
+     * Replaces the value at the specified position with an int.
+     * Tuples that store primitive values write it without boxing.
+     *
+     * @param index The desired position.
+     * @param value The new value.
+     * @throws IllegalArgumentException If the position does not hold an int.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    public void setInt(int index, int value) {
+        replace(index, value);
+    }
+    
+    /**
+     * Replaces the value at the specified position with a long.
+     * Tuples that store primitive values write it without boxing.
+     *
+     * @param index The desired position.
+     * @param value The new value.
+     * @throws IllegalArgumentException If the position does not hold a long.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    public void setLong(int index, long value) {
+        replace(index, value);
+    }
+    
+    /**
+     * Replaces the value at the specified position with a double.
+     * Tuples that store primitive values write it without boxing.
+     *
+     * @param index The desired position.
+     * @param value The new value.
+     * @throws IllegalArgumentException If the position does not hold a double.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    public void setDouble(int index, double value) {
+        replace(index, value);
+    }
+    
+    /**
+    * Gets the value held by this node of a linked tuple.
+    *
+    * @return The value of the node.
+    */
+    final V nodeValue() {
+        return value;
+    }
+    
+    /**
+    * Gets the node following this one in a linked tuple.
+    *
+    * @return The next node, or null if this is the last one.
+    */
+    final Tuple<V> nextNode() {
+        return next;
+    }
+    
     /**
     * Seeks and returns the tuple at the specified index.
     *
@@ -453,6 +1134,19 @@ public class Tuple<V> implements Cloneable {
         throw new IndexOutOfBoundsException("Invalid index.");
     }
     
+    /**
+    * Creates a frozen copy of the tuple, with the same lock and type. A frozen
+    * tuple rejects every modification, not only those changing its size, and
+    * can be shared between threads with no defensive copies.
+    *
+    * @return A frozen tuple holding the values of this tuple.
+    * @throws CloneNotSupportedException If a mutable value cannot be cloned.
+    * @see FrozenTuple
+    */
+    public FrozenTuple<V> freeze() throws CloneNotSupportedException {
+        return FrozenTuple.of(this);
+    }
+    
     /**
     * Creates a silent deep clone of the previousTuple, suppressing CloneNotSupportedException.
     *
@@ -476,25 +1170,24 @@ public class Tuple<V> implements Cloneable {
     public Tuple<V> clone() throws CloneNotSupportedException {
         // Create a new tuple with a cloned value of the current tuple's value
         Tuple<V> clonedTuple = new Tuple<>(cloneObject(this.value));
+        Header<V> clonedHeader = clonedTuple.header;
         // Initialize pointers to traverse the original and cloned tuples
         Tuple<V> currentOriginal = this.next;
         Tuple<V> currentCloned = clonedTuple;
         
         // Clone the next elements of the tuple until reaching the end
         while (currentOriginal != null) {
-            currentCloned.next = new Tuple<>(cloneObject(currentOriginal.value));
+            currentCloned.next = new Tuple<>(cloneObject(currentOriginal.value), null, clonedHeader);
             currentOriginal = currentOriginal.next;
             currentCloned = currentCloned.next;
+            clonedHeader.size++;
+            clonedHeader.added(currentCloned.value, true);
         }
         
         // Set additional properties of the cloned tuple
-        clonedTuple.root = clonedTuple;
-        clonedTuple.lockedSize = this.lockedSize;
-        clonedTuple.type = this.type;
-
-        // Directly update the last pointer of the cloned tuple
-        clonedTuple.last = currentCloned;
-        clonedTuple.last.root = clonedTuple;
+        clonedHeader.lockedSize = header.lockedSize;
+        clonedHeader.type = header.type;
+        clonedHeader.tail = currentCloned;
 
         return clonedTuple;
     }
@@ -502,75 +1195,254 @@ public class Tuple<V> implements Cloneable {
     /**
     * Clones the provided object using various methods, including serialization.
     * This method handles cloning of primitive types, Cloneable objects, and Serializable objects.
+    * How the objects of a class are cloned is decided once per class.
     *
     * @param original The object to be cloned.
     * @param <T>      The type of the object.
     * @return A cloned instance of the original object.
     * @throws CloneNotSupportedException If cloning fails due to incompatible types or unclonable objects.
+    * @see CloneStrategy
     */
-    private <T> T cloneObject(T original) throws CloneNotSupportedException {
+    static <T> T cloneObject(T original) throws CloneNotSupportedException {
         if (original == null) {
             return null;
         }
-        
-        // If the object is a primitive type, return its value
-        if (isPrimitive(original)) {
-            return original;
-        }
-        
-        // If the object is Cloneable, attempt to clone using reflection
-        if (original instanceof Cloneable) {
-            try {
-                T cloned = (T) original.getClass().getMethod("clone").invoke(original);
-                return cloned;
-            } catch (Exception e) {
+        return (T) CloneStrategy.of(original.getClass()).copy(original);
+    }
+    
+    /**
+    * Registers a class whose instances are never modified once created.
+    * Values of immutable classes are shared instead of copied by
+    * {@link #clone()}, {@link #cloneSilent()} and {@link #getTypedTuple(String)}.
+    * Besides the wrappers of primitives, String and Class, the immutable value
+    * classes of the JDK (such as BigDecimal, UUID and the java.time classes),
+    * enums and records whose components are all immutable are detected
+    * automatically.
+    * <p>
+    * Classes should be registered before tuples holding their values are
+    * cloned or registered as typed tuples.
+    *
+    * @param type The immutable class.
+    */
+    public static void registerImmutableType(Class<?> type) {
+        CloneStrategy.registerImmutable(Objects.requireNonNull(type));
+    }
+    
+    /**
+    * Registers how the values of a class are copied when tuples holding them
+    * are cloned, replacing the default strategy for that exact class (its
+    * subclasses are not affected). Values copied by a copier are not
+    * considered immutable, even if their class is.
+    *
+    * @param type   The class of the values.
+    * @param copier The copier of the values.
+    * @param <T>    The class of the values.
+    */
+    // The strategies of the registry only get values of the class they are registered for
+    @SuppressWarnings("unchecked")
+    public static <T> void registerCopier(Class<T> type, ValueCopier<? super T> copier) {
+        Objects.requireNonNull(copier);
+        CloneStrategy.registerCopier(Objects.requireNonNull(type), original -> copier.copy((T) original));
+    }
+    
+    /**
+    * Checks if the provided object is a primitive type.
+    *
+    * @param original The object to be checked.
+    * @param <T>      The type of the object.
+    * @return True if the object is a primitive type or of an immutable class, false otherwise.
+    */
+    static <T> boolean isPrimitive(T original) {       
+        return CloneStrategy.of(original.getClass()).isImmutable();
+    }
+    
+    /**
+    * Raises 31 to a power by repeated squaring, modulo 2<sup>32</sup>.
+    *
+    * @param exponent The non-negative exponent.
+    * @return 31 raised to the exponent.
+    */
+    static int pow31(int exponent) {
+        int result = 1;
+        int base = 31;
+        while (exponent != 0) {
+            if ((exponent & 1) != 0) {
+                result *= base;
             }
+            base *= base;
+            exponent >>>= 1;
         }
+        return result;
+    }
+    
+    /**
+    * Estimates the number of bytes of heap retained by the tuple: the objects
+    * of its storage, plus the shallow size of each of its values (strings and
+    * arrays also count their contents). The size of each class is computed
+    * once, so the estimate only costs a walk over the values and can be used
+    * to enforce memory budgets.
+    *
+    * @return The estimated number of bytes retained by the tuple.
+    * @see ShallowSizes
+    */
+    public long estimateRetainedSize() {
+        return storageSize() + valuesSize();
+    }
+    
+    /**
+    * Estimates the number of bytes taken by the storage of the tuple, not
+    * counting its values.
+    *
+    * @return The estimated size of the header and nodes of the tuple.
+    */
+    long storageSize() {
+        return ShallowSizes.of(Header.class) + getSize() * ShallowSizes.of(Tuple.class);
+    }
+    
+    /**
+    * Estimates the number of bytes retained through the values of the tuple.
+    *
+    * @return The sum of the estimated sizes of the values.
+    */
+    long valuesSize() {
+        long size = 0;
+        for (Tuple<V> current = this; current != null; current = current.next) {
+            size += ShallowSizes.ofValue(current.value);
+        }
+        return size;
+    }
+    
+    /**
+    * Copies the values of the tuple into a new array, in order.
+    *
+    * @return An array holding the values of the tuple.
+    */
+    public Object[] toArray() {
+        Object[] values = new Object[getSize()];
+        Tuple<V> current = this;
         
-        // If the object is Serializable, attempt to clone using serialization
-        if (original instanceof Serializable) {
-            try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-                
-                // Write the original object to a byte array
-                oos.writeObject(original);
-                oos.flush();
-
-                try (ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
-                     ObjectInputStream ois = new ObjectInputStream(bis)) {
-
-                    // Read the cloned object from the byte array
-                    T cloned = (T) ois.readObject();
-                    return cloned;
-                }
-
-            } catch (IOException | ClassNotFoundException e) {
-            }
+        for (int i = 0; current != null; i++) {
+            values[i] = current.value;
+            current = current.next;
         }
         
-        // Throw an exception if the object is not cloneable
-        throw new CloneNotSupportedException("Object " + original + " is not clonable.");
+        return values;
     }
     
     /**
-    * Checks if the provided object is a primitive type.
+    * Copies the values of the tuple into a new array, in order, without
+    * changing the tuple. Indexed storage engines override it to copy the
+    * values straight from their storage.
     *
-    * @param original The object to be checked.
-    * @param <T>      The type of the object.
-    * @return True if the object is a primitive type, false otherwise.
+    * @return An array holding the values of the tuple.
     */
-    private <T> boolean isPrimitive(T original) {       
-        Class<?> originalClass = original.getClass();
-        return  originalClass.isPrimitive() ||
-                originalClass == Boolean.class || originalClass == Byte.class ||
-                originalClass == Character.class || originalClass == Short.class ||
-                originalClass == Integer.class || originalClass == Long.class ||
-                originalClass == Float.class || originalClass == Double.class ||
-                originalClass == String.class || originalClass == Class.class;
+    Object[] copyValues() {
+        return toArray();
     }
     
+    /**
+    * Creates an iterator over the values of the tuple, from this node to the
+    * end of the tuple. The iterator cannot remove values.
+    *
+    * @return An iterator over the values of the tuple.
+    */
+    @Override
+    public Iterator<V> iterator() {
+        return new NodeIterator<>(this);
+    }
+    
+    /**
+    * Performs an action for every value of the tuple, from this node to the
+    * end of the tuple, in order.
+    *
+    * @param action The action to be performed.
+    * @throws NullPointerException If the action is null.
+    */
+    @Override
+    public void forEach(Consumer<? super V> action) {
+        Objects.requireNonNull(action);
+        for (Tuple<V> current = this; current != null; current = current.next) {
+            action.accept(current.value);
+        }
+    }
+    
+    /**
+    * Creates a spliterator over the values of the tuple, from this node to the
+    * end of the tuple. It reports its exact size, and so do the parts it is
+    * split into.
+    *
+    * @return A spliterator over the values of the tuple.
+    */
+    @Override
+    public Spliterator<V> spliterator() {
+        return new NodeSpliterator<>(this, getSize());
+    }
+    
+    /**
+    * Creates a sequential stream of the values of the tuple.
+    *
+    * @return A stream of the values of the tuple.
+    */
+    public Stream<V> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+    
+    /**
+    * Creates a parallel stream of the values of the tuple.
+    *
+    * @return A parallel stream of the values of the tuple.
+    */
+    public Stream<V> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+    
+    /**
+    * Creates a stream of the numeric values of the tuple as ints. Tuples that
+    * store primitive values read them without boxing.
+    *
+    * @return A stream of the values of the tuple as ints.
+    * @throws ClassCastException When the stream reaches a value that is not a number.
+    */
+    public IntStream intStream() {
+        return stream().mapToInt(value -> ((Number) value).intValue());
+    }
+    
+    /**
+    * Creates a stream of the numeric values of the tuple as longs. Tuples that
+    * store primitive values read them without boxing.
+    *
+    * @return A stream of the values of the tuple as longs.
+    * @throws ClassCastException When the stream reaches a value that is not a number.
+    */
+    public LongStream longStream() {
+        return stream().mapToLong(value -> ((Number) value).longValue());
+    }
+    
+    /**
+    * Creates a stream of the numeric values of the tuple as doubles. Tuples
+    * that store primitive values read them without boxing.
+    *
+    * @return A stream of the values of the tuple as doubles.
+    * @throws ClassCastException When the stream reaches a value that is not a number.
+    */
+    public DoubleStream doubleStream() {
+        return stream().mapToDouble(value -> ((Number) value).doubleValue());
+    }
+
+    /**
+    * Gets the hash code of the tuple. The hash code of a whole linked tuple
+    * holding only immutable values is kept up to date as it changes, so it is
+    * only computed again after changes at unknown positions.
+    *
+    * @return The hash code of the tuple.
+    */
     @Override
     public int hashCode() {
+        boolean whole = header != null && header.root == this;
+        if (whole && header.hashValid) {
+            return header.hash;
+        }
+        
         int result = 1;
 
         Tuple<V> current = this;
@@ -579,9 +1451,96 @@ public class Tuple<V> implements Cloneable {
             current = current.next;
         }
 
+        if (whole && header.mutableValues == 0) {
+            header.hash = result;
+            header.hashValid = true;
+        }
         return result;
     }
 
+    /**
+    * Folds the values of the tuple, from this node to its end, into the state
+    * of a hash.
+    *
+    * @param hasher The hasher computing the hash.
+    * @param state  The initial state of the hash.
+    * @return The finished hash.
+    */
+    long hashWith(TupleHasher hasher, long state) {
+        int size = 0;
+        for (Tuple<V> current = this; current != null; current = current.next) {
+            state = hasher.mix(state, current.value);
+            size++;
+        }
+        return hasher.finish(state, size);
+    }
+
+    /**
+    * Encodes the tuple into a key whose unsigned lexicographic order is the
+    * order of {@link #compareTo(Tuple)}.
+    *
+    * @return The key of the tuple.
+    * @throws IllegalArgumentException If a value is not a number, character, boolean, string or null.
+    * @see TupleKeyCodec
+    */
+    public byte[] encodeKey() {
+        return TupleKeyCodec.encode(this, Integer.MAX_VALUE);
+    }
+    
+    /**
+    * Encodes the first positions of the tuple into a key whose unsigned
+    * lexicographic order is the order of {@link #comparePrefix(Tuple, int)}.
+    *
+    * @param length The number of positions encoded.
+    * @return The key of the first positions of the tuple.
+    * @throws IllegalArgumentException If the length is negative, or a value is not a number, character, boolean, string or null.
+    * @see TupleKeyCodec
+    */
+    public byte[] encodeKey(int length) {
+        return TupleKeyCodec.encode(this, length);
+    }
+    
+    /**
+    * Decodes a key made by {@link #encodeKey()} into a linked tuple.
+    *
+    * @param key The key.
+    * @return A tuple holding the values of the key.
+    * @throws IllegalArgumentException If the bytes are not a key holding at least one value.
+    */
+    public static Tuple<Object> decodeKey(byte[] key) {
+        return TupleKeyCodec.decode(key);
+    }
+    
+    /**
+    * Compares the tuple with another one lexicographically: by their first
+    * values, then by the following ones while they are equal, with a tuple
+    * that is a prefix of the other coming first. Null values come first, and
+    * other values are compared through {@link Comparable}.
+    *
+    * @param other The tuple to be compared.
+    * @return A negative number, zero or a positive number as this tuple is less than, equal to or greater than the other.
+    * @throws ClassCastException If values at the same position cannot be compared with each other.
+    */
+    @Override
+    public int compareTo(Tuple<?> other) {
+        return TupleComparator.NATURAL.compare(this, other);
+    }
+    
+    /**
+    * Compares the first positions of the tuple with those of another one,
+    * the same way as {@link #compareTo(Tuple)}. Tuples with the same values at
+    * those positions are equal, whatever follows them.
+    *
+    * @param other  The tuple to be compared.
+    * @param length The number of positions compared.
+    * @return A negative number, zero or a positive number as this tuple is less than, equal to or greater than the other.
+    * @throws IllegalArgumentException If the length is negative.
+    * @throws ClassCastException If values at the same position cannot be compared with each other.
+    */
+    public int comparePrefix(Tuple<?> other, int length) {
+        return TupleComparator.prefix(length).compare(this, other);
+    }
+    
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder("(").append(value);
@@ -603,23 +1562,37 @@ public class Tuple<V> implements Cloneable {
             return true;
         }
 
-        // Check if the compared object is null or of a different class
-        if (obj == null || getClass() != obj.getClass()) {
+        // Check if the compared object is null or not a tuple
+        if (!(obj instanceof Tuple)) {
             return false;
         }
 
         Tuple<?> other = (Tuple<?>) obj;
+        
+        // Whole linked tuples of different sizes or known different hashes can never be equal
+        if (header != null && other.header != null && header.root == this && other.header.root == other
+                && (header.size != other.header.size
+                || header.hashValid && other.header.hashValid && header.hash != other.header.hash)) {
+            return false;
+        }
+        
+        // Tuples with other storage engines are compared by their values
+        if (getClass() != Tuple.class || other.getClass() != Tuple.class) {
+            return isLockedSize() == other.isLockedSize()
+                    && (getType().isEmpty() || other.getType().isEmpty() || getType().equals(other.getType()))
+                    && Arrays.equals(copyValues(), other.copyValues());
+        }
 
         // Check if the values of the tuples are equal
         if (!Objects.equals(value, other.value)) {
             return false;
         }
         
-        if(lockedSize != other.lockedSize) {
+        if(header.lockedSize != other.header.lockedSize) {
             return false;
         }
         
-        if((type!=null && other.type!=null) && !type.equals(other.type)) {
+        if((header.type!=null && other.header.type!=null) && !header.type.equals(other.header.type)) {
             return false;
         }
 
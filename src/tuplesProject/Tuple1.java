@@ -0,0 +1,78 @@
+package tuplesProject;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * A tuple of exactly one value kept in its own field.
+ *
+ * @param <V> The type of data stored in the tuple.
+ * @see FixedTuple
+ */
+public final class Tuple1<V> extends FixedTuple<V> {
+
+    /**
+     * The schema of the type this class was specialized for, or null for the
+     * shared class.
+     */
+    private static final TupleSchema SCHEMA = schemaOf(MethodHandles.lookup());
+
+    private V f0;
+
+    /**
+     * Creates a tuple holding the given value.
+     *
+     * @param f0 The value at position 0.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    public Tuple1(V f0) {
+        checkNesting(f0);
+        this.f0 = f0;
+    }
+
+    @Override
+    Object slot(int index) {
+        return f0;
+    }
+
+    // The value is stored as V, unchecked like the values given to ap()
+    @SuppressWarnings("unchecked")
+    @Override
+    void slot(int index, Object value) {
+        f0 = (V) value;
+    }
+
+    @Override
+    void checkReplace(int index, Object value) {
+        if (SCHEMA == null) {
+            super.checkReplace(index, value);
+        } else {
+            SCHEMA.checkValue(index, value);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return 1;
+    }
+
+    /**
+     * Creates a deep clone of the tuple.
+     *
+     * @return A new tuple that is a deep clone of the current instance.
+     * @throws CloneNotSupportedException If cloning fails due to incompatible types or unclonable objects.
+     */
+    @Override
+    public FixedTuple<V> clone() throws CloneNotSupportedException {
+        return copyLockTo(new Tuple1<>(cloneObject(f0)));
+    }
+
+    @Override
+    FixedTuple<V> shallowCopy() {
+        return copyLockTo(new Tuple1<>(f0));
+    }
+
+    @Override
+    Object[] copyValues() {
+        return new Object[]{f0};
+    }
+}
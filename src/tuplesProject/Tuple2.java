@@ -0,0 +1,93 @@
+package tuplesProject;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * A tuple of exactly two values kept in its own fields.
+ *
+ * @param <V> The type of data stored in the tuple.
+ * @see FixedTuple
+ */
+public final class Tuple2<V> extends FixedTuple<V> {
+
+    /**
+     * The schema of the type this class was specialized for, or null for the
+     * shared class.
+     */
+    private static final TupleSchema SCHEMA = schemaOf(MethodHandles.lookup());
+
+    private V f0;
+    private V f1;
+
+    /**
+     * Creates a tuple holding the given values.
+     *
+     * @param f0 The value at position 0.
+     * @param f1 The value at position 1.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    public Tuple2(V f0, V f1) {
+        checkNesting(f0);
+        checkNesting(f1);
+        this.f0 = f0;
+        this.f1 = f1;
+    }
+
+    @Override
+    Object slot(int index) {
+        switch (index) {
+            case 0:
+                return f0;
+            default:
+                return f1;
+        }
+    }
+
+    // The value is stored as V, unchecked like the values given to ap()
+    @SuppressWarnings("unchecked")
+    @Override
+    void slot(int index, Object value) {
+        switch (index) {
+            case 0:
+                f0 = (V) value;
+                break;
+            default:
+                f1 = (V) value;
+        }
+    }
+
+    @Override
+    void checkReplace(int index, Object value) {
+        if (SCHEMA == null) {
+            super.checkReplace(index, value);
+        } else {
+            SCHEMA.checkValue(index, value);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return 2;
+    }
+
+    /**
+     * Creates a deep clone of the tuple.
+     *
+     * @return A new tuple that is a deep clone of the current instance.
+     * @throws CloneNotSupportedException If cloning fails due to incompatible types or unclonable objects.
+     */
+    @Override
+    public FixedTuple<V> clone() throws CloneNotSupportedException {
+        return copyLockTo(new Tuple2<>(cloneObject(f0), cloneObject(f1)));
+    }
+
+    @Override
+    FixedTuple<V> shallowCopy() {
+        return copyLockTo(new Tuple2<>(f0, f1));
+    }
+
+    @Override
+    Object[] copyValues() {
+        return new Object[]{f0, f1};
+    }
+}
@@ -0,0 +1,148 @@
+package tuplesProject;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * A tuple of exactly eight values kept in its own fields.
+ *
+ * @param <V> The type of data stored in the tuple.
+ * @see FixedTuple
+ */
+public final class Tuple8<V> extends FixedTuple<V> {
+
+    /**
+     * The schema of the type this class was specialized for, or null for the
+     * shared class.
+     */
+    private static final TupleSchema SCHEMA = schemaOf(MethodHandles.lookup());
+
+    private V f0;
+    private V f1;
+    private V f2;
+    private V f3;
+    private V f4;
+    private V f5;
+    private V f6;
+    private V f7;
+
+    /**
+     * Creates a tuple holding the given values.
+     *
+     * @param f0 The value at position 0.
+     * @param f1 The value at position 1.
+     * @param f2 The value at position 2.
+     * @param f3 The value at position 3.
+     * @param f4 The value at position 4.
+     * @param f5 The value at position 5.
+     * @param f6 The value at position 6.
+     * @param f7 The value at position 7.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    public Tuple8(V f0, V f1, V f2, V f3, V f4, V f5, V f6, V f7) {
+        checkNesting(f0);
+        checkNesting(f1);
+        checkNesting(f2);
+        checkNesting(f3);
+        checkNesting(f4);
+        checkNesting(f5);
+        checkNesting(f6);
+        checkNesting(f7);
+        this.f0 = f0;
+        this.f1 = f1;
+        this.f2 = f2;
+        this.f3 = f3;
+        this.f4 = f4;
+        this.f5 = f5;
+        this.f6 = f6;
+        this.f7 = f7;
+    }
+
+    @Override
+    Object slot(int index) {
+        switch (index) {
+            case 0:
+                return f0;
+            case 1:
+                return f1;
+            case 2:
+                return f2;
+            case 3:
+                return f3;
+            case 4:
+                return f4;
+            case 5:
+                return f5;
+            case 6:
+                return f6;
+            default:
+                return f7;
+        }
+    }
+
+    // The value is stored as V, unchecked like the values given to ap()
+    @SuppressWarnings("unchecked")
+    @Override
+    void slot(int index, Object value) {
+        switch (index) {
+            case 0:
+                f0 = (V) value;
+                break;
+            case 1:
+                f1 = (V) value;
+                break;
+            case 2:
+                f2 = (V) value;
+                break;
+            case 3:
+                f3 = (V) value;
+                break;
+            case 4:
+                f4 = (V) value;
+                break;
+            case 5:
+                f5 = (V) value;
+                break;
+            case 6:
+                f6 = (V) value;
+                break;
+            default:
+                f7 = (V) value;
+        }
+    }
+
+    @Override
+    void checkReplace(int index, Object value) {
+        if (SCHEMA == null) {
+            super.checkReplace(index, value);
+        } else {
+            SCHEMA.checkValue(index, value);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return 8;
+    }
+
+    /**
+     * Creates a deep clone of the tuple.
+     *
+     * @return A new tuple that is a deep clone of the current instance.
+     * @throws CloneNotSupportedException If cloning fails due to incompatible types or unclonable objects.
+     */
+    @Override
+    public FixedTuple<V> clone() throws CloneNotSupportedException {
+        return copyLockTo(new Tuple8<>(cloneObject(f0), cloneObject(f1), cloneObject(f2), cloneObject(f3),
+                cloneObject(f4), cloneObject(f5), cloneObject(f6), cloneObject(f7)));
+    }
+
+    @Override
+    FixedTuple<V> shallowCopy() {
+        return copyLockTo(new Tuple8<>(f0, f1, f2, f3, f4, f5, f6, f7));
+    }
+
+    @Override
+    Object[] copyValues() {
+        return new Object[]{f0, f1, f2, f3, f4, f5, f6, f7};
+    }
+}
@@ -0,0 +1,512 @@
+package tuplesProject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A columnar store of many tuples that share a {@link TupleSchema}.
+ * <p>
+ * Instead of one chain of nodes per tuple, a batch keeps one array per position:
+ * {@code int[]}, {@code long[]} and {@code double[]} columns for the positions of
+ * those kinds, an {@code int[]} of raw bits for the other primitive kinds and an
+ * {@code Object[]} for references. A scan or an aggregation over a single
+ * position only touches its own dense column.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ TupleBatch batch = TupleBatch.forType("String-Integer Tuple");
+ batch.append(Tuple.getTypedTuple("String-Integer Tuple").set("Text").set(5));
+ int[] counts = batch.intColumn(1);
+ }</pre>
+ */
+public final class TupleBatch {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private final TupleSchema schema;
+    private final Object[] columns;
+    private int capacity;
+    private int size;
+
+    /**
+     * Creates an empty batch for tuples of the given schema.
+     *
+     * @param schema The schema of the tuples to be stored.
+     */
+    public TupleBatch(TupleSchema schema) {
+        this(schema, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty batch for tuples of the given schema.
+     *
+     * @param schema   The schema of the tuples to be stored.
+     * @param capacity The number of tuples the batch can hold before growing.
+     * @throws IllegalArgumentException If the capacity is negative.
+     */
+    public TupleBatch(TupleSchema schema, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity.");
+        }
+        this.schema = schema;
+        this.capacity = capacity;
+        columns = new Object[schema.getSize()];
+        for (int i = 0; i < columns.length; i++) {
+            switch (schema.getKind(i)) {
+                case LONG:
+                    columns[i] = new long[capacity];
+                    break;
+                case DOUBLE:
+                    columns[i] = new double[capacity];
+                    break;
+                case REFERENCE:
+                    columns[i] = new Object[capacity];
+                    break;
+                default:
+                    columns[i] = new int[capacity];
+            }
+        }
+    }
+
+    /**
+     * Creates an empty batch for tuples of the type registered in the typed-tuple registry.
+     *
+     * @param type The type of the registered tuple.
+     * @return A new empty batch.
+     * @throws IllegalArgumentException If no tuple is registered for the type.
+     */
+    public static TupleBatch forType(String type) {
+        return new TupleBatch(TupleSchema.forType(type));
+    }
+
+    /**
+     * Creates a batch holding the values of the given tuples, in order.
+     *
+     * @param schema The schema of the tuples.
+     * @param tuples The tuples to be stored.
+     * @return A new batch holding the tuples.
+     * @throws IllegalArgumentException If any of the tuples does not follow the schema.
+     */
+    public static TupleBatch of(TupleSchema schema, Collection<? extends Tuple<?>> tuples) {
+        TupleBatch batch = new TupleBatch(schema, tuples.size());
+        for (Tuple<?> tuple : tuples) {
+            batch.append(tuple);
+        }
+        return batch;
+    }
+
+    /**
+     * Gets the schema of the tuples stored in the batch.
+     *
+     * @return The schema of the batch.
+     */
+    public TupleSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Gets the number of tuples stored in the batch.
+     *
+     * @return The number of rows in use.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Grows every column, if needed, so it can hold the given number of rows.
+     *
+     * @param minCapacity The minimum number of rows.
+     */
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1) + 1);
+        for (int i = 0; i < columns.length; i++) {
+            Object column = columns[i];
+            if (column instanceof int[]) {
+                columns[i] = Arrays.copyOf((int[]) column, newCapacity);
+            } else if (column instanceof long[]) {
+                columns[i] = Arrays.copyOf((long[]) column, newCapacity);
+            } else if (column instanceof double[]) {
+                columns[i] = Arrays.copyOf((double[]) column, newCapacity);
+            } else {
+                columns[i] = Arrays.copyOf((Object[]) column, newCapacity);
+            }
+        }
+        capacity = newCapacity;
+    }
+
+    /**
+     * Copies the values of a tuple into a new row at the end of the batch.
+     *
+     * @param tuple The tuple to be stored.
+     * @return The index of the new row.
+     * @throws IllegalArgumentException If the tuple does not follow the schema of the batch.
+     */
+    public int append(Tuple<?> tuple) {
+        return appendRow(tuple.toArray());
+    }
+
+    /**
+     * Stores the given values into a new row at the end of the batch.
+     *
+     * @param values The values of the row, one per position.
+     * @return The index of the new row.
+     * @throws IllegalArgumentException If the values do not follow the schema of the batch.
+     */
+    public int appendRow(Object... values) {
+        schema.checkValues(values);
+        ensureCapacity(size + 1);
+        int row = size++;
+        for (int i = 0; i < values.length; i++) {
+            write(row, i, values[i]);
+        }
+        return row;
+    }
+
+    /**
+     * Checks that the row and the position exist.
+     *
+     * @param row   The row to be checked.
+     * @param index The position to be checked.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     */
+    private void checkCell(int row, int index) {
+        if (row < 0 || row >= size || index < 0 || index >= columns.length) {
+            throw new IndexOutOfBoundsException("Invalid index.");
+        }
+    }
+
+    /**
+     * Reads the value of a cell, boxing primitive values.
+     *
+     * @param row   The row to be read.
+     * @param index The position to be read.
+     * @return The value of the cell.
+     */
+    private Object read(int row, int index) {
+        SlotKind kind = schema.getKind(index);
+        switch (kind) {
+            case INT:
+                return ((int[]) columns[index])[row];
+            case LONG:
+                return ((long[]) columns[index])[row];
+            case DOUBLE:
+                return ((double[]) columns[index])[row];
+            case REFERENCE:
+                return ((Object[]) columns[index])[row];
+            default:
+                return kind.fromBits(((int[]) columns[index])[row]);
+        }
+    }
+
+    /**
+     * Writes the value of a cell. The type of the value has already been checked.
+     *
+     * @param row   The row to be written.
+     * @param index The position to be written.
+     * @param value The value to be stored.
+     */
+    private void write(int row, int index, Object value) {
+        SlotKind kind = schema.getKind(index);
+        switch (kind) {
+            case INT:
+                ((int[]) columns[index])[row] = (Integer) value;
+                break;
+            case LONG:
+                ((long[]) columns[index])[row] = (Long) value;
+                break;
+            case DOUBLE:
+                ((double[]) columns[index])[row] = (Double) value;
+                break;
+            case REFERENCE:
+                ((Object[]) columns[index])[row] = value;
+                break;
+            default:
+                ((int[]) columns[index])[row] = (int) kind.toBits(value);
+        }
+    }
+
+    /**
+     * Gets the value of a cell.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @param <T>   The type of the value.
+     * @return The value of the cell.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     */
+    // Values are handed out as whatever the caller expects, unchecked like the get() of tuples
+    @SuppressWarnings("unchecked")
+    public <T> T getCell(int row, int index) {
+        checkCell(row, index);
+        return (T) read(row, index);
+    }
+
+    /**
+     * Replaces the value of a cell.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @param value The new value.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws IllegalArgumentException If the value does not fit the position.
+     */
+    public void setCell(int row, int index, Object value) {
+        checkCell(row, index);
+        schema.checkValue(index, value);
+        write(row, index, value);
+    }
+
+    /**
+     * Gets the value of a cell as an int, without boxing primitive values.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @return The value as an int.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws ClassCastException If the value is not a number.
+     */
+    public int getInt(int row, int index) {
+        checkCell(row, index);
+        return schema.getKind(index) == SlotKind.INT
+                ? ((int[]) columns[index])[row]
+                : ((Number) read(row, index)).intValue();
+    }
+
+    /**
+     * Gets the value of a cell as a long, without boxing primitive values.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @return The value as a long.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws ClassCastException If the value is not a number.
+     */
+    public long getLong(int row, int index) {
+        checkCell(row, index);
+        switch (schema.getKind(index)) {
+            case INT:
+                return ((int[]) columns[index])[row];
+            case LONG:
+                return ((long[]) columns[index])[row];
+            default:
+                return ((Number) read(row, index)).longValue();
+        }
+    }
+
+    /**
+     * Gets the value of a cell as a double, without boxing primitive values.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @return The value as a double.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws ClassCastException If the value is not a number.
+     */
+    public double getDouble(int row, int index) {
+        checkCell(row, index);
+        switch (schema.getKind(index)) {
+            case INT:
+                return ((int[]) columns[index])[row];
+            case LONG:
+                return ((long[]) columns[index])[row];
+            case DOUBLE:
+                return ((double[]) columns[index])[row];
+            default:
+                return ((Number) read(row, index)).doubleValue();
+        }
+    }
+
+    /**
+     * Replaces an int cell without boxing it.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @param value The new value.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws IllegalArgumentException If the position does not hold an int.
+     */
+    public void setInt(int row, int index, int value) {
+        checkCell(row, index);
+        checkReplaceKind(index, SlotKind.INT);
+        ((int[]) columns[index])[row] = value;
+    }
+
+    /**
+     * Replaces a long cell without boxing it.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @param value The new value.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws IllegalArgumentException If the position does not hold a long.
+     */
+    public void setLong(int row, int index, long value) {
+        checkCell(row, index);
+        checkReplaceKind(index, SlotKind.LONG);
+        ((long[]) columns[index])[row] = value;
+    }
+
+    /**
+     * Replaces a double cell without boxing it.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @param value The new value.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws IllegalArgumentException If the position does not hold a double.
+     */
+    public void setDouble(int row, int index, double value) {
+        checkCell(row, index);
+        checkReplaceKind(index, SlotKind.DOUBLE);
+        ((double[]) columns[index])[row] = value;
+    }
+
+    /**
+     * Checks that a value of the expected kind can replace the value at a
+     * position, the same way the primitive setters of tuples check it.
+     *
+     * @param index The position to be checked.
+     * @param kind  The kind of the new value.
+     * @throws IllegalArgumentException If the kinds differ.
+     */
+    private void checkReplaceKind(int index, SlotKind kind) {
+        if (schema.getKind(index) != kind) {
+            throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
+        }
+    }
+
+    /**
+     * Checks that a position has the expected kind.
+     *
+     * @param index The position to be checked.
+     * @param kind  The expected kind.
+     * @throws ClassCastException If the kinds differ.
+     */
+    private void checkKind(int index, SlotKind kind) {
+        if (schema.getKind(index) != kind) {
+            throw new ClassCastException("Position " + index + " does not hold " + kind + " values.");
+        }
+    }
+
+    /**
+     * Gets the backing column of an int position. Only the first
+     * {@link #getSize()} entries are in use, and writes go straight to the batch.
+     *
+     * @param index The desired position.
+     * @return The column of the position.
+     * @throws ClassCastException If the position does not hold ints.
+     */
+    public int[] intColumn(int index) {
+        checkKind(index, SlotKind.INT);
+        return (int[]) columns[index];
+    }
+
+    /**
+     * Gets the backing column of a long position. Only the first
+     * {@link #getSize()} entries are in use, and writes go straight to the batch.
+     *
+     * @param index The desired position.
+     * @return The column of the position.
+     * @throws ClassCastException If the position does not hold longs.
+     */
+    public long[] longColumn(int index) {
+        checkKind(index, SlotKind.LONG);
+        return (long[]) columns[index];
+    }
+
+    /**
+     * Gets the backing column of a double position. Only the first
+     * {@link #getSize()} entries are in use, and writes go straight to the batch.
+     *
+     * @param index The desired position.
+     * @return The column of the position.
+     * @throws ClassCastException If the position does not hold doubles.
+     */
+    public double[] doubleColumn(int index) {
+        checkKind(index, SlotKind.DOUBLE);
+        return (double[]) columns[index];
+    }
+
+    /**
+     * Gets the backing column of a reference position. Only the first
+     * {@link #getSize()} entries are in use, and writes go straight to the batch.
+     *
+     * @param index The desired position.
+     * @return The column of the position.
+     * @throws ClassCastException If the position does not hold references.
+     */
+    public Object[] referenceColumn(int index) {
+        checkKind(index, SlotKind.REFERENCE);
+        return (Object[]) columns[index];
+    }
+
+    /**
+     * Sums the values of a numeric position over all rows, scanning only its column.
+     *
+     * @param index The desired position.
+     * @return The sum of the values of the position.
+     * @throws ClassCastException If the position does not hold numbers.
+     */
+    public double sum(int index) {
+        double total = 0;
+        switch (schema.getKind(index)) {
+            case INT:
+                int[] ints = (int[]) columns[index];
+                for (int row = 0; row < size; row++) {
+                    total += ints[row];
+                }
+                return total;
+            case LONG:
+                long[] longs = (long[]) columns[index];
+                for (int row = 0; row < size; row++) {
+                    total += longs[row];
+                }
+                return total;
+            case DOUBLE:
+                double[] doubles = (double[]) columns[index];
+                for (int row = 0; row < size; row++) {
+                    total += doubles[row];
+                }
+                return total;
+            default:
+                for (int row = 0; row < size; row++) {
+                    total += ((Number) read(row, index)).doubleValue();
+                }
+                return total;
+        }
+    }
+
+    /**
+     * Copies a row into a new tuple. The reference values are shared, not cloned.
+     *
+     * @param row The desired row.
+     * @return A locked-size tuple of the schema type holding the values of the row.
+     * @throws IndexOutOfBoundsException If the row is invalid.
+     */
+    public Tuple<Object> getRow(int row) {
+        checkCell(row, 0);
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = read(row, i);
+        }
+        return schema.newTuple(values);
+    }
+
+    /**
+     * Copies every row into a new tuple, in order.
+     *
+     * @return A list with a locked-size tuple for each row.
+     */
+    public List<Tuple<Object>> toTuples() {
+        List<Tuple<Object>> tuples = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            tuples.add(getRow(row));
+        }
+        return tuples;
+    }
+}
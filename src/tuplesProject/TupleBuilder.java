@@ -0,0 +1,134 @@
+package tuplesProject;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Collects values to build tuples one after another.
+ * <p>
+ * The values are collected in a buffer that grows as needed and is reused for
+ * every tuple: building a tuple copies the buffer once into a tuple of the
+ * exact size and empties the builder, so many tuples can be built without
+ * intermediate lists or repeated growth. A builder is not thread-safe.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ TupleBuilder<Object> builder = new TupleBuilder<>();
+ Tuple<Object> first = builder.add("a").add(3).build();
+ Tuple<Object> second = builder.add("b").add(4).buildLinked();
+ }</pre>
+ *
+ * @param <V> The type of data stored in the tuples.
+ */
+public final class TupleBuilder<V> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Creates an empty builder.
+     */
+    public TupleBuilder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty builder.
+     *
+     * @param capacity The number of values the builder can hold before growing.
+     * @throws IllegalArgumentException If the capacity is negative.
+     */
+    public TupleBuilder(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity.");
+        }
+        values = new Object[capacity];
+    }
+
+    /**
+     * Grows the buffer, if needed, so it can hold the given number of values.
+     *
+     * @param capacity The minimum number of values the buffer must hold.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            int newCapacity = Math.max(capacity, values.length + (values.length >> 1) + 1);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    /**
+     * Adds a value to the tuple being built.
+     *
+     * @param value The value to be added.
+     * @return This builder for method chaining.
+     * @throws IllegalArgumentException If the value is an instance of Tuple.
+     */
+    public TupleBuilder<V> add(V value) {
+        IndexedTuple.checkNesting(value);
+        ensureCapacity(size + 1);
+        values[size++] = value;
+        return this;
+    }
+
+    /**
+     * Adds all the values of a collection to the tuple being built, in the
+     * order of its iterator.
+     *
+     * @param values The values to be added.
+     * @return This builder for method chaining.
+     * @throws IllegalArgumentException If any of the values is an instance of Tuple.
+     */
+    public TupleBuilder<V> addAll(Collection<? extends V> values) {
+        ensureCapacity(size + values.size());
+        for (V value : values) {
+            add(value);
+        }
+        return this;
+    }
+
+    /**
+     * Gets the number of values collected for the tuple being built.
+     *
+     * @return The number of values collected.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Discards the values collected for the tuple being built, keeping the buffer.
+     *
+     * @return This builder for method chaining.
+     */
+    public TupleBuilder<V> clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        return this;
+    }
+
+    /**
+     * Builds an array-backed tuple holding the collected values, and empties
+     * the builder. With no values, the tuple holds a single null value.
+     *
+     * @return The new tuple.
+     */
+    public ArrayTuple<V> build() {
+        ArrayTuple<V> tuple = ArrayTuple.adopt(Arrays.copyOf(values, size));
+        clear();
+        return tuple;
+    }
+
+    /**
+     * Builds a linked tuple holding the collected values, and empties the
+     * builder. With no values, the tuple holds a single null value.
+     *
+     * @return The new tuple.
+     */
+    public Tuple<V> buildLinked() {
+        Tuple<V> tuple = new Tuple<>(Arrays.asList(values).subList(0, size));
+        clear();
+        return tuple;
+    }
+}
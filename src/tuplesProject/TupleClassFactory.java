@@ -0,0 +1,75 @@
+package tuplesProject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+
+/**
+ * Defines a dedicated class for each registered typed tuple at runtime.
+ * <p>
+ * The class of a type is a hidden copy of the fixed-arity class matching its
+ * size, defined with {@link MethodHandles.Lookup#defineHiddenClassWithClassData}
+ * from the bytes of that class, with the {@link TupleSchema} of the type as
+ * class data. The copy keeps the schema in a constant, so replacements are
+ * checked against the classes of the type instead of the class of the value
+ * they replace. Since the constructor calls inside the copied bytes refer to
+ * the class itself, every tuple created from a specialized template, through
+ * {@code clone()}, the shallow copies of the registry or the rows built from
+ * values, is also an instance of the dedicated class, and each type gets its
+ * own profile at the call sites of its tuples.
+ * <p>
+ * Hidden classes are not strongly tied to their loader, so the class of a type
+ * can be unloaded once the type is replaced or removed and its tuples are gone.
+ * If the bytes of the fixed-arity classes cannot be read, templates are left as
+ * they are.
+ */
+final class TupleClassFactory {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * The bytes of each fixed-arity class, read once, or null if they are not available.
+     */
+    private static final ClassValue<byte[]> CLASS_BYTES = new ClassValue<>() {
+        @Override
+        protected byte[] computeValue(Class<?> fixedClass) {
+            try (InputStream input = fixedClass.getResourceAsStream(fixedClass.getSimpleName() + ".class")) {
+                return input == null ? null : input.readAllBytes();
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+    };
+
+    private TupleClassFactory() {
+    }
+
+    /**
+     * Creates a copy of a locked-size fixed-arity template as an instance of a
+     * class dedicated to its type. The values are not cloned.
+     *
+     * @param template The template registered for the type.
+     * @return The template as an instance of its dedicated class, or the template itself if it cannot be specialized.
+     * @throws IllegalStateException If the copy of the fixed-arity class cannot be defined or instantiated.
+     */
+    static FixedTuple<?> specialize(FixedTuple<?> template) {
+        if (template.getClass().isHidden() || !template.isLockedSize()) {
+            return template;
+        }
+        byte[] bytes = CLASS_BYTES.get(template.getClass());
+        if (bytes == null) {
+            return template;
+        }
+
+        try {
+            Class<?> hiddenClass = LOOKUP.defineHiddenClassWithClassData(bytes, TupleSchema.of(template), true)
+                    .lookupClass();
+            Constructor<?> constructor = hiddenClass.getConstructors()[0];
+            Object[] values = template.copyValues();
+            return template.copyLockTo((FixedTuple<?>) constructor.newInstance(values));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Unable to define the class of type " + template.getType() + ".", ex);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package tuplesProject;
+
+import java.util.Comparator;
+
+/**
+ * Orders tuples lexicographically: by their first values, then by their
+ * second values if the first are equal, and so on, with a tuple that is a
+ * prefix of another coming first. Null values come before any other value,
+ * and other values are compared through {@link Comparable}.
+ * <p>
+ * A comparator can be limited to the first positions of the tuples, so tuples
+ * with the same key prefix compare as equal. Linked tuples are compared by
+ * walking their chains side by side, never seeking a position from the start,
+ * and two indexed tuples are compared position by position through their
+ * storage, so tuples storing primitive values unboxed compare them without
+ * boxing.
+ * <p>
+ * The comparator of a registered type (see {@link Tuple#getComparator(String)})
+ * is compiled from the schema of the type when it is registered: each position
+ * gets an order chosen from its kind and class, so comparing values read from
+ * linked tuples does not inspect them to decide how to compare them. Numeric
+ * positions of two indexed tuples of the type are still compared through their
+ * storage, so only the tuples storing primitive values unboxed compare them
+ * without boxing.
+ */
+final class TupleComparator implements Comparator<Tuple<?>> {
+
+    /**
+     * The natural order of whole tuples.
+     */
+    static final TupleComparator NATURAL = new TupleComparator(null, null, Integer.MAX_VALUE);
+
+    private static final SlotOrder NATURAL_ORDER = new SlotOrder();
+
+    private final String type;
+    private final SlotOrder[] orders;
+    private final int length;
+
+    /**
+     * Creates a comparator.
+     *
+     * @param type   The type whose tuples are compared with the orders, or null.
+     * @param orders The order of each position, or null for the natural order of every position.
+     * @param length The number of positions compared.
+     */
+    private TupleComparator(String type, SlotOrder[] orders, int length) {
+        this.type = type;
+        this.orders = orders;
+        this.length = length;
+    }
+
+    /**
+     * Creates a comparator of the first positions of tuples, in their natural order.
+     *
+     * @param length The number of positions compared.
+     * @return The comparator.
+     * @throws IllegalArgumentException If the length is negative.
+     */
+    static TupleComparator prefix(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid length.");
+        }
+        return new TupleComparator(null, null, length);
+    }
+
+    /**
+     * Compiles the comparator of the tuples of a schema.
+     *
+     * @param schema The schema of the tuples.
+     * @return The comparator.
+     */
+    static TupleComparator of(TupleSchema schema) {
+        SlotOrder[] orders = new SlotOrder[schema.getSize()];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = SlotOrder.of(schema.getKind(i), schema.getSlotClass(i));
+        }
+        return new TupleComparator(schema.getType(), orders, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Compares two values in their natural order, with null first.
+     *
+     * @param first  The first value.
+     * @param second The second value.
+     * @return A negative number, zero or a positive number as the first value is less than, equal to or greater than the second.
+     * @throws ClassCastException If the values cannot be compared with each other.
+     */
+    // A value of another class makes compareTo throw the ClassCastException itself
+    @SuppressWarnings("unchecked")
+    static int compareValues(Object first, Object second) {
+        if (first == second) {
+            return 0;
+        }
+        if (first == null) {
+            return -1;
+        }
+        if (second == null) {
+            return 1;
+        }
+        if (!(first instanceof Comparable)) {
+            throw new ClassCastException("Values of " + first.getClass().getName() + " cannot be compared.");
+        }
+        return ((Comparable<Object>) first).compareTo(second);
+    }
+
+    @Override
+    public int compare(Tuple<?> first, Tuple<?> second) {
+        if (first instanceof IndexedTuple && second instanceof IndexedTuple) {
+            IndexedTuple<?> firstIndexed = (IndexedTuple<?>) first;
+            IndexedTuple<?> secondIndexed = (IndexedTuple<?>) second;
+            if (orders == null) {
+                return compareIndexed(firstIndexed, secondIndexed);
+            }
+            if (type.equals(first.getType()) && type.equals(second.getType())
+                    && first.getSize() == orders.length && second.getSize() == orders.length) {
+                return compareTyped(firstIndexed, secondIndexed);
+            }
+        }
+        return compareWalking(first, second);
+    }
+
+    /**
+     * Compares two indexed tuples in the natural order, through their storage.
+     */
+    private int compareIndexed(IndexedTuple<?> first, IndexedTuple<?> second) {
+        int firstSize = Math.min(first.getSize(), length);
+        int secondSize = Math.min(second.getSize(), length);
+        int count = Math.min(firstSize, secondSize);
+        for (int i = 0; i < count; i++) {
+            int result = first.compareSlot(i, second);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(firstSize, secondSize);
+    }
+
+    /**
+     * Compares two indexed tuples of the type of this comparator, with the
+     * order compiled for each position.
+     */
+    private int compareTyped(IndexedTuple<?> first, IndexedTuple<?> second) {
+        for (int i = 0; i < orders.length; i++) {
+            int result = orders[i].compareSlots(first, second, i);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Compares two tuples of any storage, walking linked tuples node by node.
+     */
+    private int compareWalking(Tuple<?> first, Tuple<?> second) {
+        boolean firstLinked = !(first instanceof IndexedTuple);
+        boolean secondLinked = !(second instanceof IndexedTuple);
+        int firstSize = firstLinked ? Integer.MAX_VALUE : first.getSize();
+        int secondSize = secondLinked ? Integer.MAX_VALUE : second.getSize();
+        Tuple<?> firstNode = first;
+        Tuple<?> secondNode = second;
+
+        for (int i = 0; i < length; i++) {
+            boolean firstEnded = firstLinked ? firstNode == null : i >= firstSize;
+            boolean secondEnded = secondLinked ? secondNode == null : i >= secondSize;
+            if (firstEnded || secondEnded) {
+                return Boolean.compare(secondEnded, firstEnded);
+            }
+
+            Object firstValue;
+            Object secondValue;
+            if (firstLinked) {
+                firstValue = firstNode.nodeValue();
+                firstNode = firstNode.nextNode();
+            } else {
+                firstValue = ((IndexedTuple<?>) first).slot(i);
+            }
+            if (secondLinked) {
+                secondValue = secondNode.nodeValue();
+                secondNode = secondNode.nextNode();
+            } else {
+                secondValue = ((IndexedTuple<?>) second).slot(i);
+            }
+
+            SlotOrder order = orders != null && i < orders.length ? orders[i] : NATURAL_ORDER;
+            int result = order.compareValues(firstValue, secondValue);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The order of the values at a position. The natural order leaves the
+     * comparison to the storage of the tuples; the other orders are chosen for
+     * the kind and class of a position of a schema.
+     */
+    private static class SlotOrder {
+
+        /**
+         * Chooses the order of a position of a schema.
+         *
+         * @param kind      The kind of the position.
+         * @param slotClass The class of the values at the position.
+         * @return The order of the position.
+         */
+        static SlotOrder of(SlotKind kind, Class<?> slotClass) {
+            switch (kind) {
+                case INT:
+                case SHORT:
+                case BYTE:
+                    return new IntOrder();
+                case LONG:
+                    return new LongOrder();
+                case FLOAT:
+                case DOUBLE:
+                    return new DoubleOrder();
+                default:
+                    return slotClass == String.class ? new StringOrder() : NATURAL_ORDER;
+            }
+        }
+
+        /**
+         * Compares two values read from a position.
+         */
+        int compareValues(Object first, Object second) {
+            return TupleComparator.compareValues(first, second);
+        }
+
+        /**
+         * Compares the values at a position of two indexed tuples, reading them
+         * from their storage. The numeric orders keep this comparison, which
+         * reads the raw slots of the tuples storing primitive values unboxed.
+         */
+        int compareSlots(IndexedTuple<?> first, IndexedTuple<?> second, int index) {
+            return first.compareSlot(index, second);
+        }
+    }
+
+    private static final class IntOrder extends SlotOrder {
+
+        @Override
+        int compareValues(Object first, Object second) {
+            if (first instanceof Integer && second instanceof Integer) {
+                return Integer.compare((Integer) first, (Integer) second);
+            }
+            return super.compareValues(first, second);
+        }
+    }
+
+    private static final class LongOrder extends SlotOrder {
+
+        @Override
+        int compareValues(Object first, Object second) {
+            if (first instanceof Long && second instanceof Long) {
+                return Long.compare((Long) first, (Long) second);
+            }
+            return super.compareValues(first, second);
+        }
+    }
+
+    private static final class DoubleOrder extends SlotOrder {
+
+        @Override
+        int compareValues(Object first, Object second) {
+            if (first instanceof Double && second instanceof Double) {
+                return Double.compare((Double) first, (Double) second);
+            }
+            return super.compareValues(first, second);
+        }
+    }
+
+    private static final class StringOrder extends SlotOrder {
+
+        @Override
+        int compareValues(Object first, Object second) {
+            if (first instanceof String && second instanceof String) {
+                return ((String) first).compareTo((String) second);
+            }
+            return super.compareValues(first, second);
+        }
+
+        @Override
+        int compareSlots(IndexedTuple<?> first, IndexedTuple<?> second, int index) {
+            return compareValues(first.slot(index), second.slot(index));
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package tuplesProject;
+
+import java.security.SecureRandom;
+
+/**
+ * Computes well-mixed 64-bit and 32-bit hashes of tuples, for hash tables,
+ * sketches and partitioners holding many tuples.
+ * <p>
+ * {@link Tuple#hashCode()} follows the contract of {@link java.util.List}, a
+ * polynomial in 31 over the hash codes of the values, so tuples of small
+ * numbers and short strings collide often and fill only the low bits. A hasher
+ * instead folds every value into a 64-bit state with a wide multiplication
+ * whose high and low halves are combined, in the style of wyhash, and ends
+ * with a full avalanche of the state.
+ * <p>
+ * Numbers are hashed from their bits, and strings from their characters, so
+ * tuples storing primitive values unboxed ({@link IntTuple}, {@link LongTuple},
+ * {@link DoubleTuple}, {@link MixedTuple}) are hashed without boxing, and equal
+ * tuples hash the same whatever their storage. The {@link SlotKind} of each
+ * primitive value is folded in with its bits, so values of different kinds
+ * with the same bits, such as {@code 1} and {@code 1L}, which are never equal,
+ * do not hash the same either. Other values contribute their
+ * {@code hashCode()}. Every hasher has a seed mixed into each step: hashers
+ * built with {@link #randomSeed()} resist inputs crafted to collide, and
+ * hashers with different seeds give independent hashes, as sketches need.
+ * <p>
+ * A hasher holds no mutable state, so one instance can be shared by any number
+ * of threads.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ TupleHasher hasher = TupleHasher.randomSeed();
+ long hash = hasher.hash64(new Tuple<>("a").ap(3));
+ int partition = hasher.partition(new Tuple<>("a").ap(3), 16);
+ }</pre>
+ */
+public final class TupleHasher {
+
+    /**
+     * A hasher with a fixed seed, giving the same hashes in every run.
+     */
+    public static final TupleHasher DEFAULT = new TupleHasher(0);
+
+    private static final long P0 = 0xa0761d6478bd642fL;
+    private static final long P1 = 0xe7037ed1a0b428dbL;
+    private static final long P2 = 0x8ebc6af09c88c6e3L;
+    private static final long P3 = 0x589965cc75374cc3L;
+
+    /**
+     * A constant per {@link SlotKind}, by ordinal, folded into the state with
+     * the bits of the primitive values of that kind.
+     */
+    private static final long[] KIND_SALTS = new long[SlotKind.values().length];
+
+    static {
+        for (int i = 0; i < KIND_SALTS.length; i++) {
+            KIND_SALTS[i] = avalanche(P0 * (i + 1));
+        }
+    }
+
+    private final long seed;
+    private final long secret;
+
+    private TupleHasher(long seed) {
+        this.seed = seed;
+        this.secret = avalanche(seed ^ P3) | 1L;
+    }
+
+    /**
+     * Creates a hasher with the given seed. Hashers with the same seed give the
+     * same hashes.
+     *
+     * @param seed The seed of the hasher.
+     * @return The hasher.
+     */
+    public static TupleHasher withSeed(long seed) {
+        return new TupleHasher(seed);
+    }
+
+    /**
+     * Creates a hasher with a seed drawn from a strong source of randomness,
+     * so its hashes cannot be predicted from outside the program.
+     *
+     * @return The hasher.
+     */
+    public static TupleHasher randomSeed() {
+        return new TupleHasher(new SecureRandom().nextLong());
+    }
+
+    /**
+     * Gets the seed of the hasher.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Computes the 64-bit hash of a tuple, from the given node to its end.
+     *
+     * @param tuple The tuple to be hashed.
+     * @return The hash of the tuple.
+     */
+    public long hash64(Tuple<?> tuple) {
+        return tuple.hashWith(this, seed ^ P0);
+    }
+
+    /**
+     * Computes the 32-bit hash of a tuple, folding both halves of its 64-bit hash.
+     *
+     * @param tuple The tuple to be hashed.
+     * @return The hash of the tuple.
+     */
+    public int hash32(Tuple<?> tuple) {
+        long hash = hash64(tuple);
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Maps a tuple to one of several partitions, spreading tuples evenly. The
+     * high bits of the hash pick the partition, with a multiplication instead
+     * of a division.
+     *
+     * @param tuple      The tuple to be placed.
+     * @param partitions The number of partitions.
+     * @return The partition of the tuple, from 0 to {@code partitions - 1}.
+     * @throws IllegalArgumentException If the number of partitions is not positive.
+     */
+    public int partition(Tuple<?> tuple, int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Invalid number of partitions.");
+        }
+        return (int) (((hash64(tuple) >>> 32) * partitions) >>> 32);
+    }
+
+    /**
+     * Ends a hash, folding in the number of values and mixing every bit of the
+     * state into every bit of the result.
+     *
+     * @param state The state after the last value.
+     * @param size  The number of values hashed.
+     * @return The hash.
+     */
+    long finish(long state, int size) {
+        return avalanche(multiplyMix(state ^ secret, size ^ P2));
+    }
+
+    /**
+     * Folds a value into the state of a hash.
+     *
+     * @param state The current state.
+     * @param value The value, possibly null.
+     * @return The new state.
+     */
+    long mix(long state, Object value) {
+        if (value == null) {
+            return mixLong(state, P3);
+        }
+        if (value instanceof String) {
+            return mixString(state, (String) value);
+        }
+        SlotKind kind = SlotKind.of(value.getClass());
+        if (kind.isPrimitive()) {
+            return mixBits(state, kind, kind.toBits(value));
+        }
+        return mixLong(state, value.hashCode());
+    }
+
+    /**
+     * Folds a primitive value, given as raw bits of its kind, into the state of
+     * a hash, together with its kind. Floating point values are hashed the way
+     * they are compared by {@code equals}, with a single NaN.
+     *
+     * @param state The current state.
+     * @param kind  The kind of the value.
+     * @param bits  The raw bits of the value.
+     * @return The new state.
+     */
+    long mixBits(long state, SlotKind kind, long bits) {
+        switch (kind) {
+            case FLOAT:
+                bits = Float.floatToIntBits(Float.intBitsToFloat((int) bits));
+                break;
+            case DOUBLE:
+                bits = Double.doubleToLongBits(Double.longBitsToDouble(bits));
+                break;
+            default:
+                break;
+        }
+        return mixLong(state ^ KIND_SALTS[kind.ordinal()], bits);
+    }
+
+    /**
+     * Folds 64 bits into the state of a hash.
+     *
+     * @param state The current state.
+     * @param value The bits to be folded.
+     * @return The new state.
+     */
+    long mixLong(long state, long value) {
+        return multiplyMix(state ^ P1, value ^ secret);
+    }
+
+    /**
+     * Folds the characters of a string into the state of a hash, four at a
+     * time, followed by its length.
+     *
+     * @param state The current state.
+     * @param value The string.
+     * @return The new state.
+     */
+    private long mixString(long state, String value) {
+        int length = value.length();
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            state = mixLong(state, value.charAt(i) | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32 | (long) value.charAt(i + 3) << 48);
+        }
+        long tail = 0;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            tail |= (long) value.charAt(i) << shift;
+        }
+        return mixLong(mixLong(state, tail), length);
+    }
+
+    /**
+     * Multiplies two values into 128 bits and combines both halves.
+     *
+     * @param a The first value.
+     * @param b The second value.
+     * @return The exclusive or of the high and low halves of the product.
+     */
+    private static long multiplyMix(long a, long b) {
+        // Math.multiplyHigh is signed, so it is corrected to the unsigned high half
+        long high = Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+        return high ^ (a * b);
+    }
+
+    /**
+     * Mixes every bit of a value into every bit of the result, with the
+     * finalizer of SplitMix64.
+     *
+     * @param value The value to be mixed.
+     * @return The mixed value.
+     */
+    private static long avalanche(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
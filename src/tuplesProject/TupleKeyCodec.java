@@ -0,0 +1,408 @@
+package tuplesProject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes tuples into byte sequences whose unsigned lexicographic order is
+ * the natural order of the tuples (see {@link Tuple#compareTo(Tuple)}), and
+ * decodes them back.
+ * <p>
+ * Each value is written as a tag byte followed by its bytes:
+ * <ul>
+ * <li>null is the tag alone, the lowest tag, so nulls come first;</li>
+ * <li>numbers, characters and booleans are written big-endian in their own
+ * width, with the sign bit flipped; negative floating point values have all
+ * their bits flipped, so they follow the order of {@link Double#compare};</li>
+ * <li>strings are written character by character in one to three bytes, no
+ * character starting with a zero byte, and end with a zero byte, so a string
+ * comes before any longer string it starts.</li>
+ * </ul>
+ * Values at the same position are only ordered among values of the same class,
+ * as in the natural order; values of different classes are told apart by their
+ * tags. The encoding of the first positions of a tuple is a prefix of the
+ * encoding of the whole tuple, so a shorter tuple comes before the longer
+ * tuples it starts, and a range of keys sharing a prefix can be scanned.
+ * <p>
+ * Keys are compared with {@link Arrays#compareUnsigned(byte[], byte[])}, and
+ * their first difference found with {@link Arrays#mismatch(byte[], byte[])},
+ * with no decoding.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ byte[] key = new Tuple<>("a").ap(3).encodeKey();
+ Tuple<Object> decoded = Tuple.decodeKey(key);
+ }</pre>
+ */
+public final class TupleKeyCodec {
+
+    private static final byte NULL = 0x01;
+    private static final byte BOOLEAN = 0x10;
+    private static final byte BYTE = 0x11;
+    private static final byte SHORT = 0x12;
+    private static final byte CHAR = 0x13;
+    private static final byte INT = 0x14;
+    private static final byte LONG = 0x15;
+    private static final byte FLOAT = 0x16;
+    private static final byte DOUBLE = 0x17;
+    private static final byte STRING = 0x20;
+
+    /**
+     * The byte ending a string, lower than the first byte of any character.
+     */
+    private static final byte STRING_END = 0x00;
+
+    /**
+     * The first characters taking two and three bytes.
+     */
+    private static final int TWO_BYTES = 0x7F;
+    private static final int THREE_BYTES = TWO_BYTES + 0x2000;
+
+    private TupleKeyCodec() {
+    }
+
+    /**
+     * Encodes the first positions of a tuple.
+     *
+     * @param tuple  The tuple to be encoded.
+     * @param length The number of positions encoded; positions beyond the end of the tuple are ignored.
+     * @return The key of the tuple.
+     * @throws IllegalArgumentException If the length is negative, or a value is not a number, character, boolean, string or null.
+     */
+    public static byte[] encode(Tuple<?> tuple, int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid length.");
+        }
+        Output output = new Output();
+        if (tuple instanceof IndexedTuple) {
+            IndexedTuple<?> indexed = (IndexedTuple<?>) tuple;
+            int count = Math.min(length, indexed.getSize());
+            for (int i = 0; i < count; i++) {
+                SlotKind kind = indexed.slotKind(i);
+                if (kind.isPrimitive()) {
+                    writePrimitive(output, kind, indexed.slotBits(i));
+                } else {
+                    writeValue(output, indexed.slot(i));
+                }
+            }
+        } else {
+            Tuple<?> node = tuple;
+            for (int i = 0; i < length && node != null; i++) {
+                writeValue(output, node.nodeValue());
+                node = node.nextNode();
+            }
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes a key into a linked tuple.
+     *
+     * @param key The key, as returned by {@link #encode(Tuple, int)}.
+     * @return A tuple holding the values of the key.
+     * @throws IllegalArgumentException If the bytes are not a key holding at least one value.
+     */
+    public static Tuple<Object> decode(byte[] key) {
+        return decode(key, 0, key.length);
+    }
+
+    /**
+     * Decodes the key stored in a range of an array into a linked tuple.
+     *
+     * @param bytes The array holding the key.
+     * @param from  The first byte of the key.
+     * @param to    The end of the key, exclusive.
+     * @return A tuple holding the values of the key.
+     * @throws IllegalArgumentException If the bytes are not a key holding at least one value.
+     */
+    public static Tuple<Object> decode(byte[] bytes, int from, int to) {
+        if (from < 0 || to > bytes.length || from >= to) {
+            throw new IllegalArgumentException("Invalid key.");
+        }
+        List<Object> values = new ArrayList<>();
+        int position = from;
+        try {
+            while (position < to) {
+                byte tag = bytes[position++];
+                switch (tag) {
+                    case NULL:
+                        values.add(null);
+                        break;
+                    case STRING:
+                        StringBuilder string = new StringBuilder();
+                        position = readString(bytes, position, to, string);
+                        values.add(string.toString());
+                        break;
+                    default:
+                        SlotKind kind = kindOf(tag);
+                        int width = width(kind);
+                        if (position + width > to) {
+                            throw new IllegalArgumentException("Invalid key.");
+                        }
+                        long sortable = 0;
+                        for (int i = 0; i < width; i++) {
+                            sortable = (sortable << 8) | (bytes[position++] & 0xFF);
+                        }
+                        values.add(kind.fromBits(fromSortable(kind, sortable)));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Invalid key.", ex);
+        }
+        return new Tuple<>(values);
+    }
+
+    /**
+     * Compares two keys, in the order of the tuples they encode.
+     *
+     * @param first  The first key.
+     * @param second The second key.
+     * @return A negative number, zero or a positive number as the first key is less than, equal to or greater than the second.
+     */
+    public static int compare(byte[] first, byte[] second) {
+        return Arrays.compareUnsigned(first, second);
+    }
+
+    /**
+     * Writes a value with its tag.
+     */
+    private static void writeValue(Output output, Object value) {
+        if (value == null) {
+            output.write(NULL);
+            return;
+        }
+        if (value instanceof String) {
+            output.write(STRING);
+            writeString(output, (String) value);
+            return;
+        }
+        SlotKind kind = SlotKind.of(value.getClass());
+        if (!kind.isPrimitive()) {
+            throw new IllegalArgumentException("Values of " + value.getClass().getName() + " cannot be encoded.");
+        }
+        writePrimitive(output, kind, kind.toBits(value));
+    }
+
+    /**
+     * Writes a primitive value, given as raw bits of its kind, with its tag.
+     */
+    private static void writePrimitive(Output output, SlotKind kind, long bits) {
+        output.write(tagOf(kind));
+        long sortable = sortableBits(kind, bits);
+        for (int shift = (width(kind) - 1) * 8; shift >= 0; shift -= 8) {
+            output.write((byte) (sortable >>> shift));
+        }
+    }
+
+    /**
+     * Writes the characters of a string and the byte ending it.
+     */
+    private static void writeString(Output output, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < TWO_BYTES) {
+                output.write((byte) (c + 1));
+            } else if (c < THREE_BYTES) {
+                int offset = c - TWO_BYTES;
+                output.write((byte) (0x80 | (offset >>> 8)));
+                output.write((byte) offset);
+            } else {
+                int offset = c - THREE_BYTES;
+                output.write((byte) 0xA0);
+                output.write((byte) (offset >>> 8));
+                output.write((byte) offset);
+            }
+        }
+        output.write(STRING_END);
+    }
+
+    /**
+     * Reads the characters of a string up to the byte ending it.
+     *
+     * @return The position after the end of the string.
+     */
+    private static int readString(byte[] bytes, int position, int to, StringBuilder string) {
+        while (true) {
+            if (position >= to) {
+                throw new IllegalArgumentException("Invalid key.");
+            }
+            int first = bytes[position++] & 0xFF;
+            if (first == STRING_END) {
+                return position;
+            }
+            if (first < 0x80) {
+                string.append((char) (first - 1));
+            } else if (first < 0xA0) {
+                string.append((char) (TWO_BYTES + (((first & 0x1F) << 8) | (bytes[position++] & 0xFF))));
+            } else {
+                int offset = ((bytes[position++] & 0xFF) << 8) | (bytes[position++] & 0xFF);
+                string.append((char) (THREE_BYTES + offset));
+            }
+        }
+    }
+
+    /**
+     * Converts raw bits of a kind into bits whose unsigned order, in the width
+     * of the kind, is the order of the values.
+     *
+     * @param kind The kind of the value.
+     * @param bits The raw bits of the value.
+     * @return The sortable bits, in the lowest bytes.
+     */
+    static long sortableBits(SlotKind kind, long bits) {
+        switch (kind) {
+            case BOOLEAN:
+            case CHAR:
+                return bits;
+            case BYTE:
+                return (bits ^ 0x80) & 0xFFL;
+            case SHORT:
+                return (bits ^ 0x8000) & 0xFFFFL;
+            case INT:
+                return (bits ^ 0x80000000L) & 0xFFFFFFFFL;
+            case FLOAT:
+                int floatBits = Float.floatToIntBits(Float.intBitsToFloat((int) bits));
+                // Negative values are reversed, positive values are moved above them
+                return (floatBits ^ ((floatBits >> 31) | Integer.MIN_VALUE)) & 0xFFFFFFFFL;
+            case DOUBLE:
+                long doubleBits = Double.doubleToLongBits(Double.longBitsToDouble(bits));
+                return doubleBits ^ ((doubleBits >> 63) | Long.MIN_VALUE);
+            default:
+                return bits ^ Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Converts sortable bits back into raw bits of a kind.
+     */
+    private static long fromSortable(SlotKind kind, long sortable) {
+        switch (kind) {
+            case BOOLEAN:
+            case CHAR:
+                return sortable;
+            case BYTE:
+                return (byte) (sortable ^ 0x80);
+            case SHORT:
+                return (short) (sortable ^ 0x8000);
+            case INT:
+                return (int) (sortable ^ 0x80000000L);
+            case FLOAT:
+                int floatBits = (int) sortable;
+                return floatBits < 0 ? floatBits ^ Integer.MIN_VALUE : ~floatBits;
+            case DOUBLE:
+                return sortable < 0 ? sortable ^ Long.MIN_VALUE : ~sortable;
+            default:
+                return sortable ^ Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Gets the first eight bytes of the encoding of a string, without its
+     * tag, as a number whose unsigned order is the order of the strings that
+     * differ in those bytes.
+     *
+     * @param value The string.
+     * @return The first eight bytes, big-endian, padded with zeros.
+     */
+    static long stringPrefix(String value) {
+        Output output = new Output();
+        writeString(output, value);
+        long prefix = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            prefix = (prefix << 8) | (i < output.size ? output.bytes[i] & 0xFF : 0);
+        }
+        return prefix;
+    }
+
+    /**
+     * Checks whether the prefix of a string holds its whole encoding, so that
+     * strings with equal prefixes are equal.
+     *
+     * @param value The string.
+     * @return {@code true} if the encoding of the string, with the byte ending it, takes at most eight bytes.
+     */
+    static boolean isWholeInPrefix(String value) {
+        int length = value.length();
+        if (length >= Long.BYTES) {
+            return false;
+        }
+        int size = 1;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            size += c < TWO_BYTES ? 1 : (c < THREE_BYTES ? 2 : 3);
+        }
+        return size <= Long.BYTES;
+    }
+
+    private static byte tagOf(SlotKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return BOOLEAN;
+            case BYTE:
+                return BYTE;
+            case SHORT:
+                return SHORT;
+            case CHAR:
+                return CHAR;
+            case INT:
+                return INT;
+            case LONG:
+                return LONG;
+            case FLOAT:
+                return FLOAT;
+            default:
+                return DOUBLE;
+        }
+    }
+
+    private static SlotKind kindOf(byte tag) {
+        switch (tag) {
+            case BOOLEAN:
+                return SlotKind.BOOLEAN;
+            case BYTE:
+                return SlotKind.BYTE;
+            case SHORT:
+                return SlotKind.SHORT;
+            case CHAR:
+                return SlotKind.CHAR;
+            case INT:
+                return SlotKind.INT;
+            case LONG:
+                return SlotKind.LONG;
+            case FLOAT:
+                return SlotKind.FLOAT;
+            case DOUBLE:
+                return SlotKind.DOUBLE;
+            default:
+                throw new IllegalArgumentException("Invalid key.");
+        }
+    }
+
+    /**
+     * Gets the number of bytes of a primitive value of a kind in a key.
+     */
+    private static int width(SlotKind kind) {
+        return kind == SlotKind.BOOLEAN ? 1 : kind.byteSize();
+    }
+
+    /**
+     * A growable array of bytes.
+     */
+    private static final class Output {
+
+        private byte[] bytes = new byte[32];
+        private int size;
+
+        void write(byte value) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size << 1);
+            }
+            bytes[size++] = value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
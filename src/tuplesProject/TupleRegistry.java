@@ -0,0 +1,158 @@
+package tuplesProject;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The global registry of typed tuples.
+ * <p>
+ * Every type name is resolved once to a compact integer id, which stays the
+ * same for as long as the program runs, even if the type is removed and later
+ * registered again. The entries are kept in an array indexed by id that is
+ * never modified in place: writers build a new array and publish it through a
+ * volatile field, so readers only ever do a volatile read and an array access,
+ * never wait for writers and never see a half-registered type. Writers are
+ * serialized among themselves, which is fine since types are registered rarely
+ * compared with how often they are read.
+ */
+final class TupleRegistry {
+
+    private static final ConcurrentHashMap<String, Integer> typeIds = new ConcurrentHashMap<>();
+    private static final Object writeLock = new Object();
+    private static volatile TupleType[] entries = new TupleType[16];
+    private static int nextId;
+
+    private TupleRegistry() {
+    }
+
+    /**
+     * Gets the id of a type name, assigning a new one if the name was never seen.
+     * Must be called while holding the write lock.
+     *
+     * @param type The type name.
+     * @return The id of the type.
+     */
+    private static int assignId(String type) {
+        Integer id = typeIds.get(type);
+        if (id == null) {
+            id = nextId++;
+            typeIds.put(type, id);
+        }
+        return id;
+    }
+
+    /**
+     * Publishes a new version of the entries with the given entry at an id.
+     * Must be called while holding the write lock.
+     *
+     * @param id    The id of the type.
+     * @param entry The new entry of the type, or null to remove it.
+     */
+    private static void publish(int id, TupleType entry) {
+        TupleType[] current = entries;
+        int length = id < current.length ? current.length : Math.max(id + 1, current.length << 1);
+        TupleType[] updated = Arrays.copyOf(current, length);
+        updated[id] = entry;
+        entries = updated;
+    }
+
+    /**
+     * Registers an entry for a type, unless the type is already registered.
+     *
+     * @param type  The type name.
+     * @param entry The entry of the type.
+     * @return {@code true} if the entry was registered.
+     */
+    static boolean add(String type, TupleType entry) {
+        synchronized (writeLock) {
+            int id = assignId(type);
+            if (get(id) != null) {
+                return false;
+            }
+            publish(id, entry);
+            return true;
+        }
+    }
+
+    /**
+     * Registers an entry for a type, replacing the current one if there is one.
+     * Readers see either the old or the new entry, never a mix of both.
+     *
+     * @param type  The type name.
+     * @param entry The new entry of the type.
+     */
+    static void put(String type, TupleType entry) {
+        synchronized (writeLock) {
+            publish(assignId(type), entry);
+        }
+    }
+
+    /**
+     * Removes the entry of a type. The id of the type is kept for future use.
+     *
+     * @param type The type name.
+     * @return {@code true} if the type was registered.
+     */
+    static boolean remove(String type) {
+        Integer id = type == null ? null : typeIds.get(type);
+        if (id == null) {
+            return false;
+        }
+        synchronized (writeLock) {
+            if (get(id) == null) {
+                return false;
+            }
+            publish(id, null);
+            return true;
+        }
+    }
+
+    /**
+     * Gets the id of a registered type.
+     *
+     * @param type The type name.
+     * @return The id of the type, or -1 if it is not registered.
+     */
+    static int idOf(String type) {
+        Integer id = type == null ? null : typeIds.get(type);
+        return id == null || get(id) == null ? -1 : id;
+    }
+
+    /**
+     * Gets the entry of a type by its id.
+     *
+     * @param id The id of the type.
+     * @return The entry of the type, or null if it is not registered.
+     */
+    static TupleType get(int id) {
+        TupleType[] current = entries;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * Gets the entry of a type by its name.
+     *
+     * @param type The type name.
+     * @return The entry of the type, or null if it is not registered.
+     */
+    static TupleType get(String type) {
+        Integer id = type == null ? null : typeIds.get(type);
+        return id == null ? null : get(id);
+    }
+
+    /**
+     * Passes every registered type and its entry to an action, as registered
+     * when the pass started.
+     *
+     * @param action The action to be performed for each type.
+     */
+    static void forEach(BiConsumer<String, TupleType> action) {
+        TupleType[] current = entries;
+        typeIds.forEach((type, id) -> {
+            if (id < current.length && current[id] != null) {
+                action.accept(type, current[id]);
+            }
+        });
+    }
+}
@@ -0,0 +1,203 @@
+package tuplesProject;
+
+import java.util.Arrays;
+
+/**
+ * The slot layout of a locked-size typed tuple: its type, its size and the
+ * kind and class of the value at each position.
+ * <p>
+ * A schema is captured from a locked-size tuple, usually the one registered
+ * with {@link Tuple#setTypedTuple(Tuple)}, and lets stores that hold many tuples
+ * of the same type lay their values out without looking at each value.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ Tuple.setTypedTuple(new Tuple("").ap(0).lockSize("String-Integer Tuple"));
+ TupleSchema schema = TupleSchema.forType("String-Integer Tuple");
+ }</pre>
+ */
+public final class TupleSchema {
+
+    private final String type;
+    private final SlotKind[] kinds;
+    private final Class<?>[] slotClasses;
+
+    /**
+     * Creates a schema from its parts.
+     *
+     * @param type        The type of the tuples.
+     * @param kinds       The kind of each position.
+     * @param slotClasses The class of the values at each position.
+     */
+    private TupleSchema(String type, SlotKind[] kinds, Class<?>[] slotClasses) {
+        this.type = type;
+        this.kinds = kinds;
+        this.slotClasses = slotClasses;
+    }
+
+    /**
+     * Captures the schema of a locked-size tuple from its current values.
+     * A null value makes its position a reference accepting any class.
+     *
+     * @param tuple The locked-size tuple.
+     * @return The schema of the tuple.
+     * @throws IllegalArgumentException If the tuple is not locked-size.
+     */
+    public static TupleSchema of(Tuple<?> tuple) {
+        if (!tuple.isLockedSize()) {
+            throw new IllegalArgumentException("A schema can only be captured from a locked-size tuple.");
+        }
+        Object[] values = tuple.toArray();
+        SlotKind[] kinds = new SlotKind[values.length];
+        Class<?>[] slotClasses = new Class<?>[values.length];
+
+        for (int i = 0; i < values.length; i++) {
+            kinds[i] = SlotKind.of(values[i]);
+            slotClasses[i] = values[i] == null ? Object.class : values[i].getClass();
+        }
+        return new TupleSchema(tuple.getType(), kinds, slotClasses);
+    }
+
+    /**
+     * Captures the schema of the tuple registered for the given type.
+     *
+     * @param type The type of the registered tuple.
+     * @return The schema of the registered tuple.
+     * @throws IllegalArgumentException If no tuple is registered for the type.
+     */
+    public static TupleSchema forType(String type) {
+        Tuple<?> template = Tuple.getTemplate(type);
+        if (template == null) {
+            throw new IllegalArgumentException("No tuple registered for type " + type + ".");
+        }
+        return of(template);
+    }
+
+    /**
+     * Gets the type of the tuples following this schema.
+     *
+     * @return The type of the tuples.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Gets the number of positions of the tuples following this schema.
+     *
+     * @return The size of the tuples.
+     */
+    public int getSize() {
+        return kinds.length;
+    }
+
+    /**
+     * Gets the kind of the value at a position.
+     *
+     * @param index The desired position.
+     * @return The kind of the position.
+     * @throws ArrayIndexOutOfBoundsException If the index is invalid.
+     */
+    public SlotKind getKind(int index) {
+        return kinds[index];
+    }
+
+    /**
+     * Gets the class of the values at a position.
+     *
+     * @param index The desired position.
+     * @return The class of the position.
+     * @throws ArrayIndexOutOfBoundsException If the index is invalid.
+     */
+    public Class<?> getSlotClass(int index) {
+        return slotClasses[index];
+    }
+
+    /**
+     * Checks whether a value can be stored at a position.
+     *
+     * @param index The desired position.
+     * @param value The value to be checked.
+     * @return {@code true} if the value fits the position.
+     */
+    public boolean accepts(int index, Object value) {
+        if (kinds[index].isPrimitive()) {
+            return kinds[index].boxedType().isInstance(value);
+        }
+        return value == null || slotClasses[index].isInstance(value);
+    }
+
+    /**
+     * Checks that a value can be stored at a position.
+     *
+     * @param index The desired position.
+     * @param value The value to be checked.
+     * @throws IllegalArgumentException If the value does not fit the position.
+     */
+    void checkValue(int index, Object value) {
+        if (!accepts(index, value)) {
+            throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
+        }
+    }
+
+    /**
+     * Checks that the values of a tuple follow this schema.
+     *
+     * @param values The values of the tuple.
+     * @throws IllegalArgumentException If the size or any of the values does not fit the schema.
+     */
+    void checkValues(Object[] values) {
+        if (values.length != kinds.length) {
+            throw new IllegalArgumentException("The tuple does not have the size of type " + type + ".");
+        }
+        for (int i = 0; i < values.length; i++) {
+            checkValue(i, values[i]);
+        }
+    }
+
+    /**
+     * Creates a locked-size tuple of this type holding the given values, as a
+     * fixed-arity tuple when the size allows it. The values are not cloned.
+     *
+     * @param values The values of the tuple.
+     * @return A new tuple holding the values.
+     */
+    Tuple<Object> newTuple(Object[] values) {
+        Tuple<Object> tuple = FixedTuple.ofValues(values);
+        if (tuple == null) {
+            tuple = new ArrayTuple<>(Arrays.asList(values));
+        }
+        tuple.lockSize(type);
+        return tuple;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TupleSchema)) {
+            return false;
+        }
+        TupleSchema other = (TupleSchema) obj;
+        return type.equals(other.type) && Arrays.equals(kinds, other.kinds)
+                && Arrays.equals(slotClasses, other.slotClasses);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type.hashCode() + Arrays.hashCode(slotClasses);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder(type).append("(");
+        for (int i = 0; i < slotClasses.length; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(slotClasses[i].getSimpleName());
+        }
+        return result.append(")").toString();
+    }
+}
@@ -0,0 +1,581 @@
+package tuplesProject;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An off-heap store of locked-size typed tuples that share a {@link TupleSchema}.
+ * <p>
+ * Every tuple is a fixed-size row of direct memory, with each position packed
+ * as raw bytes of its {@link SlotKind}. Reference values, such as strings, are
+ * kept in an on-heap table and the row only stores their handle, so the garbage
+ * collector sees a few buffers and one table instead of a graph of nodes per
+ * tuple.
+ * <p>
+ * The rows are split into chunks of at most {@value #CHUNK_BYTES} bytes, each
+ * holding the same power-of-two number of rows, so a segment is not limited to
+ * the 2 GB of a single buffer and growing it adds a chunk instead of copying
+ * every row. Only a first chunk smaller than the others is copied as it grows.
+ * <p>
+ * Rows are read and written through {@link View}s, flyweight tuples that can be
+ * moved from row to row. The chunks are direct buffers, so there is no way to
+ * free them on demand: their memory is released when the garbage collector
+ * reclaims a segment that is no longer reachable, like any other direct buffer.
+ * A segment is not thread-safe.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ TupleSegment segment = TupleSegment.forType("String-Integer Tuple", 1_000_000);
+ segment.append(Tuple.getTypedTuple("String-Integer Tuple").set("Text").set(5));
+ int count = segment.getInt(0, 1);
+ }</pre>
+ */
+public final class TupleSegment {
+
+    /**
+     * The maximum number of bytes of a chunk.
+     */
+    static final int CHUNK_BYTES = 1 << 24;
+
+    private final TupleSchema schema;
+    private final int[] offsets;
+    private final int stride;
+    private final int chunkShift;
+    private final int chunkMask;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final List<Object> references = new ArrayList<>();
+    private int capacity;
+    private int size;
+
+    /**
+     * Creates an empty segment for tuples of the given schema.
+     *
+     * @param schema   The schema of the tuples to be stored.
+     * @param capacity The number of tuples the segment can hold before growing.
+     * @throws IllegalArgumentException If the capacity is not positive.
+     */
+    public TupleSegment(TupleSchema schema, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity.");
+        }
+        this.schema = schema;
+        offsets = new int[schema.getSize()];
+
+        int offset = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = offset;
+            offset += schema.getKind(i).byteSize();
+        }
+        stride = Math.max(offset, 1);
+        chunkShift = 31 - Integer.numberOfLeadingZeros(Math.max(CHUNK_BYTES / stride, 1));
+        chunkMask = (1 << chunkShift) - 1;
+
+        int chunkRows = 1 << chunkShift;
+        if (capacity <= chunkRows) {
+            chunks.add(allocateRows(capacity));
+            this.capacity = capacity;
+        } else {
+            for (int rows = 0; rows < capacity; rows += chunkRows) {
+                chunks.add(allocateRows(chunkRows));
+            }
+            this.capacity = (int) Math.min((long) chunks.size() << chunkShift, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Allocates a zeroed chunk of direct memory for a number of rows.
+     *
+     * @param rows The number of rows of the chunk.
+     * @return The new chunk.
+     */
+    private ByteBuffer allocateRows(int rows) {
+        return ByteBuffer.allocateDirect(rows * stride).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Creates an empty segment for the tuples of a registered type.
+     *
+     * @param type     The registered type.
+     * @param capacity The number of tuples the segment can hold before growing.
+     * @return The new segment.
+     * @throws IllegalArgumentException If the type is not registered or the capacity is not positive.
+     */
+    public static TupleSegment forType(String type, int capacity) {
+        return new TupleSegment(TupleSchema.forType(type), capacity);
+    }
+
+    /**
+     * Gets the chunk holding a row.
+     *
+     * @param row The row, which has already been checked.
+     * @return The chunk of the row.
+     */
+    private ByteBuffer chunk(int row) {
+        return chunks.get(row >>> chunkShift);
+    }
+
+    /**
+     * Gets the offset of a position of a row within its chunk.
+     *
+     * @param row   The row.
+     * @param index The position.
+     * @return The offset of the position in the chunk of the row.
+     */
+    private int at(int row, int index) {
+        return (row & chunkMask) * stride + offsets[index];
+    }
+
+    /**
+     * Gets the schema of the tuples stored in the segment.
+     *
+     * @return The schema of the segment.
+     */
+    public TupleSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Gets the number of tuples stored in the segment.
+     *
+     * @return The number of rows in use.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of tuples the segment can hold before growing.
+     *
+     * @return The capacity of the segment.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Copies a tuple into a new row at the end of the segment, growing it if needed.
+     *
+     * @param tuple The tuple to be stored.
+     * @return The index of the new row.
+     * @throws IllegalArgumentException If the tuple does not follow the schema of the segment.
+     * @throws IllegalStateException If the segment already holds the maximum number of rows.
+     */
+    public int append(Tuple<?> tuple) {
+        Object[] values = tuple.toArray();
+        schema.checkValues(values);
+
+        if (size == capacity) {
+            grow();
+        }
+
+        // Rows past the size are still zeroed, so their references have no handle yet
+        int row = size++;
+        for (int i = 0; i < values.length; i++) {
+            write(row, i, values[i]);
+        }
+        return row;
+    }
+
+    /**
+     * Makes room for one more row. A first chunk smaller than the others grows
+     * geometrically, copying its rows into a new chunk; after that,
+     * every growth adds a chunk without copying anything.
+     *
+     * @throws IllegalStateException If the segment already holds the maximum number of rows.
+     */
+    private void grow() {
+        if (capacity == Integer.MAX_VALUE) {
+            throw new IllegalStateException("The segment is full.");
+        }
+        int chunkRows = 1 << chunkShift;
+        if (capacity < chunkRows) {
+            int newRows = (int) Math.min(chunkRows, capacity + (capacity >> 1) + 1L);
+            ByteBuffer old = chunks.get(0);
+            ByteBuffer grown = allocateRows(newRows);
+            grown.put(0, old, 0, size * stride);
+            chunks.set(0, grown);
+            capacity = newRows;
+        } else {
+            chunks.add(allocateRows(chunkRows));
+            capacity = (int) Math.min((long) capacity + chunkRows, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Checks that the row and the position exist.
+     *
+     * @param row   The row to be checked.
+     * @param index The position to be checked.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     */
+    private void checkCell(int row, int index) {
+        if (row < 0 || row >= size || index < 0 || index >= offsets.length) {
+            throw new IndexOutOfBoundsException("Invalid index.");
+        }
+    }
+
+    /**
+     * Reads the value at a position of a row, boxing primitive values.
+     *
+     * @param row   The row to be read.
+     * @param index The position to be read.
+     * @return The value at the position.
+     */
+    private Object read(int row, int index) {
+        ByteBuffer current = chunk(row);
+        int at = at(row, index);
+        switch (schema.getKind(index)) {
+            case BOOLEAN:
+                return current.get(at) != 0;
+            case BYTE:
+                return current.get(at);
+            case CHAR:
+                return current.getChar(at);
+            case SHORT:
+                return current.getShort(at);
+            case INT:
+                return current.getInt(at);
+            case FLOAT:
+                return current.getFloat(at);
+            case LONG:
+                return current.getLong(at);
+            case DOUBLE:
+                return current.getDouble(at);
+            default:
+                int handle = current.getInt(at);
+                return handle == 0 ? null : references.get(handle - 1);
+        }
+    }
+
+    /**
+     * Writes a value at a position of a row. The type of the value has already
+     * been checked against the schema.
+     *
+     * @param row   The row to be written.
+     * @param index The position to be written.
+     * @param value The value to be stored.
+     */
+    private void write(int row, int index, Object value) {
+        ByteBuffer current = chunk(row);
+        int at = at(row, index);
+        switch (schema.getKind(index)) {
+            case BOOLEAN:
+                current.put(at, (byte) ((Boolean) value ? 1 : 0));
+                break;
+            case BYTE:
+                current.put(at, (Byte) value);
+                break;
+            case CHAR:
+                current.putChar(at, (Character) value);
+                break;
+            case SHORT:
+                current.putShort(at, (Short) value);
+                break;
+            case INT:
+                current.putInt(at, (Integer) value);
+                break;
+            case FLOAT:
+                current.putFloat(at, (Float) value);
+                break;
+            case LONG:
+                current.putLong(at, (Long) value);
+                break;
+            case DOUBLE:
+                current.putDouble(at, (Double) value);
+                break;
+            default:
+                // A row keeps its handle, so rewriting a reference reuses its entry
+                int handle = current.getInt(at);
+                if (handle == 0) {
+                    references.add(value);
+                    current.putInt(at, references.size());
+                } else {
+                    references.set(handle - 1, value);
+                }
+        }
+    }
+
+    /**
+     * Gets the value at a position of a row as an int, without boxing primitive values.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @return The value as an int.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws ClassCastException If the value is not a number.
+     */
+    public int getInt(int row, int index) {
+        checkCell(row, index);
+        return schema.getKind(index) == SlotKind.INT
+                ? chunk(row).getInt(at(row, index))
+                : ((Number) read(row, index)).intValue();
+    }
+
+    /**
+     * Gets the value at a position of a row as a long, without boxing primitive values.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @return The value as a long.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws ClassCastException If the value is not a number.
+     */
+    public long getLong(int row, int index) {
+        checkCell(row, index);
+        ByteBuffer current = chunk(row);
+        int at = at(row, index);
+        switch (schema.getKind(index)) {
+            case INT:
+                return current.getInt(at);
+            case LONG:
+                return current.getLong(at);
+            default:
+                return ((Number) read(row, index)).longValue();
+        }
+    }
+
+    /**
+     * Gets the value at a position of a row as a double, without boxing primitive values.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @return The value as a double.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws ClassCastException If the value is not a number.
+     */
+    public double getDouble(int row, int index) {
+        checkCell(row, index);
+        ByteBuffer current = chunk(row);
+        int at = at(row, index);
+        switch (schema.getKind(index)) {
+            case INT:
+                return current.getInt(at);
+            case LONG:
+                return current.getLong(at);
+            case DOUBLE:
+                return current.getDouble(at);
+            default:
+                return ((Number) read(row, index)).doubleValue();
+        }
+    }
+
+    /**
+     * Replaces an int at a position of a row without boxing it.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @param value The new value.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws IllegalArgumentException If the position does not hold an int.
+     */
+    public void setInt(int row, int index, int value) {
+        checkCell(row, index);
+        checkKind(index, SlotKind.INT);
+        chunk(row).putInt(at(row, index), value);
+    }
+
+    /**
+     * Replaces a long at a position of a row without boxing it.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @param value The new value.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws IllegalArgumentException If the position does not hold a long.
+     */
+    public void setLong(int row, int index, long value) {
+        checkCell(row, index);
+        checkKind(index, SlotKind.LONG);
+        chunk(row).putLong(at(row, index), value);
+    }
+
+    /**
+     * Replaces a double at a position of a row without boxing it.
+     *
+     * @param row   The desired row.
+     * @param index The desired position.
+     * @param value The new value.
+     * @throws IndexOutOfBoundsException If the row or the position is invalid.
+     * @throws IllegalArgumentException If the position does not hold a double.
+     */
+    public void setDouble(int row, int index, double value) {
+        checkCell(row, index);
+        checkKind(index, SlotKind.DOUBLE);
+        chunk(row).putDouble(at(row, index), value);
+    }
+
+    /**
+     * Checks that a position has the expected kind.
+     *
+     * @param index The position to be checked.
+     * @param kind  The expected kind.
+     * @throws IllegalArgumentException If the kinds differ.
+     */
+    private void checkKind(int index, SlotKind kind) {
+        if (schema.getKind(index) != kind) {
+            throw new IllegalArgumentException("Incompatible types, unable to replace the value.");
+        }
+    }
+
+    /**
+     * Copies a row into a new on-heap tuple. The reference values are shared, not cloned.
+     *
+     * @param row The desired row.
+     * @return A locked-size tuple of the schema type holding the values of the row.
+     * @throws IndexOutOfBoundsException If the row is invalid.
+     */
+    public Tuple<Object> get(int row) {
+        checkCell(row, 0);
+        Object[] values = new Object[offsets.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = read(row, i);
+        }
+        return schema.newTuple(values);
+    }
+
+    /**
+     * Creates a view over a row. The view can later be moved to other rows
+     * with {@link View#moveTo(int)}, so a single one can scan the whole segment.
+     *
+     * @param row The row to be viewed.
+     * @return A flyweight tuple reading and writing the row.
+     * @throws IndexOutOfBoundsException If the row is invalid.
+     */
+    public View view(int row) {
+        return new View().moveTo(row);
+    }
+
+    /**
+     * A flyweight tuple over a row of the segment.
+     * <p>
+     * Reads and writes go straight to the segment, so changes made through
+     * the view are seen by every other view of the same row. A view is locked-size
+     * with the type of the schema; cloning it copies the row into an on-heap tuple.
+     */
+    public final class View extends IndexedTuple<Object> {
+
+        private int row;
+
+        /**
+         * Creates a view. Views are created through {@link TupleSegment#view(int)}.
+         */
+        private View() {
+            lockSize(schema.getType());
+        }
+
+        /**
+         * Moves the view to another row.
+         *
+         * @param row The row to be viewed.
+         * @return This view, for chaining.
+         * @throws IndexOutOfBoundsException If the row is invalid.
+         */
+        public View moveTo(int row) {
+            checkCell(row, 0);
+            this.row = row;
+            return this;
+        }
+
+        @Override
+        boolean storageShared() {
+            return true;
+        }
+
+        /**
+         * Gets the row currently viewed.
+         *
+         * @return The index of the row.
+         */
+        public int getRow() {
+            return row;
+        }
+
+        @Override
+        Object slot(int index) {
+            return read(row, index);
+        }
+
+        @Override
+        void slot(int index, Object value) {
+            write(row, index, value);
+        }
+
+        @Override
+        void checkReplace(int index, Object value) {
+            schema.checkValue(index, value);
+        }
+
+        @Override
+        void insertSlot(int index, Object value) {
+            throw new UnsupportedOperationException("Cannot change size of a locked-size tuple.");
+        }
+
+        @Override
+        void removeSlot(int index) {
+            throw new UnsupportedOperationException("Cannot change size of a locked-size tuple.");
+        }
+
+        @Override
+        public int getSize() {
+            return offsets.length;
+        }
+
+        /**
+         * The values of a view belong to its segment, so they are not retained
+         * by the view.
+         *
+         * @return Always zero.
+         */
+        @Override
+        long valuesSize() {
+            return 0;
+        }
+
+        @Override
+        public int getInt(int index) {
+            return TupleSegment.this.getInt(row, index);
+        }
+
+        @Override
+        public long getLong(int index) {
+            return TupleSegment.this.getLong(row, index);
+        }
+
+        @Override
+        public double getDouble(int index) {
+            return TupleSegment.this.getDouble(row, index);
+        }
+
+        @Override
+        public void setInt(int index, int value) {
+            TupleSegment.this.setInt(row, index, value);
+        }
+
+        @Override
+        public void setLong(int index, long value) {
+            TupleSegment.this.setLong(row, index, value);
+        }
+
+        @Override
+        public void setDouble(int index, double value) {
+            TupleSegment.this.setDouble(row, index, value);
+        }
+
+        /**
+         * Copies the viewed row into a new on-heap tuple, cloning its values.
+         *
+         * @return A locked-size tuple of the schema type holding clones of the values of the row.
+         * @throws CloneNotSupportedException If cloning fails due to unclonable objects.
+         */
+        @Override
+        public Tuple<Object> clone() throws CloneNotSupportedException {
+            Object[] values = new Object[offsets.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = cloneObject(read(row, i));
+            }
+            return schema.newTuple(values);
+        }
+    }
+}
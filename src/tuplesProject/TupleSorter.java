@@ -0,0 +1,708 @@
+package tuplesProject;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * Sorts large arrays of tuples, in parallel, by a key made of some of their
+ * positions or by their natural order.
+ * <p>
+ * Two algorithms are offered, both stable:
+ * <ul>
+ * <li>A fork/join merge sort, where both the sorting of the halves and the
+ * merging of the sorted halves are split among the threads of the common pool.
+ * It works for any values that can be compared.</li>
+ * <li>A least-significant-digit radix sort over normalized keys. The key of
+ * every tuple is read once into arrays of longs whose unsigned order is the
+ * order of the values, following the encoding of {@link TupleKeyCodec}:
+ * numbers are kept whole, and strings by the first eight bytes of their
+ * encoding. Only a bounded prefix of the key is normalized: at most
+ * {@value #MAX_KEY_COLUMNS} positions, and none after the first position
+ * whose normalized keys may hold different values (longer strings, nulls). The
+ * radix passes count and scatter each byte of that prefix in parallel chunks,
+ * skipping the bytes that are the same in every key, and tuples whose
+ * normalized prefixes are equal are then ordered by the merge sort, which
+ * compares the whole key.</li>
+ * </ul>
+ * {@link #sort(Tuple[])} uses the radix sort when the values of every position
+ * of the key are numbers of the same kind or strings, and the merge sort
+ * otherwise. Numbers stored unboxed by {@link IntTuple}, {@link LongTuple},
+ * {@link DoubleTuple} and {@link MixedTuple} are read without boxing, and
+ * linked tuples are read in a single walk of their chain.
+ * <p>
+ * Example Usage:
+ * <pre>{@code
+ // Sorting by the third position, then by the first one
+ TupleSorter.byKey(2, 0).sort(tuples);
+ }</pre>
+ */
+public final class TupleSorter {
+
+    /**
+     * Below this number of tuples, sorting is not split among threads.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 13;
+
+    /**
+     * The largest number of positions of a key normalized for the radix sort.
+     * Later positions only break the ties left by the normalized ones.
+     */
+    private static final int MAX_KEY_COLUMNS = 4;
+
+    private static final int RADIX_BITS = 8;
+    private static final int BUCKETS = 1 << RADIX_BITS;
+
+    private final int[] keySlots;
+    private final Comparator<Tuple<?>> comparator;
+
+    /**
+     * Creates a sorter.
+     *
+     * @param keySlots The positions of the key, or null for the natural order.
+     */
+    private TupleSorter(int[] keySlots) {
+        this.keySlots = keySlots;
+        this.comparator = keySlots == null ? TupleComparator.NATURAL : new KeyComparator(keySlots);
+    }
+
+    /**
+     * Creates a sorter ordering tuples as {@link Tuple#compareTo(Tuple)} does.
+     *
+     * @return The sorter.
+     */
+    public static TupleSorter natural() {
+        return new TupleSorter(null);
+    }
+
+    /**
+     * Creates a sorter ordering tuples by the values at some positions, in the
+     * given order of significance. Tuples with the same key keep their order.
+     *
+     * @param keySlots The positions forming the key, the most significant first.
+     * @return The sorter.
+     * @throws IllegalArgumentException If no position is given, or a position is negative.
+     */
+    public static TupleSorter byKey(int... keySlots) {
+        if (keySlots.length == 0) {
+            throw new IllegalArgumentException("The key must have at least one position.");
+        }
+        for (int slot : keySlots) {
+            if (slot < 0) {
+                throw new IllegalArgumentException("Invalid index.");
+            }
+        }
+        return new TupleSorter(keySlots.clone());
+    }
+
+    /**
+     * Gets the comparator matching the order of this sorter.
+     *
+     * @return The comparator of the tuples.
+     */
+    public Comparator<Tuple<?>> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Sorts tuples, with the radix sort when their keys can be normalized and
+     * with the merge sort otherwise.
+     *
+     * @param tuples The tuples to be sorted.
+     * @throws IndexOutOfBoundsException If a tuple does not have a position of the key.
+     * @throws ClassCastException If values at the same position cannot be compared with each other.
+     */
+    public void sort(Tuple<?>[] tuples) {
+        if (tuples.length < 2) {
+            return;
+        }
+        if (!radixSortIfPossible(tuples)) {
+            mergeSort(tuples);
+        }
+    }
+
+    /**
+     * Sorts tuples with the parallel merge sort.
+     *
+     * @param tuples The tuples to be sorted.
+     * @throws IndexOutOfBoundsException If a tuple does not have a position of the key.
+     * @throws ClassCastException If values at the same position cannot be compared with each other.
+     */
+    public void mergeSort(Tuple<?>[] tuples) {
+        mergeSort(tuples, 0, tuples.length);
+    }
+
+    /**
+     * Sorts tuples with the parallel radix sort, or with the merge sort if
+     * their keys cannot be normalized.
+     *
+     * @param tuples The tuples to be sorted.
+     * @throws IndexOutOfBoundsException If a tuple does not have a position of the key.
+     * @throws ClassCastException If values at the same position cannot be compared with each other.
+     */
+    public void radixSort(Tuple<?>[] tuples) {
+        sort(tuples);
+    }
+
+    /**
+     * Sorts a range of tuples with the parallel merge sort.
+     */
+    private void mergeSort(Tuple<?>[] tuples, int from, int to) {
+        if (to - from <= SEQUENTIAL_THRESHOLD) {
+            Arrays.sort(tuples, from, to, comparator);
+            return;
+        }
+        if (from != 0 || to != tuples.length) {
+            // Ranges are sorted apart, so the buffer only needs to hold the range
+            Tuple<?>[] range = Arrays.copyOfRange(tuples, from, to);
+            mergeSort(range, 0, range.length);
+            System.arraycopy(range, 0, tuples, from, range.length);
+            return;
+        }
+        Tuple<?>[] buffer = new Tuple<?>[tuples.length];
+        int leafSize = Math.max(SEQUENTIAL_THRESHOLD, tuples.length / (ForkJoinPool.getCommonPoolParallelism() << 2));
+        ForkJoinPool.commonPool().invoke(new SortTask(tuples, buffer, 0, tuples.length, false, leafSize, comparator));
+    }
+
+    /**
+     * Sorts tuples with the radix sort, if their keys can be normalized.
+     *
+     * @param tuples The tuples to be sorted.
+     * @return {@code false} if the keys cannot be normalized and the tuples were left as they were.
+     */
+    private boolean radixSortIfPossible(Tuple<?>[] tuples) {
+        int[] slots = keySlots;
+        if (slots == null) {
+            // The natural order is the order of all positions when every tuple has the same size
+            int size = tuples[0].getSize();
+            for (Tuple<?> tuple : tuples) {
+                if (tuple.getSize() != size) {
+                    return false;
+                }
+            }
+            slots = IntStream.range(0, size).toArray();
+        }
+
+        KeyColumns columns = KeyColumns.read(tuples, slots, Math.min(slots.length, MAX_KEY_COLUMNS));
+        if (columns == null) {
+            return false;
+        }
+
+        // The columns after the first inexact one cannot tell apart the tuples it leaves tied
+        int inexactColumn = columns.firstInexactColumn();
+        int sortedColumns = inexactColumn >= 0 ? inexactColumn + 1 : columns.keys.length;
+        int count = tuples.length;
+        int[] order = radixSort(Arrays.copyOf(columns.keys, sortedColumns), count);
+
+        Tuple<?>[] original = tuples.clone();
+        parallelFor(count, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                tuples[i] = original[order[i]];
+            }
+        });
+
+        if (sortedColumns < slots.length || inexactColumn >= 0) {
+            // Equal normalized prefixes may still hold different keys, which the comparator orders
+            int start = 0;
+            for (int i = 1; i <= count; i++) {
+                if (i == count || !columns.sameKeys(order[start], order[i], sortedColumns - 1)) {
+                    if (i - start > 1) {
+                        mergeSort(tuples, start, i);
+                    }
+                    start = i;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the stable order of normalized keys, from the least significant
+     * byte of the last column to the most significant byte of the first one.
+     *
+     * @param columns The normalized keys, one array per position of the key.
+     * @param count   The number of tuples.
+     * @return The index of the tuple at each position of the sorted order.
+     */
+    private static int[] radixSort(long[][] columns, int count) {
+        int[] order = new int[count];
+        int[] orderBuffer = new int[count];
+        long[] keys = new long[count];
+        long[] keysBuffer = new long[count];
+        int[] identity = order;
+        parallelFor(count, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                identity[i] = i;
+            }
+        });
+
+        int chunks = chunkCount(count);
+        int[][] counts = new int[chunks][BUCKETS];
+        for (int column = columns.length - 1; column >= 0; column--) {
+            long[] values = columns[column];
+            int[] currentOrder = order;
+            long[] currentKeys = keys;
+            parallelFor(count, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    currentKeys[i] = values[currentOrder[i]];
+                }
+            });
+
+            for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+                if (!radixPass(keys, order, keysBuffer, orderBuffer, shift, counts)) {
+                    continue;
+                }
+                long[] swapKeys = keys;
+                keys = keysBuffer;
+                keysBuffer = swapKeys;
+                int[] swapOrder = order;
+                order = orderBuffer;
+                orderBuffer = swapOrder;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Scatters keys and their indexes by one byte of the keys, keeping the
+     * order of keys with the same byte. Each chunk counts its own bytes, so the
+     * chunks are counted and scattered in parallel.
+     *
+     * @return {@code false} if every key has the same byte, so nothing was scattered.
+     */
+    private static boolean radixPass(long[] keys, int[] order, long[] keysOut, int[] orderOut,
+            int shift, int[][] counts) {
+        int count = keys.length;
+        int chunks = counts.length;
+        int chunkSize = (count + chunks - 1) / chunks;
+
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int[] chunkCounts = counts[chunk];
+            Arrays.fill(chunkCounts, 0);
+            int to = Math.min(count, (chunk + 1) * chunkSize);
+            for (int i = chunk * chunkSize; i < to; i++) {
+                chunkCounts[(int) (keys[i] >>> shift) & (BUCKETS - 1)]++;
+            }
+        });
+
+        // Each chunk starts writing a byte after the same byte of the previous chunks
+        int offset = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            int bucketStart = offset;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int chunkCount = counts[chunk][bucket];
+                counts[chunk][bucket] = offset;
+                offset += chunkCount;
+            }
+            if (offset - bucketStart == count) {
+                return false;
+            }
+        }
+
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int[] positions = counts[chunk];
+            int to = Math.min(count, (chunk + 1) * chunkSize);
+            for (int i = chunk * chunkSize; i < to; i++) {
+                int position = positions[(int) (keys[i] >>> shift) & (BUCKETS - 1)]++;
+                keysOut[position] = keys[i];
+                orderOut[position] = order[i];
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Gets the number of chunks a range of tuples is split into.
+     */
+    private static int chunkCount(int count) {
+        if (count <= SEQUENTIAL_THRESHOLD) {
+            return 1;
+        }
+        return Math.min(ForkJoinPool.getCommonPoolParallelism() << 2, count / SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     * Runs an action over consecutive chunks of a range, in parallel.
+     */
+    private static void parallelFor(int count, RangeAction action) {
+        int chunks = chunkCount(count);
+        int chunkSize = (count + chunks - 1) / chunks;
+        IntStream.range(0, chunks).parallel()
+                .forEach(chunk -> action.run(chunk * chunkSize, Math.min(count, (chunk + 1) * chunkSize)));
+    }
+
+    /**
+     * Reads the value at a position of a tuple.
+     *
+     * @param tuple The tuple.
+     * @param index The position.
+     * @return The value at the position.
+     * @throws IndexOutOfBoundsException If the tuple does not have the position.
+     */
+    private static Object valueAt(Tuple<?> tuple, int index) {
+        if (tuple instanceof IndexedTuple) {
+            IndexedTuple<?> indexed = (IndexedTuple<?>) tuple;
+            indexed.checkIndex(index);
+            return indexed.slot(index);
+        }
+        Tuple<?> node = tuple;
+        for (int i = 0; i < index && node != null; i++) {
+            node = node.nextNode();
+        }
+        if (node == null) {
+            throw new IndexOutOfBoundsException("Invalid index.");
+        }
+        return node.nodeValue();
+    }
+
+    /**
+     * An action over a range of indexes.
+     */
+    @FunctionalInterface
+    private interface RangeAction {
+
+        void run(int from, int to);
+    }
+
+    /**
+     * Orders tuples by the values at the positions of a key.
+     */
+    private static final class KeyComparator implements Comparator<Tuple<?>> {
+
+        private final int[] keySlots;
+
+        KeyComparator(int[] keySlots) {
+            this.keySlots = keySlots;
+        }
+
+        @Override
+        public int compare(Tuple<?> first, Tuple<?> second) {
+            boolean indexed = first instanceof IndexedTuple && second instanceof IndexedTuple;
+            for (int slot : keySlots) {
+                int result;
+                if (indexed) {
+                    IndexedTuple<?> firstIndexed = (IndexedTuple<?>) first;
+                    firstIndexed.checkIndex(slot);
+                    ((IndexedTuple<?>) second).checkIndex(slot);
+                    result = firstIndexed.compareSlot(slot, (IndexedTuple<?>) second);
+                } else {
+                    result = TupleComparator.compareValues(valueAt(first, slot), valueAt(second, slot));
+                }
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * The normalized keys of the tuples being sorted, one array per position of
+     * the key, whose unsigned order is the order of the values.
+     */
+    private static final class KeyColumns {
+
+        private final long[][] keys;
+        private final boolean[] inexact;
+
+        private KeyColumns(long[][] keys) {
+            this.keys = keys;
+            this.inexact = new boolean[keys.length];
+        }
+
+        /**
+         * Reads and normalizes the first positions of the keys of tuples.
+         *
+         * @param tuples   The tuples.
+         * @param keySlots The positions of the key.
+         * @param columns  The number of positions to be normalized, from the first one of the key.
+         * @return The normalized keys, or null if the values of a normalized position are not all numbers of one
+         *         kind or strings.
+         * @throws IndexOutOfBoundsException If a tuple does not have a position of the key.
+         */
+        static KeyColumns read(Tuple<?>[] tuples, int[] keySlots, int columns) {
+            int count = tuples.length;
+            KeyColumns keyColumns = new KeyColumns(new long[columns][count]);
+            SlotKind[] kinds = new SlotKind[columns];
+            int deepest = Arrays.stream(keySlots).max().getAsInt();
+
+            // The kind of each position is taken from its first value that is not null
+            for (int k = 0; k < columns; k++) {
+                for (int i = 0; i < count && kinds[k] == null; i++) {
+                    Object value = valueAt(tuples[i], keySlots[k]);
+                    if (value != null) {
+                        kinds[k] = SlotKind.of(value);
+                        if (kinds[k] == SlotKind.REFERENCE && !(value instanceof String)) {
+                            return null;
+                        }
+                    }
+                }
+            }
+
+            boolean[] valid = {true};
+            parallelFor(count, (from, to) -> {
+                Object[] row = new Object[deepest + 1];
+                for (int i = from; i < to && valid[0]; i++) {
+                    if (!keyColumns.readRow(tuples[i], i, keySlots, kinds, row)) {
+                        valid[0] = false;
+                    }
+                }
+            });
+            return valid[0] ? keyColumns : null;
+        }
+
+        /**
+         * Reads and normalizes the first positions of the key of one tuple,
+         * checking that it has every position of the key.
+         *
+         * @return {@code false} if a value does not match the kind of its position.
+         */
+        private boolean readRow(Tuple<?> tuple, int index, int[] keySlots, SlotKind[] kinds, Object[] row) {
+            if (tuple instanceof IndexedTuple) {
+                IndexedTuple<?> indexed = (IndexedTuple<?>) tuple;
+                // The row reaches the deepest position of the whole key
+                indexed.checkIndex(row.length - 1);
+                for (int k = 0; k < keys.length; k++) {
+                    int slot = keySlots[k];
+                    indexed.checkIndex(slot);
+                    SlotKind kind = indexed.slotKind(slot);
+                    if (kind.isPrimitive()) {
+                        if (kind != kinds[k]) {
+                            return false;
+                        }
+                        keys[k][index] = TupleKeyCodec.sortableBits(kind, indexed.slotBits(slot));
+                    } else if (!store(k, index, indexed.slot(slot), kinds[k])) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            // A linked tuple is walked once, up to the deepest position of the key
+            Tuple<?> node = tuple;
+            for (int i = 0; i < row.length; i++) {
+                if (node == null) {
+                    throw new IndexOutOfBoundsException("Invalid index.");
+                }
+                row[i] = node.nodeValue();
+                node = node.nextNode();
+            }
+            for (int k = 0; k < keys.length; k++) {
+                if (!store(k, index, row[keySlots[k]], kinds[k])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Normalizes a boxed value into the key of a tuple.
+         *
+         * @return {@code false} if the value does not match the kind of its position.
+         */
+        private boolean store(int column, int index, Object value, SlotKind kind) {
+            if (value == null) {
+                // Nulls come first, but may share their key with the smallest values
+                keys[column][index] = 0;
+                inexact[column] = true;
+                return true;
+            }
+            if (value instanceof String) {
+                if (kind != SlotKind.REFERENCE) {
+                    return false;
+                }
+                String string = (String) value;
+                keys[column][index] = TupleKeyCodec.stringPrefix(string);
+                if (!TupleKeyCodec.isWholeInPrefix(string)) {
+                    inexact[column] = true;
+                }
+                return true;
+            }
+            SlotKind valueKind = SlotKind.of(value);
+            if (valueKind != kind || kind == SlotKind.REFERENCE) {
+                return false;
+            }
+            keys[column][index] = TupleKeyCodec.sortableBits(kind, kind.toBits(value));
+            return true;
+        }
+
+        /**
+         * Gets the first column where equal normalized keys may hold different values.
+         *
+         * @return The index of the column, or -1 if every column is exact.
+         */
+        int firstInexactColumn() {
+            for (int column = 0; column < inexact.length; column++) {
+                if (inexact[column]) {
+                    return column;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Checks whether two tuples have the same normalized keys in the first columns.
+         *
+         * @param first  The index of the first tuple.
+         * @param second The index of the second tuple.
+         * @param last   The last column checked.
+         * @return {@code true} if the keys are equal in every column checked.
+         */
+        boolean sameKeys(int first, int second, int last) {
+            for (int column = 0; column <= last; column++) {
+                if (keys[column][first] != keys[column][second]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Sorts a range of an array with the merge sort, leaving the result
+     * either in the array or in the buffer, so that every merge reads from one
+     * of them and writes to the other.
+     */
+    // Fork/join tasks are Serializable only through RecursiveAction; they are never serialized
+    @SuppressWarnings("serial")
+    private static final class SortTask extends RecursiveAction {
+
+        private final Tuple<?>[] tuples;
+        private final Tuple<?>[] buffer;
+        private final int from;
+        private final int to;
+        private final boolean intoBuffer;
+        private final int leafSize;
+        private final Comparator<Tuple<?>> comparator;
+
+        SortTask(Tuple<?>[] tuples, Tuple<?>[] buffer, int from, int to, boolean intoBuffer, int leafSize,
+                Comparator<Tuple<?>> comparator) {
+            this.tuples = tuples;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.intoBuffer = intoBuffer;
+            this.leafSize = leafSize;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                Arrays.sort(tuples, from, to, comparator);
+                if (intoBuffer) {
+                    System.arraycopy(tuples, from, buffer, from, to - from);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(tuples, buffer, from, middle, !intoBuffer, leafSize, comparator),
+                    new SortTask(tuples, buffer, middle, to, !intoBuffer, leafSize, comparator));
+            Tuple<?>[] source = intoBuffer ? tuples : buffer;
+            Tuple<?>[] target = intoBuffer ? buffer : tuples;
+            new MergeTask(source, target, from, middle, middle, to, from, comparator).compute();
+        }
+    }
+
+    /**
+     * Merges two sorted runs into a target array, splitting the merge among
+     * threads. The larger run is split at its middle value and the other one
+     * where that value would go, so each half is merged independently; values
+     * of the first run come before equal values of the second one.
+     */
+    // Fork/join tasks are Serializable only through RecursiveAction; they are never serialized
+    @SuppressWarnings("serial")
+    private static final class MergeTask extends RecursiveAction {
+
+        private final Tuple<?>[] source;
+        private final Tuple<?>[] target;
+        private final int firstFrom;
+        private final int firstTo;
+        private final int secondFrom;
+        private final int secondTo;
+        private final int targetFrom;
+        private final Comparator<Tuple<?>> comparator;
+
+        MergeTask(Tuple<?>[] source, Tuple<?>[] target, int firstFrom, int firstTo, int secondFrom, int secondTo,
+                int targetFrom, Comparator<Tuple<?>> comparator) {
+            this.source = source;
+            this.target = target;
+            this.firstFrom = firstFrom;
+            this.firstTo = firstTo;
+            this.secondFrom = secondFrom;
+            this.secondTo = secondTo;
+            this.targetFrom = targetFrom;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            int firstLength = firstTo - firstFrom;
+            int secondLength = secondTo - secondFrom;
+            if (firstLength + secondLength <= SEQUENTIAL_THRESHOLD) {
+                merge();
+                return;
+            }
+
+            int firstSplit;
+            int secondSplit;
+            if (firstLength >= secondLength) {
+                firstSplit = (firstFrom + firstTo) >>> 1;
+                // Values of the second run equal to the split value go after it
+                secondSplit = search(source[firstSplit], secondFrom, secondTo, false);
+            } else {
+                secondSplit = (secondFrom + secondTo) >>> 1;
+                // Values of the first run equal to the split value go before it
+                firstSplit = search(source[secondSplit], firstFrom, firstTo, true);
+            }
+            int targetSplit = targetFrom + (firstSplit - firstFrom) + (secondSplit - secondFrom);
+            invokeAll(new MergeTask(source, target, firstFrom, firstSplit, secondFrom, secondSplit, targetFrom,
+                    comparator),
+                    new MergeTask(source, target, firstSplit, firstTo, secondSplit, secondTo, targetSplit,
+                            comparator));
+        }
+
+        /**
+         * Finds where a value goes in a sorted run.
+         *
+         * @param value      The value.
+         * @param from       The start of the run.
+         * @param to         The end of the run.
+         * @param afterEqual Whether the value goes after the equal values of the run.
+         * @return The first position of the run whose value goes after the given one.
+         */
+        private int search(Tuple<?> value, int from, int to, boolean afterEqual) {
+            while (from < to) {
+                int middle = (from + to) >>> 1;
+                int result = comparator.compare(source[middle], value);
+                if (result < 0 || (afterEqual && result == 0)) {
+                    from = middle + 1;
+                } else {
+                    to = middle;
+                }
+            }
+            return from;
+        }
+
+        /**
+         * Merges the runs sequentially.
+         */
+        private void merge() {
+            int first = firstFrom;
+            int second = secondFrom;
+            int position = targetFrom;
+            while (first < firstTo && second < secondTo) {
+                // Taking from the first run on ties keeps the sort stable
+                if (comparator.compare(source[second], source[first]) < 0) {
+                    target[position++] = source[second++];
+                } else {
+                    target[position++] = source[first++];
+                }
+            }
+            System.arraycopy(source, first, target, position, firstTo - first);
+            System.arraycopy(source, second, target, position + firstTo - first, secondTo - second);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package tuplesProject;
+
+import java.util.Arrays;
+
+/**
+ * An entry of the typed-tuple registry: the template registered for a type and
+ * what is needed to instantiate it cheaply, following its {@link ClonePolicy}.
+ * <p>
+ * With {@link ClonePolicy#SHARE_IMMUTABLE}, when the template can share its
+ * values, instances are created as shallow copies of it whose mutable values
+ * are then replaced by clones. The positions holding mutable values are found
+ * once, when the type is registered, so the immutable values cost nothing and
+ * an instance never refers to a mutable value of the template: reading it
+ * never writes to it, and it can be read from several threads at once like a
+ * deep clone. Templates that cannot share their values fall back to a full
+ * deep clone.
+ * <p>
+ * Typed tuples can also be created directly from the values of a row, checked
+ * against the schema of the template and written into a shallow copy of it,
+ * so a row of a fixed-arity type costs a single allocation. Persistent rows
+ * are built straight from the values; the template is never cloned only to
+ * have all its values overwritten.
+ * <p>
+ * A frozen template is copied the same way whatever the policy, into a
+ * mutable tuple sharing its immutable values, since the frozen values can
+ * never be changed under the copy. Rows of a frozen type are turned into
+ * frozen tuples.
+ * <p>
+ * Typed tuples created in batches are all copied from the first one, which is
+ * created like any other: the following ones are shallow copies of it with the
+ * same positions cloned, so the policy is only looked at once per batch. Deep
+ * clones, and copies of templates that cannot share their values, are still
+ * made one by one.
+ */
+final class TupleType {
+
+    private final Tuple<?> template;
+    private final ClonePolicy policy;
+    private final TupleSchema schema;
+    private final long templateSize;
+    private static final int[] NO_SLOTS = new int[0];
+
+    private final int[] mutableSlots;
+    private final boolean frozen;
+    private final TupleComparator comparator;
+
+    /**
+     * Creates the registry entry of a locked-size template.
+     *
+     * @param template The template registered for the type.
+     * @param policy   How the typed tuples are copied from the template.
+     */
+    TupleType(Tuple<?> template, ClonePolicy policy) {
+        this.template = template;
+        this.policy = policy;
+        this.schema = TupleSchema.of(template);
+        this.comparator = TupleComparator.of(schema);
+        this.templateSize = template.estimateRetainedSize();
+        this.frozen = template instanceof FrozenTuple;
+        if (policy != ClonePolicy.SHARE_IMMUTABLE && !frozen) {
+            mutableSlots = null;
+            return;
+        }
+
+        // Frozen values are always copied, so a frozen template can always share them
+        boolean shareable = frozen || template instanceof IndexedTuple
+                && ((IndexedTuple<?>) template).shallowCopy() != null;
+        Object[] values = template.toArray();
+        int[] slots = new int[values.length];
+        int count = 0;
+
+        for (int i = 0; i < values.length && shareable; i++) {
+            if (values[i] == null || Tuple.isPrimitive(values[i])) {
+                continue;
+            }
+            // Values that cannot be copied make the type fall back to deep clones,
+            // which report the failure the same way as before
+            if (!isCloneable(values[i])) {
+                shareable = false;
+            }
+            slots[count++] = i;
+        }
+        mutableSlots = shareable ? Arrays.copyOf(slots, count) : null;
+    }
+
+    /**
+     * Checks whether a value can be cloned, by cloning it once.
+     *
+     * @param value The value to be checked.
+     * @return {@code true} if the value can be cloned.
+     */
+    private static boolean isCloneable(Object value) {
+        try {
+            Tuple.cloneObject(value);
+            return true;
+        } catch (CloneNotSupportedException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the template registered for the type.
+     *
+     * @return The template of the type.
+     */
+    Tuple<?> getTemplate() {
+        return template;
+    }
+
+    /**
+     * Gets the estimated number of bytes retained by the template, computed
+     * when it was registered.
+     *
+     * @return The estimated size of the template.
+     */
+    long getTemplateSize() {
+        return templateSize;
+    }
+
+    /**
+     * Gets the comparator compiled from the schema of the type.
+     *
+     * @return The comparator of the tuples of the type.
+     */
+    TupleComparator getComparator() {
+        return comparator;
+    }
+
+    /**
+     * Gets how the typed tuples are copied from the template.
+     *
+     * @return The clone policy of the type.
+     */
+    ClonePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Creates a new typed tuple from the template.
+     *
+     * @return A shallow copy, a copy sharing the immutable values or a deep clone of the template,
+     *         depending on the policy, or a mutable copy if it is frozen.
+     * @throws CloneNotSupportedException If the template has to be cloned and cloning fails.
+     */
+    Tuple<?> instantiate() throws CloneNotSupportedException {
+        if (frozen) {
+            return ((FrozenTuple<?>) template).mutableCopy();
+        }
+        if (policy == ClonePolicy.SHALLOW) {
+            return shallowCopy(template);
+        }
+        if (mutableSlots != null) {
+            IndexedTuple<?> instance = ((IndexedTuple<?>) template).shallowCopy();
+            for (int slot : mutableSlots) {
+                instance.slot(slot, Tuple.cloneObject(instance.slot(slot)));
+            }
+            return instance;
+        }
+        return template.clone();
+    }
+
+    /**
+     * Creates new typed tuples from the template. The first one is created by
+     * {@link #instantiate()}, and the others are shallow copies of it whose
+     * mutable values are cloned, unless they have to be deep cloned.
+     *
+     * @param count The number of tuples to be created.
+     * @return The new typed tuples, holding the same values as if created by {@link #instantiate()}.
+     * @throws CloneNotSupportedException If the template has to be cloned and cloning fails.
+     */
+    Tuple<?>[] instantiate(int count) throws CloneNotSupportedException {
+        Tuple<?>[] instances = new Tuple<?>[count];
+        if (count == 0) {
+            return instances;
+        }
+        instances[0] = instantiate();
+
+        int[] cloned = (policy == ClonePolicy.SHALLOW && !frozen) ? NO_SLOTS : mutableSlots;
+        IndexedTuple<?> prototype = (cloned != null && instances[0] instanceof IndexedTuple)
+                ? (IndexedTuple<?>) instances[0] : null;
+        if (prototype == null || prototype.shallowCopy() == null) {
+            for (int i = 1; i < count; i++) {
+                instances[i] = instantiate();
+            }
+            return instances;
+        }
+
+        for (int i = 1; i < count; i++) {
+            IndexedTuple<?> instance = prototype.shallowCopy();
+            for (int slot : cloned) {
+                instance.slot(slot, Tuple.cloneObject(instance.slot(slot)));
+            }
+            instances[i] = instance;
+        }
+        return instances;
+    }
+
+    /**
+     * Creates a new typed tuple of the same class and lock as the template,
+     * holding the given values instead of copies of the values of the template.
+     * The values are not cloned, except the mutable values of a frozen type. A
+     * template that is a view of a segment row gives a tuple of its schema, as
+     * its clones do.
+     *
+     * @param values The values of the new tuple.
+     * @return The new typed tuple.
+     * @throws IllegalArgumentException If the values do not match the schema of the type.
+     * @throws CloneNotSupportedException If the template has to be cloned, or a value frozen, and cloning fails.
+     */
+    Tuple<?> instantiate(Object[] values) throws CloneNotSupportedException {
+        schema.checkValues(values);
+        if (frozen) {
+            return ((FrozenTuple<?>) template).withValues(values);
+        }
+        if (template instanceof IndexedTuple) {
+            IndexedTuple<?> indexed = (IndexedTuple<?>) template;
+            if (indexed instanceof PersistentTuple) {
+                return new PersistentTuple<>(Arrays.asList(values)).lockSize(indexed.getType());
+            }
+            IndexedTuple<?> instance = indexed.shallowCopy();
+            if (instance == null) {
+                // A view of a segment row, built the same way as its clones
+                return schema.newTuple(values);
+            }
+            // The values were checked against the schema, so they are written directly
+            for (int i = 0; i < values.length; i++) {
+                IndexedTuple.checkNesting(values[i]);
+                instance.slot(i, values[i]);
+            }
+            return instance;
+        }
+        if (template.getClass() == Tuple.class) {
+            return new Tuple<>(Arrays.asList(values)).lockSize(template.getType());
+        }
+        Tuple<?> clone = template.clone();
+        for (int i = 0; i < values.length; i++) {
+            clone.replace(i, values[i]);
+        }
+        return clone;
+    }
+
+    /**
+     * Creates a tuple of the same class and lock as the template, holding the
+     * same values without cloning them.
+     *
+     * @param template The template to be copied.
+     * @return The shallow copy of the template, or a deep clone if its class cannot share its values.
+     * @throws CloneNotSupportedException If the template has to be cloned and cloning fails.
+     */
+    private static <V> Tuple<V> shallowCopy(Tuple<V> template) throws CloneNotSupportedException {
+        if (template instanceof IndexedTuple) {
+            IndexedTuple<V> copy = ((IndexedTuple<V>) template).shallowCopy();
+            return copy != null ? copy : template.clone();
+        }
+        Tuple<V> copy = new Tuple<>(Arrays.asList(template.toArray()));
+        copy.lockSize(template.getType());
+        return copy;
+    }
+}
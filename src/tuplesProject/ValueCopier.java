@@ -0,0 +1,21 @@
+package tuplesProject;
+
+/**
+ * Copies the values of a class when tuples holding them are cloned, replacing
+ * the way the library would copy them otherwise.
+ *
+ * @param <T> The class of the values.
+ * @see Tuple#registerCopier(Class, ValueCopier)
+ */
+@FunctionalInterface
+public interface ValueCopier<T> {
+
+    /**
+     * Creates a copy of a value.
+     *
+     * @param original The value to be copied, never null.
+     * @return The copy of the value, or the value itself if it can be shared.
+     * @throws CloneNotSupportedException If the value cannot be copied.
+     */
+    T copy(T original) throws CloneNotSupportedException;
+}
@@ -0,0 +1,167 @@
+package tuplesProject;
+
+/**
+ * A simple benchmark comparing the storage engines of the tuples.
+ * <p>
+ * Each scenario is warmed up before being measured, and the results are
+ * accumulated into a sink so the JIT cannot discard the measured work.
+ * It lives with the checks, and is run from the test classes with
+ * {@code java tuplesProject.TupleBenchmark [size] [rounds] [iterations]},
+ * where the iterations are the measured runs of each scenario.
+ */
+public class TupleBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static int measuredRounds;
+    private static long sink;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        measuredRounds = args.length > 2 ? Integer.parseInt(args[2]) : MEASURED_ROUNDS;
+
+        System.out.println("Tuple size: " + size + ", rounds: " + rounds + ", iterations: " + measuredRounds);
+
+        Tuple<Integer> linked = new Tuple<>(0);
+        Tuple<Integer> array = new ArrayTuple<>(0);
+        for (int i = 1; i < size; i++) {
+            linked.ap(i);
+            array.ap(i);
+        }
+
+        report("append (linked)", () -> appendAll(new Tuple<>(0), size));
+        report("append (array)", () -> appendAll(new ArrayTuple<>(0), size));
+        report("get loop (linked)", () -> readAll(linked, rounds));
+        report("get loop (array)", () -> readAll(array, rounds));
+        report("replace loop (linked)", () -> replaceAll(linked, rounds));
+        report("replace loop (array)", () -> replaceAll(array, rounds));
+        report("clone (linked)", () -> linked.cloneSilent().getSize());
+        report("clone (array)", () -> array.cloneSilent().getSize());
+
+        Tuple.setTypedTuple(new Tuple<Object>("").ap(0).ap(0.0).lockSize("Benchmark row"));
+        report("typed tuples (one by one)", () -> typedOneByOne("Benchmark row", rounds));
+        report("typed tuples (batch)", () -> Tuple.getTypedTuples("Benchmark row", rounds).length);
+        report("typed tuples (rows)", () -> Tuple.getTypedTuples("Benchmark row", rounds,
+                i -> new Object[]{"Row", i, 0.5}).length);
+
+        reportFootprint("footprint (linked)", () -> new Tuple<>(0), size);
+        reportFootprint("footprint (array)", () -> new ArrayTuple<>(0), size);
+
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /**
+     * Measures the heap taken by each value of tuples of the given size, not
+     * counting the values themselves, and prints it.
+     * <p>
+     * The heap in use is sampled after forcing garbage collections before and
+     * after building a large number of tuples holding the same boxed value, so
+     * the result is the overhead of the storage engine per value, including the
+     * share of each value in the objects allocated once per tuple.
+     *
+     * @param name    The name of the storage engine.
+     * @param factory Creates a tuple holding a single value.
+     * @param size    The number of values in each tuple.
+     */
+    private static void reportFootprint(String name, TupleFactory factory, int size) {
+        int count = Math.max(1, 2_000_000 / size);
+        Integer value = 0;
+        Tuple<?>[] tuples = new Tuple<?>[count];
+
+        long before = usedMemory();
+        for (int i = 0; i < count; i++) {
+            Tuple<Integer> tuple = factory.create();
+            for (int j = 1; j < size; j++) {
+                tuple.ap(value);
+            }
+            tuples[i] = tuple;
+        }
+        long after = usedMemory();
+
+        sink += tuples.length;
+        System.out.printf("%-28s %12.1f bytes/value%n", name, (after - before) / (double) count / size);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Measures the given scenario after warming it up and prints its average
+     * time over the measured iterations.
+     *
+     * @param name     The name of the scenario.
+     * @param scenario The work to be measured.
+     */
+    private static void report(String name, Scenario scenario) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += scenario.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredRounds; i++) {
+            sink += scenario.run();
+        }
+        long elapsed = (System.nanoTime() - start) / measuredRounds;
+
+        System.out.printf("%-28s %12.3f ms%n", name, elapsed / 1_000_000.0);
+    }
+
+    private static long appendAll(Tuple<Integer> tuple, int size) {
+        for (int i = 1; i < size; i++) {
+            tuple.ap(i);
+        }
+        return tuple.getSize();
+    }
+
+    private static long readAll(Tuple<Integer> tuple, int rounds) {
+        long sum = 0;
+        int size = tuple.getSize();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < size; i++) {
+                Integer value = tuple.get(i);
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    private static long replaceAll(Tuple<Integer> tuple, int rounds) {
+        int size = tuple.getSize();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < size; i++) {
+                tuple.replace(i, i);
+            }
+        }
+        return size;
+    }
+
+    private static long typedOneByOne(String type, int count) {
+        long created = 0;
+        for (int i = 0; i < count; i++) {
+            created += Tuple.getTypedTuple(type).getSize();
+        }
+        return created;
+    }
+
+    /**
+     * Creates the tuples measured by the footprint scenarios.
+     */
+    @FunctionalInterface
+    private interface TupleFactory {
+        Tuple<Integer> create();
+    }
+
+    /**
+     * A piece of work measured by the benchmark.
+     */
+    @FunctionalInterface
+    private interface Scenario {
+        long run();
+    }
+}
@@ -0,0 +1,1704 @@
+package tuplesProject;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Runnable checks of the storage engines and of the features built on them.
+ * <p>
+ * Each check drives a feature and compares what it sees with a reference,
+ * usually a linked {@link Tuple} given the same operations, and stops at the
+ * first difference. The random operations use a fixed seed, so a failure can
+ * be reproduced. The checks live in the test sources and are run by the
+ * {@code test} target of the build; they print the outcome of every check and
+ * exit with status 1 if any of them failed, which fails the build.
+ */
+public class TupleChecks {
+
+    private static final long SEED = 20_240_601L;
+    private static final int STEPS = 300;
+    private static int failures;
+
+    public static void main(String[] args) {
+        run("array tuple against linked", TupleChecks::checkArrayTuple);
+        run("primitive tuples against linked", TupleChecks::checkPrimitiveTuples);
+        run("fixed-arity tuples against linked", TupleChecks::checkFixedTuples);
+        run("set sequences against linked", TupleChecks::checkSetSequences);
+        run("segment views against linked", TupleChecks::checkSegment);
+        run("batch rows against linked", TupleChecks::checkBatch);
+        run("persistent versions against linked", TupleChecks::checkPersistentTuple);
+        run("typed tuples sharing immutable values", TupleChecks::checkSharedValues);
+        run("typed tuples of several types", TupleChecks::checkTypedClasses);
+        run("concurrent registry", TupleChecks::checkConcurrentRegistry);
+        run("clone strategies", TupleChecks::checkCloneStrategies);
+        run("field-graph deep copies", TupleChecks::checkDeepCopier);
+        run("immutable values and collections", TupleChecks::checkImmutableValues);
+        run("clone policies and copiers", TupleChecks::checkClonePolicies);
+        run("batch instantiation", TupleChecks::checkBatchInstantiation);
+        run("linked size and root", TupleChecks::checkLinkedHeader);
+        run("linked lock and type", TupleChecks::checkLinkedLock);
+        run("retained size estimates", TupleChecks::checkRetainedSizes);
+        run("incremental hash codes", TupleChecks::checkIncrementalHash);
+        run("frozen tuples", TupleChecks::checkFrozenTuples);
+        run("seeded tuple hashes", TupleChecks::checkHasher);
+        run("compiled comparators", TupleChecks::checkComparators);
+        run("parallel sorts", TupleChecks::checkSorter);
+        run("order-preserving keys", TupleChecks::checkKeyCodec);
+        run("sized streams", TupleChecks::checkStreams);
+        run("bulk construction", TupleChecks::checkBulkConstruction);
+
+        System.out.println(failures == 0 ? "All checks passed." : failures + " check(s) failed.");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a check and prints its outcome.
+     *
+     * @param name  The name of the check.
+     * @param check The check to be run.
+     */
+    private static void run(String name, Check check) {
+        try {
+            check.run();
+            System.out.printf("%-40s ok%n", name);
+        } catch (Exception | AssertionError ex) {
+            failures++;
+            System.out.printf("%-40s FAILED: %s%n", name, ex);
+        }
+    }
+
+    /**
+     * Fails the running check if a condition does not hold.
+     *
+     * @param condition The condition to be checked.
+     * @param message   The description of the failure.
+     * @throws AssertionError If the condition is false.
+     */
+    private static void expect(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Fails the running check unless an action throws the given exception.
+     *
+     * @param type   The class of the expected exception.
+     * @param action The action expected to throw.
+     * @throws AssertionError If the action does not throw the exception.
+     */
+    private static void expectThrows(Class<? extends Throwable> type, Check action) {
+        try {
+            action.run();
+        } catch (Throwable ex) {
+            expect(type.isInstance(ex), "expected " + type.getSimpleName() + " but got " + ex);
+            return;
+        }
+        throw new AssertionError("expected " + type.getSimpleName());
+    }
+
+    /**
+     * Checks that a tuple holds the same values as a linked tuple, and that
+     * the two agree on equality, hash code and string.
+     *
+     * @param tuple  The tuple being checked.
+     * @param linked The linked tuple it is compared with.
+     */
+    private static void expectSameValues(Tuple<?> tuple, Tuple<?> linked) {
+        int size = linked.getSize();
+        expect(tuple.getSize() == size, "size " + tuple.getSize() + " instead of " + size);
+        Object[] values = linked.toArray();
+        for (int i = 0; i < size; i++) {
+            expect(Objects.equals(tuple.get(i), values[i]), "get(" + i + ") of " + tuple + " against " + linked);
+        }
+        expect(Arrays.equals(tuple.toArray(), values), "toArray of " + tuple);
+        expect(tuple.equals(linked) && linked.equals(tuple), "equals of " + tuple + " and " + linked);
+        expect(tuple.hashCode() == linked.hashCode(), "hashCode of " + tuple);
+        expect(tuple.toString().equals(linked.toString()), "toString of " + tuple);
+    }
+
+    /**
+     * Applies the same random operations to a tuple and to a linked tuple
+     * holding the same values, checking after each one that both still hold
+     * the same values, and finally that a clone of the tuple does too.
+     * Values are only replaced by values of the same class, and the linked
+     * tuple takes the lock and type of the tuple.
+     *
+     * @param tuple     The tuple being checked.
+     * @param values    Creates the values added to the tuples from random numbers.
+     * @param resizable Whether values can be appended, added and removed.
+     * @throws CloneNotSupportedException If the tuple cannot be cloned.
+     */
+    private static void compareWithLinked(Tuple<?> tuple, IntFunction<?> values, boolean resizable)
+            throws CloneNotSupportedException {
+        Tuple<Object> linked = new Tuple<>(Arrays.asList(tuple.toArray()));
+        if (tuple.isLockedSize()) {
+            linked.lockSize(tuple.getType());
+        }
+        Random random = new Random(SEED);
+        expectSameValues(tuple, linked);
+
+        for (int step = 0; step < STEPS; step++) {
+            int size = linked.getSize();
+            int index = random.nextInt(size);
+            Object value = values.apply(random.nextInt(1000));
+            switch (resizable ? random.nextInt(4) : 3) {
+                case 0:
+                    tuple.ap(value);
+                    linked.ap(value);
+                    break;
+                case 1:
+                    int position = random.nextInt(size + 1);
+                    tuple.add(position, value);
+                    linked.add(position, value);
+                    break;
+                case 2:
+                    if (size > 1) {
+                        expect(Objects.equals(tuple.remove(index), linked.remove(index)), "remove(" + index + ")");
+                    }
+                    break;
+                default:
+                    if (value.getClass() == linked.get(index).getClass()) {
+                        tuple.replace(index, value);
+                        linked.replace(index, value);
+                    }
+            }
+            expectSameValues(tuple, linked);
+        }
+
+        Tuple<?> clone = tuple.clone();
+        expect(clone != tuple, "clone is the same tuple");
+        expectSameValues(clone, linked);
+    }
+
+    /**
+     * Checks array tuples against linked tuples under random changes, and
+     * that they reject wrong replacements, bad indexes, nested tuples and
+     * appends once locked.
+     */
+    private static void checkArrayTuple() throws Exception {
+        compareWithLinked(new ArrayTuple<>((Object) 0), Integer::valueOf, true);
+        compareWithLinked(new ArrayTuple<>(Arrays.asList("a", 1, 2.5)),
+                number -> number % 2 == 0 ? "v" + number : (Object) number, true);
+
+        ArrayTuple<Object> tuple = new ArrayTuple<>(Arrays.asList("a", 1));
+        expectThrows(IllegalArgumentException.class, () -> tuple.replace(0, 1));
+        expectThrows(IndexOutOfBoundsException.class, () -> tuple.get(2));
+        expectThrows(IllegalArgumentException.class, () -> tuple.ap(new Tuple<>(1)));
+        tuple.lockSize("Array check");
+        expectThrows(UnsupportedOperationException.class, () -> tuple.ap(2));
+    }
+
+    /**
+     * Checks the int, long, double and mixed tuples against linked tuples
+     * under random changes, and their unboxed getters and setters.
+     */
+    private static void checkPrimitiveTuples() throws Exception {
+        compareWithLinked(new IntTuple(1, 2, 3), Integer::valueOf, true);
+        compareWithLinked(new LongTuple(1, 2, 3), number -> (long) number << 33, true);
+        compareWithLinked(new DoubleTuple(0.5, -1), number -> number / 7.0, true);
+        compareWithLinked(new MixedTuple(new Tuple<Object>(1).ap(2L).ap(0.5).ap("a").ap(true)), number -> {
+            switch (number % 5) {
+                case 0:
+                    return number;
+                case 1:
+                    return (long) number;
+                case 2:
+                    return number / 3.0;
+                case 3:
+                    return "v" + number;
+                default:
+                    return number % 2 == 0;
+            }
+        }, true);
+
+        IntTuple ints = new IntTuple(4, 5);
+        ints.setInt(1, ints.getInt(0) * 10);
+        ints.apInt(6);
+        expectSameValues(ints, new Tuple<>(4).ap(40).ap(6));
+        expect(Arrays.equals(ints.toIntArray(), new int[]{4, 40, 6}), "toIntArray");
+        expectThrows(IllegalArgumentException.class, () -> ints.ap("a"));
+
+        MixedTuple mixed = new MixedTuple(new Tuple<Object>(1).ap(2L).ap(0.5).ap("a"));
+        mixed.setLong(1, mixed.getLong(1) + mixed.getInt(0));
+        mixed.setDouble(2, mixed.getDouble(2) * 4);
+        expectSameValues(mixed, new Tuple<Object>(1).ap(3L).ap(2.0).ap("a"));
+        expect(mixed.getKind(3) == SlotKind.REFERENCE, "kind of a string");
+        expectThrows(IllegalArgumentException.class, () -> mixed.setInt(1, 0));
+
+        // Every engine copying another tuple keeps its lock and type, as clone() does
+        Tuple<Object> locked = new Tuple<Object>(1).ap("a").lockSize("Copy check");
+        List<Tuple<Object>> copies = List.of(new ArrayTuple<>(locked), new MixedTuple(locked),
+                new PersistentTuple<>(locked));
+        for (Tuple<Object> copy : copies) {
+            expect(copy.isLockedSize() && copy.getType().equals("Copy check"),
+                    "lock of a " + copy.getClass().getSimpleName() + " copy");
+            expectSameValues(copy, locked);
+        }
+        expect(!new ArrayTuple<>(new Tuple<Object>(1)).isLockedSize(), "copy of an unlocked tuple");
+    }
+
+    /**
+     * Checks that locked types of up to {@link FixedTuple#MAX_ARITY} values
+     * are handed out as a copy of the fixed-arity tuple of their size, which keeps its
+     * lock, class and values like a linked tuple, and that wider types are not.
+     */
+    private static void checkFixedTuples() throws Exception {
+        for (int arity = 1; arity <= FixedTuple.MAX_ARITY; arity++) {
+            String type = "Fixed check " + arity;
+            Tuple<Object> template = new Tuple<>((Object) 0);
+            for (int i = 1; i < arity; i++) {
+                template.ap(i);
+            }
+            Tuple.setTypedTuple(template.lockSize(type));
+
+            Tuple<?> typed = Tuple.getTypedTuple(type);
+            expect(typed.getClass().isHidden() && typed.getClass().getName().startsWith("tuplesProject.Tuple" + arity + "/"),
+                    "class " + typed.getClass());
+            expect(typed.isLockedSize() && typed.getType().equals(type), "lock of " + typed);
+            compareWithLinked(typed, Integer::valueOf, false);
+            expect(typed.clone().getClass() == typed.getClass(), "class of the clone");
+            expectThrows(UnsupportedOperationException.class, () -> typed.ap(0));
+            expectThrows(IllegalArgumentException.class, () -> typed.replace(0, "a"));
+        }
+
+        Tuple<Object> wide = new Tuple<>((Object) 0);
+        for (int i = 1; i <= FixedTuple.MAX_ARITY; i++) {
+            wide.ap(i);
+        }
+        Tuple.setTypedTuple(wide.lockSize("Fixed check wide"));
+        expect(!(Tuple.getTypedTuple("Fixed check wide") instanceof FixedTuple), "fixed tuple beyond the max arity");
+    }
+
+    /**
+     * Checks that {@link Tuple#set(Object)} walks fixed-arity and other
+     * indexed tuples the way it walks the nodes of a linked tuple: chained
+     * calls fill the positions in order, separate calls on the tuple all fill
+     * the first one, and the last position leads back to the whole tuple.
+     */
+    private static void checkSetSequences() throws Exception {
+        Tuple<Object> linked = new Tuple<Object>("x").ap("y").ap("z").lockSize("Set check");
+        List<String> expected = setSequences(linked.clone());
+        List<Tuple<Object>> tuples = List.of(FixedTuple.of(linked.clone()), new ArrayTuple<>(linked.clone()));
+        for (Tuple<Object> tuple : tuples) {
+            List<String> actual = setSequences(tuple);
+            expect(actual.equals(expected), tuple.getClass().getSimpleName() + " set " + actual + ", linked " + expected);
+        }
+
+        Tuple.setTypedTuple(linked);
+        Tuple<?> typed = Tuple.getTypedTuple("Set check");
+        expect(typed instanceof FixedTuple, "class of the typed tuple");
+        Tuple<?> next = typed.set("A");
+        expect(next.get(0).equals("y") && next.getSize() == 2 && next.getRoot() == typed, "view after set");
+        expect(next.set("B").set("C") == typed, "set on the last position returns the root");
+        expectSameValues(typed, new Tuple<Object>("A").ap("B").ap("C").lockSize("Set check"));
+    }
+
+    /**
+     * Runs the same calls to {@link Tuple#set(Object)} on a tuple of three
+     * strings, recording what each of them leaves behind.
+     *
+     * @param tuple The tuple, holding three strings.
+     * @return The values, sizes, roots and hash codes seen along the way.
+     */
+    private static List<String> setSequences(Tuple<Object> tuple) {
+        List<String> states = new ArrayList<>();
+        tuple.hashCode();
+        tuple.set("A");
+        tuple.set("B");
+        states.add(Arrays.toString(tuple.toArray()) + " " + tuple.hashCode());
+
+        tuple.set("C").set("D");
+        states.add(Arrays.toString(tuple.toArray()) + " " + tuple.hashCode());
+
+        Tuple<Object> next = tuple.set("E");
+        states.add(next.get(0) + " " + next.getSize() + " " + (next.getRoot() == tuple) + " "
+                + Arrays.toString(next.toArray()) + " " + next.isLockedSize() + " " + next.getType());
+
+        states.add(String.valueOf(tuple.set("F").set("G").set("H") == tuple));
+        tuple.set("I").set("J").set("K").set("L");
+        states.add(Arrays.toString(tuple.toArray()) + " " + tuple.hashCode());
+        return states;
+    }
+
+    /**
+     * Creates a linked row of the schema of the segment and batch checks.
+     *
+     * @param number The number the values of the row are made from.
+     * @return The new row, locked with the type of the checks.
+     */
+    private static Tuple<Object> row(int number) {
+        return new Tuple<Object>("r" + number).ap(number).ap((long) number * number).ap(number / 4.0)
+                .lockSize("Row check");
+    }
+
+    /**
+     * Creates a value of one of the classes of the rows of the segment and
+     * batch checks.
+     *
+     * @param number The number the value is made from.
+     * @return The new value.
+     */
+    private static Object rowValue(int number) {
+        switch (number % 4) {
+            case 0:
+                return "v" + number;
+            case 1:
+                return number;
+            case 2:
+                return (long) number;
+            default:
+                return number / 8.0;
+        }
+    }
+
+    /**
+     * Checks rows appended to a segment against linked rows, through views and
+     * primitive accessors, and that it rejects values outside its schema.
+     */
+    private static void checkSegment() throws Exception {
+        Tuple.setTypedTuple(row(0));
+        TupleSegment segment = TupleSegment.forType("Row check", 4);
+        for (int i = 0; i < 5_000; i++) {
+            expect(segment.append(row(i)) == i, "index of row " + i);
+        }
+        expect(segment.getSize() == 5_000 && segment.getCapacity() >= 5_000, "size of the segment");
+
+        TupleSegment.View view = segment.view(0);
+        for (int i = 0; i < 5_000; i += 97) {
+            expectSameValues(view.moveTo(i), row(i));
+            expectSameValues(segment.get(i), row(i));
+        }
+        compareWithLinked(segment.view(4_321), TupleChecks::rowValue, false);
+
+        segment.setLong(7, 2, -1);
+        view.moveTo(7).setInt(1, 70);
+        expect(segment.getInt(7, 1) == 70 && view.getLong(2) == -1, "primitive writes of a row");
+        expectSameValues(segment.get(7), new Tuple<Object>("r7").ap(70).ap(-1L).ap(7 / 4.0).lockSize("Row check"));
+        expectThrows(IllegalArgumentException.class, () -> segment.append(new Tuple<>("a").lockSize("Row check")));
+        expectThrows(IllegalArgumentException.class, () -> view.replace(0, 1));
+        expectThrows(IllegalArgumentException.class, () -> segment.setInt(7, 2, 1));
+        expectThrows(IllegalArgumentException.class, () -> TupleSegment.forType("Row check", 0));
+    }
+
+    /**
+     * Checks rows appended to a batch against linked rows, its columns and
+     * sums, and that cells reject values of another kind.
+     */
+    private static void checkBatch() throws Exception {
+        Tuple.setTypedTuple(row(0));
+        TupleBatch batch = TupleBatch.forType("Row check");
+        double sum = 0;
+        for (int i = 0; i < 1_000; i++) {
+            expect(batch.append(row(i)) == i, "index of row " + i);
+            sum += i / 4.0;
+        }
+        expect(batch.getSize() == 1_000, "size of the batch");
+
+        List<Tuple<Object>> rows = batch.toTuples();
+        for (int i = 0; i < 1_000; i++) {
+            expectSameValues(rows.get(i), row(i));
+        }
+        compareWithLinked(batch.getRow(500), TupleChecks::rowValue, false);
+
+        int[] ints = batch.intColumn(1);
+        long[] longs = batch.longColumn(2);
+        expect(ints[999] == 999 && longs[999] == 999L * 999, "columns");
+        expect(batch.sum(3) == sum && batch.sum(1) == 999 * 1_000 / 2, "sums");
+
+        batch.setCell(3, 0, "changed");
+        batch.setLong(3, 2, batch.getInt(3, 1) * 2L);
+        expectSameValues(batch.getRow(3), new Tuple<Object>("changed").ap(3).ap(6L).ap(0.75).lockSize("Row check"));
+        expectThrows(IllegalArgumentException.class, () -> batch.appendRow("a", "b", 1L, 0.5));
+        expectThrows(IllegalArgumentException.class, () -> batch.setCell(0, 1, "a"));
+        expectThrows(IllegalArgumentException.class, () -> batch.setInt(0, 2, 1));
+        expectThrows(IllegalArgumentException.class, () -> batch.setDouble(0, 1, 1));
+    }
+
+    /**
+     * Checks persistent versions against linked tuples under random changes,
+     * that earlier versions never change, and that locking returns a new
+     * version.
+     */
+    private static void checkPersistentTuple() throws Exception {
+        PersistentTuple<Object> version = new PersistentTuple<>((Object) 0);
+        Tuple<Object> linked = new Tuple<>((Object) 0);
+        List<PersistentTuple<Object>> versions = new ArrayList<>();
+        List<Object[]> snapshots = new ArrayList<>();
+        Random random = new Random(SEED);
+
+        for (int step = 0; step < STEPS; step++) {
+            int size = linked.getSize();
+            int index = random.nextInt(size);
+            Integer value = random.nextInt(1000);
+            switch (random.nextInt(4)) {
+                case 0:
+                    version = version.ap(value);
+                    linked.ap(value);
+                    break;
+                case 1:
+                    int position = random.nextInt(size + 1);
+                    version = version.withAdded(position, value);
+                    linked.add(position, value);
+                    break;
+                case 2:
+                    if (size > 1) {
+                        version = version.withRemoved(index);
+                        linked.remove(index);
+                    }
+                    break;
+                default:
+                    version = version.withReplaced(index, value);
+                    linked.replace(index, value);
+            }
+            expectSameValues(version, linked);
+            versions.add(version);
+            snapshots.add(linked.toArray());
+        }
+
+        // Every version shares structure with the next ones, but none of them changed
+        for (int i = 0; i < versions.size(); i++) {
+            expect(Arrays.equals(versions.get(i).toArray(), snapshots.get(i)), "version " + i + " changed");
+        }
+        PersistentTuple<Object> last = version;
+        expectSameValues(last.clone(), linked);
+        expectThrows(UnsupportedOperationException.class, () -> last.replace(0, 1));
+        expectThrows(UnsupportedOperationException.class, () -> last.add(0, 1));
+        expectThrows(UnsupportedOperationException.class, () -> last.remove(0));
+
+        PersistentTuple<Object> first = new PersistentTuple<>(Arrays.asList(1, 2, 3));
+        PersistentTuple<Object> second = first.set(4).set(5);
+        expectSameValues(first, new Tuple<Object>(1).ap(2).ap(3));
+        expectSameValues(second, new Tuple<Object>(4).ap(5).ap(3));
+
+        // Locking returns a locked version and leaves the shared one as it was
+        PersistentTuple<Object> locked = first.lockSize("Persistent check");
+        expect(locked != first && locked.isLockedSize() && locked.getType().equals("Persistent check"), "locked version");
+        expect(!first.isLockedSize() && first.getType().isEmpty(), "lockSize changed the shared version");
+        expect(locked.set(7).getType().equals("Persistent check"), "lock of the next version");
+        expectThrows(UnsupportedOperationException.class, () -> locked.ap(4));
+        expect(first.lockSize(" ") == null, "blank type");
+    }
+
+    /**
+     * Checks that typed tuples share the immutable values of their template
+     * and hold their own copies of the mutable ones as soon as they are
+     * created, so reading them never changes them.
+     */
+    private static void checkSharedValues() throws Exception {
+        List<String> names = new ArrayList<>(Arrays.asList("a", "b"));
+        String text = new String("Text");
+        Tuple<Object> template = new Tuple<Object>(text).ap(names).ap(5).lockSize("Shared values check");
+        Tuple.setTypedTuple(template);
+
+        IndexedTuple<?> first = (IndexedTuple<?>) Tuple.getTypedTuple("Shared values check");
+        Tuple<?> second = Tuple.getTypedTuple("Shared values check");
+        expectSameValues(first, template);
+        // The copy is made up front: the immutable value is shared, the mutable one already cloned
+        expect(first.slot(0) == text, "immutable value not shared with the template");
+        expect(first.slot(1) != names && first.slot(1).equals(names), "mutable value shared with the template");
+        Object before = first.slot(1);
+        expect(first.get(1) == before && first.toArray()[1] == before, "reading a copy changed it");
+        List<String> firstNames = first.get(1);
+        firstNames.add("c");
+        expect(names.size() == 2 && second.get(1).equals(names), "copy changed the template or another copy");
+
+        // Overwriting a value leaves the template alone
+        second.set("Other").set(new ArrayList<>(List.of("z"))).set(6);
+        expectSameValues(second, new Tuple<Object>("Other").ap(List.of("z")).ap(6).lockSize("Shared values check"));
+        expectSameValues(Tuple.getTypedTuple("Shared values check"), template);
+        compareWithLinked(Tuple.getTypedTuple("Shared values check"), TupleChecks::rowValue, false);
+
+        // Comparing, hashing and printing a copy give the same results as for the template
+        IndexedTuple<?> unread = (IndexedTuple<?>) Tuple.getTypedTuple("Shared values check");
+        Object copied = unread.slot(1);
+        expect(template.equals(unread) && unread.equals(template), "copy equals the template");
+        expect(unread.hashCode() == template.hashCode() && unread.toString().equals(template.toString()),
+                "hash and string of a copy");
+        expect(unread.slot(1) == copied, "hashing a copy changed it");
+    }
+
+    /**
+     * Checks two types of the same size: each gets its own copy of the
+     * fixed-arity class, shared by its clones and rows and replaced with the
+     * type, they stay unequal, and each position keeps rejecting values
+     * outside the schema of its type.
+     */
+    private static void checkTypedClasses() throws Exception {
+        Tuple.setTypedTuple(new Tuple<Object>("Text").ap(5).lockSize("Class check name"));
+        Tuple.setTypedTuple(new Tuple<Object>(0.5).ap(5L).lockSize("Class check pair"));
+
+        Tuple<?> name = Tuple.getTypedTuple("Class check name");
+        Tuple<?> pair = Tuple.getTypedTuple("Class check pair");
+        // Each type gets its own copy of the fixed-arity class of its size
+        expect(name.getClass().isHidden() && pair.getClass().isHidden() && name.getClass() != pair.getClass(),
+                "class of each type");
+        expect(name.getClass().getSuperclass() == FixedTuple.class && name.clone().getClass() == name.getClass()
+                && Tuple.getTypedTuple("Class check name").getClass() == name.getClass(), "class of the copies");
+        name.set("Other").set(6);
+        pair.set(1.5).set(6L);
+        expectSameValues(name, new Tuple<Object>("Other").ap(6).lockSize("Class check name"));
+        expectSameValues(pair, new Tuple<Object>(1.5).ap(6L).lockSize("Class check pair"));
+        expect(!name.equals(pair), "tuples of different types are equal");
+
+        // Each position keeps rejecting values of another class
+        expectThrows(IllegalArgumentException.class, () -> name.replace(0, 1));
+        expectThrows(IllegalArgumentException.class, () -> name.replace(1, "a"));
+        expectThrows(IllegalArgumentException.class, () -> pair.replace(1, 1));
+        expectThrows(IllegalArgumentException.class, () -> pair.replace(0, null));
+        name.replace(0, null);
+        expect(name.get(0) == null, "null at a position of a reference class");
+
+        Tuple<?>[] rows = Tuple.getTypedTuples("Class check name", 3, i -> new Object[]{"Row " + i, i});
+        for (int i = 0; i < rows.length; i++) {
+            expect(rows[i].getClass() == name.getClass(), "class of row " + i);
+            expectSameValues(rows[i], new Tuple<Object>("Row " + i).ap(i).lockSize("Class check name"));
+        }
+        expectThrows(IllegalArgumentException.class,
+                () -> Tuple.getTypedTuples("Class check name", 1, i -> new Object[]{i, "Row"}));
+
+        // Replacing the type gives it a new class
+        Tuple.replaceTypedTuple(new Tuple<Object>("Text").ap(5).lockSize("Class check name"));
+        Class<?> replaced = Tuple.getTypedTuple("Class check name").getClass();
+        expect(replaced.isHidden() && replaced != name.getClass(), "class of a replaced type");
+    }
+
+    /**
+     * Checks the typed-tuple registry under concurrent registrations,
+     * replacements and reads: readers never see a torn template, and only one
+     * thread wins the registration of a type.
+     */
+    private static void checkConcurrentRegistry() throws Exception {
+        Tuple<Object> oldTemplate = new Tuple<Object>("old").ap(1).lockSize("Registry check shared");
+        Tuple<Object> newTemplate = new Tuple<Object>("new").ap(2).lockSize("Registry check shared");
+        Tuple.replaceTypedTuple(oldTemplate);
+        int sharedId = Tuple.getTypeId("Registry check shared");
+
+        int threads = 8;
+        AtomicInteger winners = new AtomicInteger();
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 2_000; i++) {
+                        if (worker == 0) {
+                            Tuple.replaceTypedTuple(i % 2 == 0 ? newTemplate : oldTemplate);
+                        }
+                        // Readers see one of the two whole templates, never a missing or mixed one
+                        Tuple<?> shared = Tuple.getTypedTuple(sharedId);
+                        expect(shared.equals(oldTemplate) || shared.equals(newTemplate), "torn read " + shared);
+                        if (i % 100 == 0) {
+                            String type = "Registry check " + worker + "-" + i;
+                            Tuple.setTypedTuple(new Tuple<Object>(worker).ap(i).lockSize(type));
+                            expect(Tuple.getTypedTuple(type).equals(new Tuple<Object>(worker).ap(i).lockSize(type)),
+                                    "own type " + type);
+                        }
+                    }
+                    if (Tuple.setTypedTuple(new Tuple<Object>(worker).lockSize("Registry check race"))) {
+                        winners.incrementAndGet();
+                    }
+                } catch (Throwable ex) {
+                    errors.add(ex);
+                }
+            });
+            workers.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : workers) {
+            thread.join();
+        }
+
+        expect(errors.isEmpty(), "worker failed: " + errors.peek());
+        expect(winners.get() == 1, winners.get() + " threads registered the same type");
+        expect(Tuple.getTypeId("Registry check shared") == sharedId, "id of the type changed");
+    }
+
+    /**
+     * Checks how values are cloned: immutable values are shared, arrays and
+     * cloneable values are copied, the strategy of a class is cached, and
+     * errors thrown by clone() are not hidden.
+     */
+    private static void checkCloneStrategies() throws Exception {
+        String text = "Text";
+        Integer number = 1_000;
+        int[] numbers = {1, 2};
+        Counter counter = new Counter();
+        Tuple<Object> tuple = new Tuple<Object>(text).ap(number).ap(numbers).ap(counter);
+
+        Tuple<Object> clone = tuple.clone();
+        expect(clone.get(0) == text && clone.get(1) == number, "immutable values copied");
+        int[] clonedNumbers = clone.get(2);
+        Counter clonedCounter = clone.get(3);
+        expect(clonedNumbers != numbers && Arrays.equals(clonedNumbers, numbers), "array of primitives");
+        expect(clonedCounter != counter && clonedCounter.count == counter.count, "cloneable value");
+        expect(CloneStrategy.of(Counter.class) == CloneStrategy.of(Counter.class), "strategy not cached");
+
+        expectThrows(CloneNotSupportedException.class, () -> new Tuple<Object>(new Opaque()).clone());
+        // Errors thrown by clone() are not mistaken for a value that cannot be cloned
+        expectThrows(CloneError.class, () -> new Tuple<Object>(new Exploding()).clone());
+        expectThrows(CloneError.class, () -> new ArrayTuple<Object>(new Exploding()).clone());
+    }
+
+    /**
+     * Checks field-by-field copies of a long cyclic graph, that classes with a
+     * custom serialized form are left to serialization, and that the fields
+     * set by constructors are overwritten in the copies.
+     */
+    private static void checkDeepCopier() throws Exception {
+        // A long cyclic chain, which a recursive copier could not walk
+        Node head = new Node(0);
+        Node tail = head;
+        for (int i = 1; i < 100_000; i++) {
+            tail.next = new Node(i);
+            tail = tail.next;
+        }
+        tail.next = head;
+        head.cache = "cached";
+
+        Node copy = (Node) new Tuple<Object>(head).clone().get(0);
+        Node original = head;
+        Node copied = copy;
+        for (int i = 0; i < 100_000; i++) {
+            expect(copied != original && copied.value == original.value, "node " + i);
+            original = original.next;
+            copied = copied.next;
+        }
+        expect(copied == copy, "cycle not kept");
+        expect(copy.cache == null, "transient field copied");
+
+        // A class customizing its serialized form is left to serialization
+        Custom custom = new Custom();
+        expect(DeepCopier.copy(custom) == null, "custom serialized form copied field by field");
+        Custom customCopy = (Custom) new Tuple<Object>(custom).clone().get(0);
+        expect(customCopy != custom && customCopy.value == custom.value, "serialized copy");
+
+        // Any class with a no-arg constructor is copied, and every field it sets is overwritten
+        expect(DeepCopier.copy(new Node(1)) != null, "plain constructor not copied field by field");
+        Counted counted = new Counted();
+        int created = Counted.created;
+        Counted countedCopy = (Counted) DeepCopier.copy(counted);
+        expect(countedCopy != null && countedCopy != counted && Counted.created == created + 1,
+                "constructor not run for the copy");
+        Cached cached = new Cached();
+        cached.value = 8;
+        Cached cachedCopy = (Cached) DeepCopier.copy(cached);
+        expect(cachedCopy != null && cachedCopy.value == 8 && cachedCopy.cache == null,
+                "fields set by the constructor kept in the copy");
+    }
+
+    /**
+     * Checks which values clones share: registered immutable classes, records,
+     * enums and unmodifiable collections of immutable values; and how
+     * collections and arrays of mutable values are copied.
+     */
+    private static void checkImmutableValues() throws Exception {
+        Tuple.registerImmutableType(Label.class);
+        Label label = new Label();
+        Point point = new Point(1, 2);
+        List<Counter> counters = new ArrayList<>(List.of(new Counter()));
+        List<String> fixed = List.of("a", "b");
+        List<Counter> fixedCounters = List.of(new Counter());
+        Object[] array = {"a", new Counter()};
+        Tuple<Object> tuple = new Tuple<Object>(label).ap(point).ap(Thread.State.NEW)
+                .ap(counters).ap(fixed).ap(fixedCounters).ap(array);
+
+        Tuple<Object> clone = tuple.clone();
+        expect(clone.get(0) == label, "registered immutable class copied");
+        expect(clone.get(1) == point, "record of immutable components copied");
+        expect(clone.get(2) == Thread.State.NEW, "enum copied");
+
+        // Mutable collections are copied the way their clone() does: a new collection, the same elements
+        List<Counter> clonedCounters = clone.get(3);
+        expect(clonedCounters != counters && clonedCounters.get(0) == counters.get(0), "shallow list copy");
+        expect(clone.get(4) == fixed, "unmodifiable list of immutable values copied");
+        List<Counter> clonedFixedCounters = clone.get(5);
+        expect(clonedFixedCounters != fixedCounters && clonedFixedCounters.get(0) != fixedCounters.get(0),
+                "unmodifiable list of mutable values shared");
+        Object[] clonedArray = clone.get(6);
+        expect(clonedArray != array && clonedArray[0] == array[0] && clonedArray[1] != array[1], "array copy");
+    }
+
+    /**
+     * Checks that each clone policy of a type decides whether its typed tuples
+     * share or copy their values, and that a registered copier is used for its
+     * class.
+     */
+    private static void checkClonePolicies() throws Exception {
+        Counter counter = new Counter();
+        for (ClonePolicy policy : ClonePolicy.values()) {
+            String type = "Policy check " + policy;
+            Tuple<Object> template = new Tuple<Object>("Text").ap(counter).lockSize(type);
+            Tuple.setTypedTuple(template, policy);
+
+            Tuple<?> typed = Tuple.getTypedTuple(type);
+            expectSameValues(typed, template);
+            Counter typedCounter = typed.get(1);
+            expect((typedCounter == counter) == (policy == ClonePolicy.SHALLOW), policy + " copied the wrong way");
+            expect(Tuple.getTypedTuples(type, 3).length == 3, policy + " batch");
+        }
+
+        // A registered copier replaces the strategy of its class, even for values that cannot be cloned
+        Tuple.registerCopier(Sealed.class, original -> new Sealed(original.value + 1));
+        Sealed sealed = new Sealed(1);
+        Sealed copy = (Sealed) new ArrayTuple<Object>(sealed).clone().get(0);
+        expect(copy != sealed && copy.value == 2, "registered copier not used");
+    }
+
+    /**
+     * Checks {@link Tuple#getTypedTuples} for templates of every engine: plain
+     * copies equal the template, rows built from values get the class of the
+     * typed tuple and hold the given values, each tuple of a batch holds its
+     * own mutable values under every policy that clones them, and a missing
+     * type, a negative count or values that do not fit the type are handled.
+     */
+    private static void checkBatchInstantiation() throws Exception {
+        List<Object> wideValues = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            wideValues.add(i);
+        }
+        List<Tuple<?>> templates = List.of(
+                new Tuple<Object>("a").ap(0),
+                new Tuple<>(wideValues),
+                new ArrayTuple<>(wideValues),
+                new IntTuple(1, 2, 3),
+                new MixedTuple(new Tuple<Object>(1).ap("a").ap(0.5)),
+                new PersistentTuple<>(wideValues));
+
+        for (int t = 0; t < templates.size(); t++) {
+            String type = "Batch check " + t;
+            Tuple<?> template = templates.get(t).lockSize(type);
+            Tuple.setTypedTuple(template);
+            Object[] values = template.toArray();
+            Class<?> typedClass = Tuple.getTypedTuple(type).getClass();
+
+            Tuple<?>[] copies = Tuple.getTypedTuples(type, 5);
+            Tuple<?>[] rows = Tuple.getTypedTuples(type, 5, row -> {
+                Object[] rowValues = values.clone();
+                rowValues[0] = rowValues[0] instanceof Integer ? (Object) (row * 10) : "Row " + row;
+                return rowValues;
+            });
+            for (int row = 0; row < 5; row++) {
+                expectSameValues(copies[row], template);
+                expect(rows[row].getClass() == typedClass, "class of a row of " + type + ": " + rows[row].getClass());
+                Tuple<Object> expected = new Tuple<>(Arrays.asList(values)).lockSize(type);
+                expected.replace(0, values[0] instanceof Integer ? (Object) (row * 10) : "Row " + row);
+                expectSameValues(rows[row], expected);
+            }
+        }
+
+        // Tuples of a batch hold their own mutable values, unless the policy shares them
+        List<String> names = new ArrayList<>(List.of("a"));
+        for (ClonePolicy policy : ClonePolicy.values()) {
+            String type = "Batch check " + policy;
+            Tuple.setTypedTuple(new Tuple<Object>("Text").ap(names).lockSize(type), policy);
+            Tuple<?>[] batch = Tuple.getTypedTuples(type, 3);
+            for (Tuple<?> tuple : batch) {
+                expect(tuple.get(1).equals(names) && (tuple.get(1) == names) == (policy == ClonePolicy.SHALLOW),
+                        "mutable value of a batch of " + type);
+            }
+            expect((batch[1].get(1) == batch[2].get(1)) == (policy == ClonePolicy.SHALLOW),
+                    "mutable value shared within a batch of " + type);
+        }
+        Tuple.setTypedTuple(new Tuple<Object>("Text").ap(names).lockSize("Batch check frozen").freeze());
+        Tuple<?>[] frozenBatch = Tuple.getTypedTuples("Batch check frozen", 3);
+        expect(frozenBatch[1].get(1) != frozenBatch[2].get(1) && frozenBatch[2].get(1).equals(names)
+                && !(frozenBatch[2] instanceof FrozenTuple), "batch of a frozen type");
+
+        expect(Tuple.getTypedTuples("Batch check missing", 2) == null, "missing type");
+        expectThrows(IllegalArgumentException.class, () -> Tuple.getTypedTuples("Batch check 0", -1));
+        expectThrows(IllegalArgumentException.class,
+                () -> Tuple.getTypedTuples("Batch check 0", 1, row -> new Object[]{"a"}));
+    }
+
+    /**
+     * Checks the size and root kept in the header of linked tuples through
+     * random appends, inserts and removals, as seen from every node, and that
+     * a clone gets a header of its own.
+     */
+    private static void checkLinkedHeader() throws Exception {
+        Random random = new Random(SEED);
+        Tuple<Integer> tuple = new Tuple<>(0);
+        for (int step = 0; step < STEPS; step++) {
+            int size = tuple.getSize();
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                tuple.ap(step);
+            } else if (operation == 1) {
+                tuple.add(random.nextInt(size + 1), step);
+            } else if (size > 1) {
+                tuple.remove(random.nextInt(size));
+            }
+
+            int counted = 0;
+            for (Integer ignored : tuple) {
+                counted++;
+            }
+            expect(tuple.getSize() == counted, "size " + tuple.getSize() + " after step " + step + ", counted " + counted);
+            expect(tuple.getRoot() == tuple, "root of the root");
+
+            // Walking the nodes one by one, each one sees the same root and the values after it
+            Tuple<Integer> node = tuple;
+            for (int i = 0; i < counted; i++) {
+                expect(node.getRoot() == tuple, "root of node " + i);
+                expect(node.getSize() == counted - i, "size of node " + i);
+                node = node.set(node.<Integer>get(0));
+            }
+            expect(node == tuple, "walk back to the root");
+        }
+
+        Tuple<Integer> copy = tuple.clone();
+        expect(copy.getRoot() == copy && copy.getSize() == tuple.getSize(), "root and size of a clone");
+        copy.ap(-1);
+        expect(copy.getSize() == tuple.getSize() + 1, "clone has its own size");
+    }
+
+    /**
+     * Checks that locking any node of a linked tuple locks the whole tuple,
+     * as seen from every node, and that clones keep the lock in a header of
+     * their own.
+     */
+    private static void checkLinkedLock() throws Exception {
+        Tuple<Integer> tuple = new Tuple<>(0);
+        for (int i = 1; i < 10; i++) {
+            tuple.ap(i);
+        }
+        List<Tuple<Integer>> nodes = new ArrayList<>();
+        Tuple<Integer> node = tuple;
+        for (int i = 0; i < 10; i++) {
+            nodes.add(node);
+            node = node.set(i);
+        }
+
+        // Locking a node in the middle locks the whole tuple
+        expect(nodes.get(5).lockSize("Lock check") == nodes.get(5), "lockSize result");
+        for (Tuple<Integer> each : nodes) {
+            expect(each.isLockedSize() && each.getType().equals("Lock check"), "lock seen from a node");
+            expectThrows(UnsupportedOperationException.class, () -> each.ap(0));
+            expectThrows(UnsupportedOperationException.class, () -> each.add(0, 0));
+            expectThrows(UnsupportedOperationException.class, () -> each.remove(0));
+        }
+        expect(tuple.getSize() == 10, "size of a locked tuple");
+        expect(nodes.get(3).lockSize(" ") == null && tuple.getType().equals("Lock check"), "blank type");
+
+        Tuple<Integer> copy = nodes.get(7).clone();
+        expect(copy.isLockedSize() && copy.getType().equals("Lock check"), "lock of a clone");
+        expect(copy.getSize() == 3, "clone of a middle node");
+        copy.lockSize("Other lock check");
+        expect(tuple.getType().equals("Lock check"), "clone has its own header");
+
+        Tuple<Integer> unlocked = new Tuple<>(1).ap(2);
+        expect(!unlocked.isLockedSize() && unlocked.getType().isEmpty(), "unlocked tuple");
+        expect(unlocked.lockSize() == null && !unlocked.isLockedSize(), "lock without a type");
+    }
+
+    /**
+     * Checks that the retained size estimates are stable and grow with the
+     * values of every engine and with the nodes of linked tuples, and that the
+     * registry size is the sum of the sizes of its types.
+     */
+    private static void checkRetainedSizes() throws Exception {
+        List<Tuple<Object>> tuples = List.of(
+                new Tuple<Object>("a").ap(1),
+                new ArrayTuple<Object>(List.of("a", 1)),
+                FixedTuple.ofValues(new Object[]{"a", 1}),
+                new PersistentTuple<Object>(List.of("a", 1)),
+                new MixedTuple(new Tuple<Object>("a").ap(1)));
+        String longer = "a".repeat(1_000);
+        for (Tuple<Object> tuple : tuples) {
+            long size = tuple.estimateRetainedSize();
+            expect(size > 0, "estimate of " + tuple.getClass().getSimpleName());
+            expect(tuple.estimateRetainedSize() == size, "estimate is stable");
+            Tuple<Object> grown = tuple;
+            if (tuple instanceof PersistentTuple<Object> persistent) {
+                grown = persistent.withReplaced(0, longer);
+            } else {
+                tuple.replace(0, longer);
+            }
+            expect(grown.estimateRetainedSize() > size + 900,
+                    "estimate of " + tuple.getClass().getSimpleName() + " grows with its values");
+        }
+
+        Tuple<Object> linked = new Tuple<>("a");
+        long previous = linked.estimateRetainedSize();
+        for (int i = 0; i < 20; i++) {
+            linked.ap(i);
+            long size = linked.estimateRetainedSize();
+            expect(size > previous, "estimate grows with the linked nodes");
+            previous = size;
+        }
+
+        String type = "Size check";
+        Tuple.removeTypedTuple(type);
+        long registrySize = Tuple.estimateRegistrySize();
+        expect(Tuple.setTypedTuple(new Tuple<Object>(longer).ap(1).lockSize(type)), "register " + type);
+        long typeSize = Tuple.estimateTypedTupleSizes().get(type);
+        expect(typeSize == Tuple.getTemplate(type).estimateRetainedSize(), "size of the registered tuple");
+        expect(typeSize >= 1_000, "size of the registered values");
+        expect(Tuple.estimateRegistrySize() == registrySize + typeSize, "registry size after registering");
+        long total = 0;
+        for (long size : Tuple.estimateTypedTupleSizes().values()) {
+            total += size;
+        }
+        expect(total == Tuple.estimateRegistrySize(), "registry size is the sum of the types");
+        expect(Tuple.removeTypedTuple(type), "remove " + type);
+        expect(Tuple.estimateRegistrySize() == registrySize, "registry size after removing");
+    }
+
+    private static void expectListHash(Tuple<?> tuple, String context) {
+        int expected = Arrays.asList(tuple.toArray()).hashCode();
+        expect(tuple.hashCode() == expected, "hash of " + tuple.getClass().getSimpleName() + " " + context);
+        expect(tuple.hashCode() == expected, "cached hash of " + tuple.getClass().getSimpleName() + " " + context);
+    }
+
+    /**
+     * Changes a tuple at random and checks its hash code, and the cached one,
+     * against the hash of a list of its values after every change.
+     *
+     * @param tuple     The tuple to be changed.
+     * @param values    The source of the values appended, inserted or replaced.
+     * @param resizable Whether values can be appended, inserted and removed, or only replaced.
+     */
+    private static void checkHashUnderChanges(Tuple<?> tuple, IntFunction<?> values, boolean resizable) {
+        Random random = new Random(SEED);
+        expectListHash(tuple, "at the start");
+        for (int step = 0; step < STEPS; step++) {
+            int size = tuple.getSize();
+            int index = random.nextInt(size);
+            Object value = values.apply(random.nextInt(1000));
+            Object current = tuple.get(index);
+            switch (resizable ? random.nextInt(4) : 3) {
+                case 0 -> tuple.ap(value);
+                case 1 -> tuple.add(random.nextInt(size + 1), value);
+                case 2 -> {
+                    if (size > 1) {
+                        tuple.remove(random.nextInt(2) == 0 ? size - 1 : index);
+                    }
+                }
+                default -> {
+                    if (current instanceof Integer) {
+                        tuple.setInt(index, random.nextInt());
+                    } else if (current instanceof Long) {
+                        tuple.setLong(index, random.nextLong());
+                    } else if (current instanceof Double) {
+                        tuple.setDouble(index, random.nextDouble());
+                    } else if (value.getClass() == current.getClass()) {
+                        tuple.replace(index, value);
+                    }
+                }
+            }
+            expectListHash(tuple, "after step " + step);
+        }
+    }
+
+    /**
+     * Checks the incrementally kept hash codes of every mutable engine under
+     * random changes, and that tuples holding mutable values or wrapping an
+     * array hash them again when they change from outside the tuple.
+     */
+    private static void checkIncrementalHash() throws Exception {
+        IntFunction<Object> mixed = number -> switch (number % 4) {
+            case 0 -> number;
+            case 1 -> (long) number;
+            case 2 -> number / 8.0;
+            default -> "v" + number;
+        };
+        checkHashUnderChanges(new Tuple<Object>(0).ap(1L).ap(0.5).ap("a"), mixed, true);
+        checkHashUnderChanges(new ArrayTuple<>(Arrays.asList(0, 1L, 0.5, "a")), mixed, true);
+        checkHashUnderChanges(new MixedTuple(new Tuple<Object>(0).ap(1L).ap(0.5).ap("a")), mixed, true);
+        checkHashUnderChanges(new IntTuple(1, 2, 3), Integer::valueOf, true);
+        checkHashUnderChanges(new LongTuple(1, 2, 3), Long::valueOf, true);
+        checkHashUnderChanges(new DoubleTuple(1, 2, 3), number -> number / 8.0, true);
+        checkHashUnderChanges(FixedTuple.ofValues(new Object[]{0, 1L, 0.5, "a"}), mixed, false);
+
+        // Mutable values are hashed again on every call
+        List<Integer> list = new ArrayList<>(List.of(1, 2));
+        List<Tuple<Object>> holders = List.of(
+                new Tuple<Object>("a").ap(list),
+                new ArrayTuple<>(Arrays.asList("a", list)),
+                new MixedTuple(new Tuple<Object>("a").ap(list)),
+                FixedTuple.ofValues(new Object[]{"a", list}));
+        for (Tuple<Object> holder : holders) {
+            expectListHash(holder, "holding a list");
+        }
+        list.add(3);
+        for (Tuple<Object> holder : holders) {
+            expectListHash(holder, "after the list changed");
+        }
+
+        // A wrapped array can be changed from outside the tuple
+        Object[] array = {1, 2, 3};
+        Tuple<Object> wrapped = Tuple.wrap(array);
+        expectListHash(wrapped, "wrapping an array");
+        array[1] = 20;
+        expect(wrapped.<Integer>get(1) == 20, "wrapped array is shared");
+        expectListHash(wrapped, "after the wrapped array changed");
+        wrapped.ap(4);
+        array[1] = 30;
+        expect(wrapped.<Integer>get(1) == 20, "grown tuple no longer shares the array");
+        expectListHash(wrapped, "after growing");
+    }
+
+    /**
+     * Checks that frozen tuples of every engine do not change with their
+     * sources or the values they hand out, reject every change, and thaw into
+     * independent copies, and that a frozen template gives frozen typed tuples.
+     */
+    private static void checkFrozenTuples() throws Exception {
+        List<Integer> list = new ArrayList<>(List.of(1, 2));
+        List<Tuple<Object>> sources = List.of(
+                new Tuple<Object>("a").ap(3).ap(list),
+                new ArrayTuple<>(Arrays.asList("a", 3, list)),
+                new MixedTuple(new Tuple<Object>("a").ap(3).ap(list)),
+                FixedTuple.ofValues(new Object[]{"a", 3, list}));
+        Tuple<Object> expected = new Tuple<Object>("a").ap(3).ap(List.of(1, 2));
+
+        for (Tuple<Object> source : sources) {
+            FrozenTuple<Object> frozen = source.freeze();
+            list.add(9);
+            expectSameValues(frozen, expected);
+            list.remove(2);
+
+            // Mutable values are handed out as copies
+            frozen.<List<Integer>>get(2).add(7);
+            expectSameValues(frozen, expected);
+            expect(frozen.toString() == frozen.toString(), "cached string");
+            expect(frozen.freeze() == frozen && frozen.clone() == frozen, "frozen copies");
+
+            expectThrows(UnsupportedOperationException.class, () -> frozen.ap(1));
+            expectThrows(UnsupportedOperationException.class, () -> frozen.apAll(List.of(1)));
+            expectThrows(UnsupportedOperationException.class, () -> frozen.add(0, "b"));
+            expectThrows(UnsupportedOperationException.class, () -> frozen.remove(0));
+            expectThrows(UnsupportedOperationException.class, () -> frozen.replace(0, "b"));
+            expectThrows(UnsupportedOperationException.class, () -> frozen.set("b"));
+            expectThrows(UnsupportedOperationException.class, () -> frozen.setInt(1, 4));
+            expectThrows(UnsupportedOperationException.class, () -> frozen.lockSize("Frozen check"));
+
+            ArrayTuple<Object> thawed = frozen.thaw();
+            thawed.replace(0, "b");
+            thawed.ap(4);
+            expect(frozen.get(0).equals("a") && frozen.getSize() == 3, "thawed copy is independent");
+        }
+
+        String type = "Frozen check";
+        Tuple.removeTypedTuple(type);
+        FrozenTuple<Object> template = new Tuple<Object>("x").ap(1).lockSize(type).freeze();
+        expect(template.isLockedSize() && template.getType().equals(type), "lock of a frozen tuple");
+        expect(Tuple.setTypedTuple(template), "register " + type);
+        Tuple<?> typed = Tuple.getTypedTuple(type);
+        expect(typed != template && typed.equals(template), "typed tuple is a copy");
+        typed.set("y").set(2);
+        expectSameValues(Tuple.getTypedTuple(type), template);
+        Tuple<?>[] rows = Tuple.getTypedTuples(type, 3, row -> new Object[]{"r" + row, row});
+        for (int row = 0; row < 3; row++) {
+            expect(rows[row] instanceof FrozenTuple, "rows of a frozen type are frozen");
+            expectSameValues(rows[row], new Tuple<Object>("r" + row).ap(row).lockSize(type));
+        }
+        expect(Tuple.removeTypedTuple(type), "remove " + type);
+    }
+
+    /**
+     * Builds equal tuples of every engine that can hold the given values.
+     *
+     * @param values The values of the tuples.
+     * @return A linked tuple followed by the other engines holding the same values.
+     */
+    private static List<Tuple<?>> engines(Object... values) throws CloneNotSupportedException {
+        Tuple<Object> linked = new Tuple<>(Arrays.asList(values));
+        List<Tuple<?>> tuples = new ArrayList<>(List.of(
+                linked,
+                new ArrayTuple<>(Arrays.asList(values)),
+                new MixedTuple(linked),
+                new PersistentTuple<>(Arrays.asList(values)),
+                linked.freeze()));
+        if (values.length <= 8) {
+            tuples.add(FixedTuple.ofValues(values.clone()));
+        }
+        if (Arrays.stream(values).allMatch(Integer.class::isInstance)) {
+            tuples.add(new IntTuple(Arrays.stream(values).mapToInt(Integer.class::cast).toArray()));
+        } else if (Arrays.stream(values).allMatch(Long.class::isInstance)) {
+            tuples.add(new LongTuple(Arrays.stream(values).mapToLong(Long.class::cast).toArray()));
+        } else if (Arrays.stream(values).allMatch(Double.class::isInstance)) {
+            tuples.add(new DoubleTuple(Arrays.stream(values).mapToDouble(Double.class::cast).toArray()));
+        }
+        return tuples;
+    }
+
+    /**
+     * Builds random values of the classes the engines store unboxed, or strings.
+     *
+     * @param random The source of the values.
+     * @param kind   0 for ints, 1 for longs, 2 for doubles, 3 for strings, or any other number to mix them.
+     * @return Between 1 and 10 values.
+     */
+    private static Object[] randomValues(Random random, int kind) {
+        Object[] values = new Object[1 + random.nextInt(10)];
+        for (int i = 0; i < values.length; i++) {
+            switch (kind < 0 || kind > 3 ? random.nextInt(4) : kind) {
+                case 0 -> values[i] = random.nextInt(5) - 2;
+                case 1 -> values[i] = (long) random.nextInt(5) - 2;
+                case 2 -> values[i] = random.nextInt(5) / 2.0 - 1;
+                default -> values[i] = "abc".substring(random.nextInt(3));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Checks that a seeded hasher gives the same 64-bit hash, 32-bit hash and
+     * partition for equal tuples of every engine and another hash for another
+     * seed, that the hashes of small tuples spread over the partitions, and
+     * that the same number in different kinds gives different hashes.
+     */
+    private static void checkHasher() throws Exception {
+        Random random = new Random(SEED);
+        TupleHasher hasher = TupleHasher.withSeed(SEED);
+        expect(hasher.getSeed() == SEED && TupleHasher.DEFAULT.getSeed() == 0, "seeds");
+        for (int step = 0; step < STEPS; step++) {
+            Object[] values = randomValues(random, step % 5);
+            List<Tuple<?>> tuples = engines(values);
+            long hash = hasher.hash64(tuples.get(0));
+            for (Tuple<?> tuple : tuples) {
+                String context = tuple.getClass().getSimpleName() + " " + tuple;
+                expect(hasher.hash64(tuple) == hash, "hash64 of " + context);
+                expect(hasher.hash32(tuple) == (int) (hash ^ (hash >>> 32)), "hash32 of " + context);
+                expect(hasher.partition(tuple, 7) == hasher.partition(tuples.get(0), 7), "partition of " + context);
+            }
+            expect(TupleHasher.withSeed(SEED + 1).hash64(tuples.get(0)) != hash, "hash with another seed");
+        }
+
+        // Small tuples spread over every bit and every partition
+        Set<Long> hashes = new HashSet<>();
+        int[] partitions = new int[16];
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 100; j++) {
+                IntTuple tuple = new IntTuple(i, j);
+                hashes.add(TupleHasher.DEFAULT.hash64(tuple));
+                partitions[TupleHasher.DEFAULT.partition(tuple, partitions.length)]++;
+            }
+        }
+        expect(hashes.size() == 10_000, "distinct hashes of small tuples: " + hashes.size());
+        for (int count : partitions) {
+            expect(count > 450 && count < 800, "uneven partitions: " + Arrays.toString(partitions));
+        }
+        // Values of different kinds with the same bits are never equal, so they do not hash the same
+        List<Tuple<?>> kinds = List.of(new IntTuple(1), new LongTuple(1L), new Tuple<>((short) 1), new Tuple<>((byte) 1),
+                new Tuple<>('\u0001'), new Tuple<>(true), new MixedTuple(new Tuple<Object>(1L)));
+        Set<Long> kindHashes = new HashSet<>();
+        for (Tuple<?> tuple : kinds) {
+            kindHashes.add(hasher.hash64(tuple));
+        }
+        expect(kindHashes.size() == kinds.size() - 1, "hashes of one in different kinds: " + kindHashes.size());
+        expect(hasher.hash64(new LongTuple(1L)) == hasher.hash64(new MixedTuple(new Tuple<Object>(1L))),
+                "hash of a long in different storages");
+        expectThrows(IllegalArgumentException.class, () -> hasher.partition(new IntTuple(1), 0));
+        expect(TupleHasher.randomSeed().getSeed() != TupleHasher.randomSeed().getSeed(), "random seeds");
+    }
+
+    /**
+     * Compares the first values of two arrays lexicographically, with null
+     * first, as a reference for the orders of tuples.
+     */
+    private static int referenceCompare(Object[] first, Object[] second, int length) {
+        int count = Math.min(length, Math.min(first.length, second.length));
+        for (int i = 0; i < count; i++) {
+            int result = TupleComparator.compareValues(first[i], second[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(Math.min(length, first.length), Math.min(length, second.length));
+    }
+
+    private static void expectSameSign(int actual, int expected, String context) {
+        expect(Integer.signum(actual) == Integer.signum(expected),
+                context + ": " + actual + " instead of " + expected);
+    }
+
+    /**
+     * Checks compareTo, comparePrefix and the prefix comparators of every pair
+     * of engines against a reference lexicographic order, and the compiled
+     * comparator of a type against compareTo.
+     */
+    private static void checkComparators() throws Exception {
+        Random random = new Random(SEED);
+        for (int step = 0; step < STEPS; step++) {
+            int kind = step % 4;
+            Object[] firstValues = randomValues(random, kind);
+            Object[] secondValues = randomValues(random, kind);
+            int length = random.nextInt(6);
+            int expected = referenceCompare(firstValues, secondValues, Integer.MAX_VALUE);
+            int expectedPrefix = referenceCompare(firstValues, secondValues, length);
+            Comparator<Tuple<?>> prefix = Tuple.prefixComparator(length);
+            for (Tuple<?> first : engines(firstValues)) {
+                for (Tuple<?> second : engines(secondValues)) {
+                    String context = first.getClass().getSimpleName() + " " + first + " to "
+                            + second.getClass().getSimpleName() + " " + second;
+                    expectSameSign(first.compareTo(second), expected, "compareTo of " + context);
+                    expectSameSign(first.comparePrefix(second, length), expectedPrefix, "comparePrefix of " + context);
+                    expectSameSign(prefix.compare(first, second), expectedPrefix, "prefixComparator of " + context);
+                }
+            }
+        }
+        expectThrows(IllegalArgumentException.class, () -> Tuple.prefixComparator(-1));
+
+        // The comparator of a type agrees with compareTo, whatever the engines compared
+        String type = "Comparator check";
+        Tuple.removeTypedTuple(type);
+        expect(Tuple.setTypedTuple(new Tuple<Object>(0).ap(0L).ap(0.0).ap("a").lockSize(type)), "register " + type);
+        Comparator<Tuple<?>> comparator = Tuple.getComparator(type);
+        IntFunction<Object[]> rowValues = row -> new Object[]{
+            row % 3, (long) (row / 3 % 3), row / 9 % 3 / 2.0, "abc".substring(row / 27 % 3)};
+        Tuple<?>[] typed = Tuple.getTypedTuples(type, 81, rowValues);
+        List<Tuple<?>> rows = new ArrayList<>();
+        for (int row = 0; row < 81; row++) {
+            Tuple<Object> linked = new Tuple<>(Arrays.asList(rowValues.apply(row))).lockSize(type);
+            rows.add(typed[row]);
+            rows.add(linked);
+            rows.add(new MixedTuple(linked));
+            rows.add(new ArrayTuple<>(Arrays.asList(rowValues.apply(row))).lockSize(type));
+        }
+        for (int i = 0; i < rows.size(); i += 3) {
+            for (int j = 1; j < rows.size(); j += 5) {
+                Tuple<?> first = rows.get(i);
+                Tuple<?> second = rows.get(j);
+                expectSameSign(comparator.compare(first, second), first.compareTo(second),
+                        "comparator of " + type + " for " + first + " and " + second);
+                expectSameSign(first.compareTo(second), referenceCompare(first.toArray(), second.toArray(), 4),
+                        "compareTo of " + first + " and " + second);
+            }
+        }
+        expect(Tuple.getComparator("Comparator check missing") == null, "missing type");
+        expect(Tuple.removeTypedTuple(type), "remove " + type);
+    }
+
+    /**
+     * Builds rows of an int, a long, a double and a string, including the
+     * extreme values, stored by engines picked at random.
+     */
+    private static Tuple<?>[] sortRows(Random random, int count, boolean nulls) throws Exception {
+        int[] ints = {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE};
+        long[] longs = {Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE};
+        double[] doubles = {Double.NEGATIVE_INFINITY, -1.5, -0.0, 0.0, 2.5, Double.POSITIVE_INFINITY, Double.NaN};
+        String[] strings = {"", "a", "ab", "abcdefgh", "abcdefghi", "abcdefghj", "b", "\u00e9", "\uffff"};
+        Tuple<?>[] rows = new Tuple<?>[count];
+        for (int row = 0; row < count; row++) {
+            Object[] values = {
+                ints[random.nextInt(ints.length)],
+                longs[random.nextInt(longs.length)],
+                doubles[random.nextInt(doubles.length)],
+                nulls && random.nextInt(10) == 0 ? null : strings[random.nextInt(strings.length)]};
+            List<Tuple<?>> tuples = engines(values);
+            rows[row] = tuples.get(random.nextInt(tuples.size()));
+        }
+        return rows;
+    }
+
+    /**
+     * Checks the parallel, merge and radix sorts of natural and key orders
+     * against the stable sort of Arrays, with and without nulls and with keys
+     * wider than the normalized prefix, and that the results follow compareTo
+     * and the key values.
+     */
+    private static void checkSorter() throws Exception {
+        Random random = new Random(SEED);
+        List<TupleSorter> sorters = List.of(TupleSorter.natural(), TupleSorter.byKey(2, 0),
+                TupleSorter.byKey(3), TupleSorter.byKey(1, 3, 2), TupleSorter.byKey(0, 1, 2, 3));
+        for (boolean nulls : new boolean[]{false, true}) {
+            Tuple<?>[] rows = sortRows(random, 20_000, nulls);
+            for (TupleSorter sorter : sorters) {
+                // Arrays.sort is stable too, so the sorts must give the very same array
+                Tuple<?>[] expected = rows.clone();
+                Arrays.sort(expected, sorter.comparator());
+                List<Consumer<Tuple<?>[]>> sorts =
+                        List.of(sorter::sort, sorter::mergeSort, sorter::radixSort);
+                for (Consumer<Tuple<?>[]> sort : sorts) {
+                    Tuple<?>[] sorted = rows.clone();
+                    sort.accept(sorted);
+                    for (int i = 0; i < sorted.length; i++) {
+                        expect(sorted[i] == expected[i], "position " + i + " of a sort " + (nulls ? "with" : "without") + " nulls");
+                    }
+                }
+            }
+
+            Tuple<?>[] sorted = rows.clone();
+            TupleSorter.natural().sort(sorted);
+            for (int i = 1; i < sorted.length; i++) {
+                expect(sorted[i - 1].compareTo(sorted[i]) <= 0, "natural order at " + i);
+                expect(referenceCompare(sorted[i - 1].toArray(), sorted[i].toArray(), 4) <= 0, "reference order at " + i);
+            }
+            sorted = rows.clone();
+            TupleSorter.byKey(3).sort(sorted);
+            for (int i = 1; i < sorted.length; i++) {
+                expect(TupleComparator.compareValues(sorted[i - 1].get(3), sorted[i].get(3)) <= 0, "key order at " + i);
+            }
+        }
+
+        // Keys wider than the normalized prefix are tied on it and ordered by the rest
+        Tuple<?>[] wideRows = new Tuple<?>[20_000];
+        for (int i = 0; i < wideRows.length; i++) {
+            int[] values = new int[7];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = random.nextInt(3);
+            }
+            wideRows[i] = i % 2 == 0 ? new IntTuple(values) : new Tuple<>(Arrays.stream(values).boxed().toList());
+        }
+        for (TupleSorter sorter : List.of(TupleSorter.natural(), TupleSorter.byKey(6, 5, 4, 3, 2, 1))) {
+            Tuple<?>[] expected = wideRows.clone();
+            Arrays.sort(expected, sorter.comparator());
+            Tuple<?>[] sorted = wideRows.clone();
+            sorter.radixSort(sorted);
+            for (int i = 0; i < sorted.length; i++) {
+                expect(sorted[i] == expected[i], "position " + i + " of a radix sort of a wide key");
+            }
+        }
+
+        expectThrows(IllegalArgumentException.class, () -> TupleSorter.byKey());
+        expectThrows(IllegalArgumentException.class, () -> TupleSorter.byKey(0, -1));
+        expectThrows(IndexOutOfBoundsException.class,
+                () -> TupleSorter.byKey(5).sort(new Tuple<?>[]{new IntTuple(1), new IntTuple(2)}));
+    }
+
+    /**
+     * Checks that encoded keys decode to equal tuples, also from within a
+     * larger array, that prefix keys are prefixes of the full key, and that
+     * keys compare as the tuples and their prefixes do.
+     */
+    private static void checkKeyCodec() throws Exception {
+        Random random = new Random(SEED);
+        List<Tuple<?>> tuples = new ArrayList<>(Arrays.asList(sortRows(random, 200, true)));
+        for (int step = 0; step < 200; step++) {
+            List<Tuple<?>> sameValues = engines(randomValues(random, step % 4));
+            tuples.add(sameValues.get(random.nextInt(sameValues.size())));
+        }
+        for (int step = 0; step < 100; step++) {
+            tuples.add(new Tuple<Object>((byte) (random.nextInt(5) - 2)).ap((short) (random.nextInt(5) - 2))
+                    .ap((char) ('a' + random.nextInt(3))).ap(random.nextBoolean()).ap(random.nextInt(5) - 2.5f));
+        }
+
+        for (Tuple<?> tuple : tuples) {
+            byte[] key = tuple.encodeKey();
+            expect(Tuple.decodeKey(key).equals(new Tuple<>(Arrays.asList(tuple.toArray()))),
+                    "decoded key of " + tuple);
+            byte[] padded = new byte[key.length + 6];
+            System.arraycopy(key, 0, padded, 3, key.length);
+            expect(TupleKeyCodec.decode(padded, 3, 3 + key.length).equals(Tuple.decodeKey(key)), "key within an array");
+            for (int length = 1; length <= tuple.getSize(); length++) {
+                byte[] prefix = tuple.encodeKey(length);
+                expect(Arrays.mismatch(prefix, key) == (length == tuple.getSize() ? -1 : prefix.length),
+                        "key of the first " + length + " positions of " + tuple);
+            }
+        }
+
+        // Keys of tuples whose values can be compared are ordered as the tuples
+        for (int i = 0; i < tuples.size(); i++) {
+            for (int j = 0; j < tuples.size(); j += 7) {
+                Tuple<?> first = tuples.get(i);
+                Tuple<?> second = tuples.get(j);
+                int expected;
+                try {
+                    expected = first.compareTo(second);
+                } catch (ClassCastException ex) {
+                    continue;
+                }
+                expectSameSign(TupleKeyCodec.compare(first.encodeKey(), second.encodeKey()), expected,
+                        "keys of " + first + " and " + second);
+                int length = 1 + (i + j) % 3;
+                expectSameSign(TupleKeyCodec.compare(first.encodeKey(length), second.encodeKey(length)),
+                        first.comparePrefix(second, length), "keys of the first " + length + " positions of " + first + " and " + second);
+            }
+        }
+
+        expectThrows(IllegalArgumentException.class, () -> Tuple.decodeKey(new byte[0]));
+        expectThrows(IllegalArgumentException.class, () -> Tuple.decodeKey(new byte[]{0x7F}));
+        expectThrows(IllegalArgumentException.class, () -> new IntTuple(1).encodeKey(-1));
+        expectThrows(IllegalArgumentException.class, () -> new Tuple<Object>("a").ap(List.of(1)).encodeKey());
+    }
+
+    /**
+     * Checks the streams, iteration and spliterators of every engine for small
+     * and large tuples, including the exact size of every part of a split,
+     * and the streams of a linked tuple started from a node in its middle.
+     */
+    private static void checkStreams() throws Exception {
+        for (int size : new int[]{1, 7, 5_000}) {
+            Object[] values = new Object[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = i * 3 - size;
+            }
+            long sum = Arrays.stream(values).mapToLong(Integer.class::cast).sum();
+            for (Tuple<?> tuple : engines(values)) {
+                String context = tuple.getClass().getSimpleName() + " of " + size + " values";
+                expect(Arrays.equals(tuple.stream().toArray(), values), "stream of " + context);
+                expect(Arrays.equals(tuple.parallelStream().toArray(), values), "parallel stream of " + context);
+                expect(tuple.parallelStream().count() == size, "parallel count of " + context);
+                expect(tuple.intStream().asLongStream().sum() == sum, "int sum of " + context);
+                expect(tuple.longStream().parallel().sum() == sum, "long sum of " + context);
+                expect(tuple.doubleStream().sum() == sum, "double sum of " + context);
+
+                List<Object> iterated = new ArrayList<>();
+                tuple.forEach(iterated::add);
+                expect(iterated.equals(Arrays.asList(values)), "forEach of " + context);
+                iterated.clear();
+                for (Object value : tuple) {
+                    iterated.add(value);
+                }
+                expect(iterated.equals(Arrays.asList(values)), "iterator of " + context);
+
+                // Every part of a split keeps an exact size
+                Spliterator<?> spliterator = tuple.spliterator();
+                expect(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED),
+                        "characteristics of " + context);
+                expect(spliterator.getExactSizeIfKnown() == size, "size of " + context);
+                Spliterator<?> prefix = spliterator.trySplit();
+                long counted = 0;
+                for (Spliterator<?> part : new Spliterator<?>[]{prefix, spliterator}) {
+                    if (part != null) {
+                        long expected = part.getExactSizeIfKnown();
+                        long[] count = new long[1];
+                        part.forEachRemaining(value -> count[0]++);
+                        expect(expected >= 0 && count[0] == expected, "size of a part of " + context);
+                        counted += count[0];
+                    }
+                }
+                expect(counted == size, "parts of " + context);
+            }
+        }
+
+        // A linked tuple streams from any of its nodes to its end
+        Tuple<Integer> tuple = new Tuple<>(0);
+        for (int i = 1; i < 3_000; i++) {
+            tuple.ap(i);
+        }
+        Tuple<Integer> node = tuple;
+        for (int i = 0; i < 1_000; i++) {
+            node = node.set(i);
+        }
+        expect(node.stream().count() == 2_000 && node.parallelStream().mapToLong(Integer::longValue).sum()
+                == (long) (1_000 + 2_999) * 2_000 / 2, "stream from a node");
+        expect(node.spliterator().getExactSizeIfKnown() == 2_000, "spliterator from a node");
+    }
+
+    /**
+     * Checks Tuple.of, Tuple.wrap, apAll and the tuple builder against tuples
+     * built one value at a time, including which arrays are shared and how
+     * rejected values, locked tuples and reused builders are handled.
+     */
+    private static void checkBulkConstruction() throws Exception {
+        Object[] values = {"a", 1, 2.5, null, 'c'};
+        Tuple<Object> appended = new Tuple<Object>("a").ap(1).ap(2.5).ap(null).ap('c');
+        expectSameValues(Tuple.of(values), appended);
+        expectSameValues(Tuple.<Object>of(), new Tuple<>((Object) null));
+        expectThrows(IllegalArgumentException.class, () -> Tuple.of("a", new Tuple<>(1)));
+
+        // Only an Object[] is shared with the caller
+        Object[] shared = values.clone();
+        ArrayTuple<Object> wrapped = Tuple.wrap(shared);
+        expectSameValues(wrapped, appended);
+        wrapped.replace(0, "b");
+        shared[1] = 4;
+        expect(shared[0].equals("b") && wrapped.<Integer>get(1) == 4, "wrapped array is shared");
+        String[] strings = {"x", "y"};
+        ArrayTuple<String> wrappedStrings = Tuple.wrap(strings);
+        wrappedStrings.ap(3);
+        wrappedStrings.add(0, 4.5);
+        expectSameValues(wrappedStrings, new Tuple<Object>(4.5).ap("x").ap("y").ap(3));
+        strings[0] = "z";
+        expect(wrappedStrings.get(1).equals("x"), "narrower array is copied");
+        expectSameValues(Tuple.wrap(new Object[0]), new Tuple<>((Object) null));
+        expectThrows(IllegalArgumentException.class, () -> Tuple.wrap(new Object[]{new Tuple<>(1)}));
+
+        // Appending many values at once matches appending them one by one
+        List<Tuple<Object>> targets = List.of(new Tuple<>("s"), new ArrayTuple<>((Object) "s"),
+                new MixedTuple("s"), new PersistentTuple<>((Object) "s"));
+        for (Tuple<Object> target : targets) {
+            Tuple<Object> result = target.apAll(Arrays.asList(values)).apAll(values);
+            Tuple<Object> expected = new Tuple<Object>("s").apAll(Arrays.asList(values)).apAll(values);
+            expectSameValues(result, expected);
+            Object[] rejected = {1, new Tuple<>(2)};
+            expectThrows(IllegalArgumentException.class, () -> result.apAll(rejected));
+            expectSameValues(result, expected);
+        }
+        IntTuple ints = new IntTuple(1);
+        ints.apAll(List.of(2, 3)).apAll(new Object[]{4});
+        expectSameValues(ints, Tuple.of(1, 2, 3, 4));
+        expectThrows(UnsupportedOperationException.class, () -> Tuple.of(1, 2).lockSize("Bulk check").apAll(List.of(3)));
+
+        // A builder can be reused for tuple after tuple
+        TupleBuilder<Object> builder = new TupleBuilder<>(1);
+        for (int round = 0; round < 3; round++) {
+            expectSameValues(builder.add("a").add(1).add(2.5).add(null).add('c').build(), appended);
+            expect(builder.getSize() == 0, "builder emptied by build");
+            expectSameValues(builder.addAll(Arrays.asList(values)).buildLinked(), appended);
+        }
+        expectSameValues(builder.add("x").clear().add("a").build(), Tuple.of("a"));
+        expectSameValues(builder.build(), new Tuple<>((Object) null));
+        expectSameValues(builder.buildLinked(), new Tuple<>((Object) null));
+        expectThrows(IllegalArgumentException.class, () -> builder.add(new Tuple<>(1)));
+        expectThrows(IllegalArgumentException.class, () -> new TupleBuilder<>(-1));
+    }
+
+    /**
+     * A value that can only be copied by a registered copier.
+     */
+    static final class Sealed {
+
+        final int value;
+
+        Sealed(int value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * A value registered as immutable, although nothing tells it apart.
+     */
+    static final class Label {
+    }
+
+    /**
+     * A record whose components are all immutable.
+     */
+    record Point(int x, int y) {
+    }
+
+    /**
+     * A node of a chain of Serializable objects.
+     */
+    public static final class Node implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        int value;
+        Node next;
+        transient String cache;
+
+        public Node() {
+        }
+
+        Node(int value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * A Serializable value that writes its own serialized form.
+     */
+    public static final class Custom implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        int value = 7;
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            out.defaultWriteObject();
+        }
+    }
+
+    /**
+     * A Serializable value whose constructor counts the values created.
+     */
+    public static final class Counted implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        static int created;
+
+        public Counted() {
+            created++;
+        }
+    }
+
+    /**
+     * A Serializable value with an initialized transient field.
+     */
+    public static final class Cached implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        int value = 7;
+        transient String cache = "cached";
+    }
+
+    /**
+     * A cloneable value that counts something.
+     */
+    public static final class Counter implements Cloneable {
+
+        int count = 3;
+
+        @Override
+        public Counter clone() {
+            try {
+                return (Counter) super.clone();
+            } catch (CloneNotSupportedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Counter && ((Counter) obj).count == count;
+        }
+
+        @Override
+        public int hashCode() {
+            return count;
+        }
+    }
+
+    /**
+     * A value that cannot be cloned in any way.
+     */
+    static final class Opaque {
+    }
+
+    /**
+     * A value whose clone method fails with an error.
+     */
+    public static final class Exploding implements Cloneable {
+
+        @Override
+        public Exploding clone() {
+            throw new CloneError();
+        }
+    }
+
+    /**
+     * The error thrown by {@link Exploding#clone()}.
+     */
+    static final class CloneError extends Error {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * A check, which throws to report a failure.
+     */
+    @FunctionalInterface
+    private interface Check {
+        void run() throws Exception;
+    }
+}